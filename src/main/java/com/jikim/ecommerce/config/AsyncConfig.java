@@ -1,28 +1,108 @@
 package com.jikim.ecommerce.config;
 
+import com.jikim.ecommerce.util.BoundedVirtualThreadExecutor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @Configuration
 @EnableAsync
 @Slf4j
 public class AsyncConfig {
     
+    // platform: 고정 크기 스레드 풀 / virtual: 작업마다 가상 스레드 (동시 실행 수는 Semaphore로 제한)
+    @Value("${download.executor.mode:platform}")
+    private String executorMode;
+    
+    // virtual 모드 동시 실행 한도 (다운로드 / 파이프라인 읽기는 DB 커넥션을 쓰므로 커넥션 풀 크기 이하로)
+    @Value("${download.executor.virtual.download-limit:20}")
+    private int virtualDownloadLimit;
+    
+    @Value("${download.executor.virtual.reader-limit:20}")
+    private int virtualReaderLimit;
+    
+    @Value("${download.executor.virtual.progress-limit:1000}")
+    private int virtualProgressLimit;
+    
     @Bean(name = "downloadTaskExecutor")
     public Executor downloadTaskExecutor() {
+        if (isVirtual()) {
+            log.info("Download tasks run on virtual threads (limit {})", virtualDownloadLimit);
+            return new BoundedVirtualThreadExecutor("Download-", virtualDownloadLimit);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(3);           // 기본 스레드 수
         executor.setMaxPoolSize(5);            // 최대 스레드 수
         executor.setQueueCapacity(10);         // 큐 크기
         executor.setThreadNamePrefix("Download-");
-        executor.setRejectedExecutionHandler((r, exec) -> 
-            System.out.println("Download task rejected. Queue is full."));
+        executor.setRejectedExecutionHandler((r, exec) -> {
+            log.error("Download task rejected. Queue is full (active={}, queued={})",
+                    exec.getActiveCount(), exec.getQueue().size());
+            throw new RejectedExecutionException("Download task rejected. Queue is full.");
+        });
         executor.initialize();
         return executor;
     }
+    
+    /**
+     * 파이프라인 방식 내보내기의 DB 읽기 전용 스레드 풀
+     * 쓰기(엑셀 인코딩)는 다운로드 처리 스레드가 담당하고, 읽기만 이 풀에서 병행 처리
+     */
+    @Bean(name = "exportReaderExecutor")
+    public Executor exportReaderExecutor() {
+        if (isVirtual()) {
+            return new BoundedVirtualThreadExecutor("ExportReader-", virtualReaderLimit);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(3);
+        executor.setMaxPoolSize(10);
+        executor.setQueueCapacity(0);          // 대기열 없이 즉시 스레드 할당 (읽기가 밀리면 쓰기도 멈추므로)
+        executor.setThreadNamePrefix("ExportReader-");
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * PARALLEL 방식 내보내기의 파티션 작업용 스레드 풀
+     * 파티션마다 DB 커넥션 1개와 CPU 코어 1개를 사용하므로 코어 수로 제한
+     */
+    @Bean(name = "exportPartitionExecutor")
+    public Executor exportPartitionExecutor() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(cores);
+        executor.setMaxPoolSize(cores);
+        executor.setQueueCapacity(100);        // 동시 요청의 파티션은 대기 후 순차 처리
+        executor.setThreadNamePrefix("ExportPartition-");
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * WebSocket 진행률 전송용 Executor (전송이 막혀도 내보내기 스레드를 붙잡지 않도록 분리)
+     * 가득 차면 TaskRejectedException - 호출 측에서 해당 진행률 전송을 건너뜀
+     */
+    @Bean(name = "progressSendExecutor")
+    public Executor progressSendExecutor() {
+        if (isVirtual()) {
+            return new BoundedVirtualThreadExecutor("ProgressSend-", virtualProgressLimit);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(16);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("ProgressSend-");
+        executor.initialize();
+        return executor;
+    }
+    
+    private boolean isVirtual() {
+        return "virtual".equalsIgnoreCase(executorMode);
+    }
 }
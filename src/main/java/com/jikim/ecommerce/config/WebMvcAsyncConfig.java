@@ -0,0 +1,53 @@
+package com.jikim.ecommerce.config;
+
+import com.jikim.ecommerce.util.BoundedVirtualThreadExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * StreamingResponseBody(직접 스트리밍 다운로드) 실행 설정
+ * 기본값은 요청마다 스레드를 새로 만들고 30초에 타임아웃되므로 전용 풀과 긴 타임아웃을 지정
+ * download.executor.mode=virtual이면 다른 작업 Executor와 같이 응답마다 가상 스레드 사용 (한도를 넘으면 거절)
+ */
+@Configuration
+@Slf4j
+public class WebMvcAsyncConfig implements WebMvcConfigurer {
+    
+    @Value("${download.stream.timeout-millis:1800000}")
+    private long streamTimeoutMillis;
+    
+    @Value("${download.executor.mode:platform}")
+    private String executorMode;
+    
+    // 플랫폼 풀의 최대 스레드 수 + 대기열 크기와 같은 한도
+    @Value("${download.executor.virtual.stream-limit:20}")
+    private int virtualStreamLimit;
+    
+    @Bean(name = "streamingResponseExecutor")
+    public AsyncTaskExecutor streamingResponseExecutor() {
+        if ("virtual".equalsIgnoreCase(executorMode)) {
+            log.info("Streaming responses run on virtual threads (limit {})", virtualStreamLimit);
+            return new TaskExecutorAdapter(new BoundedVirtualThreadExecutor("StreamDownload-", virtualStreamLimit));
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(3);           // 동시 다운로드 제한과 동일
+        executor.setMaxPoolSize(10);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("StreamDownload-");
+        executor.initialize();
+        return executor;
+    }
+    
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingResponseExecutor());
+        configurer.setDefaultTimeout(streamTimeoutMillis);
+    }
+}
@@ -1,24 +1,34 @@
 package com.jikim.ecommerce.controller;
 
 import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.exception.ExportRejectedException;
 import com.jikim.ecommerce.service.ExcelDownloadQueue;
 import com.jikim.ecommerce.service.ExcelDownloadService;
+import com.jikim.ecommerce.util.ZeroCopyFileSender;
+import com.jikim.ecommerce.websocket.ProgressSseEmitters;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/api/download")
@@ -27,7 +37,10 @@ import java.util.concurrent.CompletableFuture;
 public class ExcelDownloadController {
     
     private final ExcelDownloadService excelDownloadService;
-    private static final String DOWNLOAD_DIR = "downloads/";
+    private final ProgressSseEmitters progressSseEmitters;
+    
+    @Value("${download.directory:downloads/}")
+    private String downloadDirectory;
     
     /**
      * 엑셀 다운로드 요청 (기존 방식 - 페이징)
@@ -42,16 +55,15 @@ public class ExcelDownloadController {
             }
 
             String requestId = UUID.randomUUID().toString();
-            String finalSessionId = sessionId;
-            CompletableFuture.runAsync(() -> {
-                excelDownloadService.requestDownload(
-                        DownloadRequest.DownloadType.PAGING, finalSessionId, requestId);
-            });
+            excelDownloadService.requestDownload(
+                    DownloadRequest.DownloadType.PAGING, sessionId, requestId);
 
             return ResponseEntity.ok(Map.of(
                     "requestId", requestId,
                     "message", "다운로드 요청이 큐에 추가되었습니다. WebSocket으로 진행률을 확인하세요."
             ));
+        } catch (ExportRejectedException e) {
+            return rejected(e);
         } catch (Exception e) {
             log.error("Failed to request excel download (paging)", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -72,16 +84,15 @@ public class ExcelDownloadController {
             }
 
             String requestId = UUID.randomUUID().toString();
-            String finalSessionId = sessionId;
-            CompletableFuture.runAsync(() -> {
-                excelDownloadService.requestDownload(
-                        DownloadRequest.DownloadType.PAGING, finalSessionId, requestId);
-            });
+            excelDownloadService.requestDownload(
+                    DownloadRequest.DownloadType.STREAMING, sessionId, requestId);
             
             return ResponseEntity.ok(Map.of(
                     "requestId", requestId,
                     "message", "다운로드 요청이 큐에 추가되었습니다. WebSocket으로 진행률을 확인하세요."
             ));
+        } catch (ExportRejectedException e) {
+            return rejected(e);
         } catch (Exception e) {
             log.error("Failed to request excel download (streaming)", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -90,44 +101,341 @@ public class ExcelDownloadController {
     }
     
     /**
-     * 완성된 파일 다운로드
+     * 엑셀 다운로드 요청 (파이프라인 방식 - 읽기/쓰기 스레드 분리)
      */
-    @GetMapping("/file/{fileName}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable String fileName) {
+    @PostMapping("/excel/pipelined")
+    public ResponseEntity<Map<String, String>> requestExcelDownloadPipelined(
+            @RequestHeader(value = "X-Session-ID", required = false) String sessionId) {
+        
         try {
-            File file = new File(DOWNLOAD_DIR + fileName);
+            if (sessionId == null) {
+                sessionId = "default-session";
+            }
+
+            String requestId = UUID.randomUUID().toString();
+            excelDownloadService.requestDownload(
+                    DownloadRequest.DownloadType.PIPELINED, sessionId, requestId);
             
-            if (!file.exists()) {
-                return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(Map.of(
+                    "requestId", requestId,
+                    "message", "다운로드 요청이 큐에 추가되었습니다. WebSocket으로 진행률을 확인하세요."
+            ));
+        } catch (ExportRejectedException e) {
+            return rejected(e);
+        } catch (Exception e) {
+            log.error("Failed to request excel download (pipelined)", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * 엑셀 다운로드 요청 (병렬 방식 - id 범위 파티션별 동시 생성 후 zip)
+     */
+    @PostMapping("/excel/parallel")
+    public ResponseEntity<Map<String, String>> requestExcelDownloadParallel(
+            @RequestHeader(value = "X-Session-ID", required = false) String sessionId) {
+        
+        try {
+            if (sessionId == null) {
+                sessionId = "default-session";
             }
+
+            String requestId = UUID.randomUUID().toString();
+            excelDownloadService.requestDownload(
+                    DownloadRequest.DownloadType.PARALLEL, sessionId, requestId);
             
-            Resource resource = new FileSystemResource(file);
-            String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8)
-                    .replaceAll("\\+", "%20");
+            return ResponseEntity.ok(Map.of(
+                    "requestId", requestId,
+                    "message", "다운로드 요청이 큐에 추가되었습니다. WebSocket으로 진행률을 확인하세요."
+            ));
+        } catch (ExportRejectedException e) {
+            return rejected(e);
+        } catch (Exception e) {
+            log.error("Failed to request excel download (parallel)", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * CSV/TSV 다운로드 요청 (xlsx 인코딩/압축 없이 텍스트로 내보내기, gzip 선택)
+     */
+    @PostMapping("/delimited")
+    public ResponseEntity<Map<String, String>> requestDelimitedDownload(
+            @RequestHeader(value = "X-Session-ID", required = false) String sessionId,
+            @RequestParam(value = "format", defaultValue = "CSV") DownloadRequest.DownloadType format,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+        
+        if (format != DownloadRequest.DownloadType.CSV && format != DownloadRequest.DownloadType.TSV) {
+            return ResponseEntity.badRequest().body(Map.of("error", "format은 CSV 또는 TSV만 가능합니다."));
+        }
+        
+        try {
+            if (sessionId == null) {
+                sessionId = "default-session";
+            }
+
+            String requestId = UUID.randomUUID().toString();
+            excelDownloadService.requestDownload(format, sessionId, requestId, gzip);
             
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, 
-                            "attachment; filename*=UTF-8''" + encodedFileName)
-                    .body(resource);
-                    
+            return ResponseEntity.ok(Map.of(
+                    "requestId", requestId,
+                    "message", "다운로드 요청이 큐에 추가되었습니다. WebSocket으로 진행률을 확인하세요."
+            ));
+        } catch (ExportRejectedException e) {
+            return rejected(e);
         } catch (Exception e) {
-            log.error("Failed to download file: {}", fileName, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            log.error("Failed to request delimited download ({})", format, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
         }
     }
     
     /**
-     * 큐 상태 조회
+     * 업무 데이터 내보내기 요청 (orders / products / carts)
+     */
+    @PostMapping("/export/{dataset}")
+    public ResponseEntity<Map<String, String>> requestDatasetDownload(
+            @RequestHeader(value = "X-Session-ID", required = false) String sessionId,
+            @PathVariable String dataset) {
+        
+        if (!excelDownloadService.getDatasetNames().contains(dataset.toLowerCase())) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "지원하지 않는 데이터셋입니다: " + dataset,
+                    "datasets", String.join(",", excelDownloadService.getDatasetNames())));
+        }
+        
+        try {
+            if (sessionId == null) {
+                sessionId = "default-session";
+            }
+
+            String requestId = UUID.randomUUID().toString();
+            excelDownloadService.requestDatasetDownload(dataset, sessionId, requestId);
+            
+            return ResponseEntity.ok(Map.of(
+                    "requestId", requestId,
+                    "message", "다운로드 요청이 큐에 추가되었습니다. WebSocket으로 진행률을 확인하세요."
+            ));
+        } catch (ExportRejectedException e) {
+            return rejected(e);
+        } catch (Exception e) {
+            log.error("Failed to request dataset download ({})", dataset, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * 다운로드 취소 (대기 중이면 큐에서 제거, 처리 중이면 다음 배치 경계에서 중단하고 임시 파일 삭제)
+     */
+    @PostMapping("/{requestId}/cancel")
+    public ResponseEntity<Map<String, String>> cancelDownload(
+            @PathVariable String requestId,
+            @RequestHeader(value = "X-Session-ID", required = false) String sessionId) {
+        if (!excelDownloadService.isOwnedBy(requestId, sessionId != null ? sessionId : "default-session")
+                || !excelDownloadService.cancelDownload(requestId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "대기 중이거나 처리 중인 다운로드가 아닙니다: " + requestId));
+        }
+        return ResponseEntity.ok(Map.of(
+                "requestId", requestId,
+                "message", "다운로드 취소를 요청했습니다."
+        ));
+    }
+    
+    /**
+     * 진행률 SSE 스트림 (WebSocket을 쓸 수 없는 클라이언트용, WebSocket과 같은 이벤트)
+     * 재연결 시 브라우저가 보내는 Last-Event-ID(또는 lastEventId 파라미터) 이후 이벤트부터 전송
+     * 요청한 세션만 구독 가능 (EventSource는 헤더를 보낼 수 없어 sessionId 파라미터도 허용)
+     * 모르거나 만료된 요청, 다른 세션의 요청은 404
+     */
+    @GetMapping(value = "/{requestId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamProgress(
+            @PathVariable String requestId,
+            @RequestHeader(value = "X-Session-ID", required = false) String sessionIdHeader,
+            @RequestParam(value = "sessionId", required = false) String sessionIdParam,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) Long lastEventIdParam) {
+        String sessionId = sessionIdHeader != null ? sessionIdHeader
+                : sessionIdParam != null ? sessionIdParam : "default-session";
+        if (!excelDownloadService.isOwnedBy(requestId, sessionId)) {
+            return ResponseEntity.notFound().build();
+        }
+        long lastEventId = lastEventIdHeader != null ? lastEventIdHeader
+                : lastEventIdParam != null ? lastEventIdParam : 0;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                // nginx 등 프록시가 응답을 모아 두지 않고 바로 전달하도록
+                .header("X-Accel-Buffering", "no")
+                .body(progressSseEmitters.subscribe(requestId, lastEventId));
+    }
+    
+    /**
+     * 실패한 CSV/TSV 내보내기를 마지막 체크포인트부터 재개
+     */
+    @PostMapping("/{requestId}/resume")
+    public ResponseEntity<Map<String, String>> resumeDownload(
+            @PathVariable String requestId,
+            @RequestHeader(value = "X-Session-ID", required = false) String sessionId) {
+        if (!excelDownloadService.isOwnedBy(requestId, sessionId != null ? sessionId : "default-session")
+                || !excelDownloadService.resumeDownload(requestId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "재개할 체크포인트가 없거나 이미 처리 중입니다: " + requestId));
+        }
+        return ResponseEntity.ok(Map.of(
+                "requestId", requestId,
+                "message", "마지막 체크포인트부터 다시 처리합니다. WebSocket으로 진행률을 확인하세요."
+        ));
+    }
+    
+    /**
+     * CSV/TSV 직접 스트리밍 다운로드 (동시 처리 제한을 초과하면 429 반환)
+     */
+    @GetMapping("/delimited/stream")
+    public ResponseEntity<StreamingResponseBody> streamDelimitedDownload(
+            @RequestHeader(value = "X-Session-ID", required = false) String sessionId,
+            @RequestParam(value = "format", defaultValue = "CSV") DownloadRequest.DownloadType format,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+            HttpServletRequest httpRequest) {
+        
+        if (format != DownloadRequest.DownloadType.CSV && format != DownloadRequest.DownloadType.TSV) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (sessionId == null) {
+            sessionId = "default-session";
+        }
+        
+        String requestId = UUID.randomUUID().toString();
+        if (!excelDownloadService.tryStartDirectDownload(requestId, sessionId)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+        
+        String extension = format == DownloadRequest.DownloadType.CSV ? "csv" : "tsv";
+        String fileName = "sample_data_" + requestId + "." + extension + (gzip ? ".gz" : "");
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : MediaType.parseMediaType((format == DownloadRequest.DownloadType.CSV
+                        ? "text/csv" : "text/tab-separated-values") + ";charset=UTF-8");
+        
+        StreamingResponseBody body = outputStream ->
+                excelDownloadService.streamDirectDelimited(requestId, format, gzip, outputStream);
+        releaseSlotOnAsyncCompletion(httpRequest, requestId);
+        
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename*=UTF-8''" + fileName)
+                .header("X-Request-ID", requestId)
+                .body(body);
+    }
+    
+    /**
+     * 엑셀 직접 스트리밍 다운로드 (임시 파일 / 큐 대기 / WebSocket 없이 응답으로 바로 전송)
+     * Content-Length 없이 chunked 전송되며, 동시 처리 제한을 초과하면 429 반환
+     */
+    @GetMapping("/excel/stream")
+    public ResponseEntity<StreamingResponseBody> streamExcelDownload(
+            @RequestHeader(value = "X-Session-ID", required = false) String sessionId,
+            @RequestParam(value = "compression", defaultValue = "NONE") DownloadRequest.Compression compression,
+            HttpServletRequest httpRequest) {
+        
+        if (sessionId == null) {
+            sessionId = "default-session";
+        }
+        
+        String requestId = UUID.randomUUID().toString();
+        if (!excelDownloadService.tryStartDirectDownload(requestId, sessionId)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+        
+        String fileName = switch (compression) {
+            case NONE -> "sample_data_" + requestId + ".xlsx";
+            case GZIP -> "sample_data_" + requestId + ".xlsx.gz";
+            case ZIP -> "sample_data_" + requestId + ".zip";
+        };
+        MediaType contentType = switch (compression) {
+            case NONE -> MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            case GZIP -> MediaType.parseMediaType("application/gzip");
+            case ZIP -> MediaType.parseMediaType("application/zip");
+        };
+        
+        StreamingResponseBody body = outputStream ->
+                excelDownloadService.streamDirect(requestId, compression, outputStream);
+        releaseSlotOnAsyncCompletion(httpRequest, requestId);
+        
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename*=UTF-8''" + fileName)
+                .header("X-Request-ID", requestId)
+                .body(body);
+    }
+    
+    /**
+     * 완성된 파일 다운로드
+     * sendfile 지원 시 zero-copy 전송 (미지원 시 버퍼 복사), Range / If-Range 이어받기, 강한 ETag 지원
+     */
+    @GetMapping("/file/{fileName}")
+    public void downloadFile(@PathVariable String fileName,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        Path downloadDir = Paths.get(downloadDirectory).toAbsolutePath().normalize();
+        Path filePath = downloadDir.resolve(fileName).normalize();
+        
+        // downloads/ 밖의 경로 접근 차단
+        if (!filePath.startsWith(downloadDir) || !Files.isRegularFile(filePath)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        
+        try {
+            ZeroCopyFileSender.send(filePath.toFile(), request, response);
+        } catch (IOException e) {
+            // 클라이언트가 전송 도중 연결을 끊은 경우 (이어받기로 재개 가능)
+            log.warn("File transfer interrupted: {} ({})", fileName, e.getMessage());
+        }
+    }
+    
+    /**
+     * 큐 상태 조회 (X-Session-ID 세션의 대기 요청만 순번/예상 시작 시각 포함, 헤더가 없으면 건수만)
      */
     @GetMapping("/queue/status")
-    public ResponseEntity<ExcelDownloadQueue.QueueStatus> getQueueStatus() {
+    public ResponseEntity<ExcelDownloadQueue.QueueStatus> getQueueStatus(
+            @RequestHeader(value = "X-Session-ID", required = false) String sessionId) {
         try {
-            ExcelDownloadQueue.QueueStatus status = excelDownloadService.getQueueStatus();
+            ExcelDownloadQueue.QueueStatus status = excelDownloadService.getQueueStatus(sessionId);
             return ResponseEntity.ok(status);
         } catch (Exception e) {
             log.error("Failed to get queue status", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+    
+    /**
+     * 직접 스트리밍 슬롯을 비동기 요청 종료 시 반납
+     * 본문의 finally는 본문이 실행될 때만 돌기 때문에, 실행기 거부 / 타임아웃 / 디스패치 전 연결 종료에서도
+     * 반납되도록 요청 단위 인터셉터를 등록 (반납은 한 번만 일어남)
+     */
+    private void releaseSlotOnAsyncCompletion(HttpServletRequest httpRequest, String requestId) {
+        WebAsyncUtils.getAsyncManager(httpRequest).registerCallableInterceptor(
+                "directDownloadSlot-" + requestId, new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                        excelDownloadService.finishDirectDownload(requestId);
+                    }
+                });
+    }
+    
+    /**
+     * 수용 한도 초과 응답 (429 + Retry-After)
+     */
+    private ResponseEntity<Map<String, String>> rejected(ExportRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
 }
@@ -4,12 +4,16 @@ import com.jikim.ecommerce.dto.DownloadRequest;
 import com.jikim.ecommerce.service.FastExcelDownloadService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @RestController
 @RequestMapping("/api/fastexcel")
@@ -18,6 +22,9 @@ import java.util.concurrent.CompletableFuture;
 public class FastExcelController {
     
     private final FastExcelDownloadService fastExcelService;
+    // 공용 ForkJoinPool 대신 크기와 대기열이 제한된 전용 풀 (가득 차면 429)
+    @Qualifier("downloadTaskExecutor")
+    private final Executor downloadTaskExecutor;
     
     /**
      * 🔥 FastExcel 단일 쿼리 방식 테스트
@@ -41,7 +48,7 @@ public class FastExcelController {
                     .build();
             
             // 🔥 비동기로 실행 (사용자는 즉시 응답 받음)
-            CompletableFuture.runAsync(() -> {
+            downloadTaskExecutor.execute(() -> {
                 fastExcelService.processWithFastExcel(downloadRequest);
             });
             
@@ -52,6 +59,8 @@ public class FastExcelController {
                     "websocketUrl", "ws://localhost:8080/ws/download-progress?sessionId=" + sessionId
             ));
             
+        } catch (TaskRejectedException e) {
+            return busy();
         } catch (Exception e) {
             log.error("FastExcel single test failed", e);
             return ResponseEntity.badRequest().body(Map.of(
@@ -61,6 +70,49 @@ public class FastExcelController {
         }
     }
     
+    /**
+     * 🔥 FastExcel 서버 사이드 커서 방식 테스트 (읽기 전용 트랜잭션 + fetchSize)
+     */
+    @PostMapping("/cursor")
+    public ResponseEntity<?> testFastExcelCursor(@RequestBody Map<String, String> request) {
+        try {
+            String sessionId = request.getOrDefault("sessionId", "test-session");
+            String requestId = UUID.randomUUID().toString();
+            String fileName = "fastexcel_cursor_" + requestId + ".xlsx";
+            
+            log.info("=== FastExcel Cursor Test ===");
+            log.info("SessionId: {}", sessionId);
+            log.info("RequestId: {}", requestId);
+            
+            DownloadRequest downloadRequest = DownloadRequest.builder()
+                    .requestId(requestId)
+                    .fileName(fileName)
+                    .sessionId(sessionId)
+                    .downloadType(DownloadRequest.DownloadType.STREAMING)
+                    .build();
+            
+            downloadTaskExecutor.execute(() -> {
+                fastExcelService.processWithFastExcelCursor(downloadRequest);
+            });
+            
+            return ResponseEntity.ok(Map.of(
+                    "requestId", requestId,
+                    "fileName", fileName,
+                    "message", "FastExcel 커서 처리가 시작되었습니다",
+                    "websocketUrl", "ws://localhost:8080/ws/download-progress?sessionId=" + sessionId
+            ));
+            
+        } catch (TaskRejectedException e) {
+            return busy();
+        } catch (Exception e) {
+            log.error("FastExcel cursor test failed", e);
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "TEST_FAILED",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+    
     /**
      * 🔥 FastExcel 청크 방식 테스트
      */
@@ -83,7 +135,7 @@ public class FastExcelController {
                     .build();
             
             // 🔥 비동기로 실행
-            CompletableFuture.runAsync(() -> {
+            downloadTaskExecutor.execute(() -> {
                 fastExcelService.processWithFastExcelChunked(downloadRequest);
             });
             
@@ -94,6 +146,8 @@ public class FastExcelController {
                     "websocketUrl", "ws://localhost:8080/ws/download-progress?sessionId=" + sessionId
             ));
             
+        } catch (TaskRejectedException e) {
+            return busy();
         } catch (Exception e) {
             log.error("FastExcel chunked test failed", e);
             return ResponseEntity.badRequest().body(Map.of(
@@ -103,6 +157,92 @@ public class FastExcelController {
         }
     }
     
+    /**
+     * 🔥 FastExcel Keyset 방식 테스트 (WHERE id > lastId, 적응형 청크 크기)
+     */
+    @PostMapping("/keyset")
+    public ResponseEntity<?> testFastExcelKeyset(@RequestBody Map<String, String> request) {
+        try {
+            String sessionId = request.getOrDefault("sessionId", "test-session");
+            String requestId = UUID.randomUUID().toString();
+            String fileName = "fastexcel_keyset_" + requestId + ".xlsx";
+            
+            log.info("=== FastExcel Keyset Test ===");
+            log.info("SessionId: {}", sessionId);
+            log.info("RequestId: {}", requestId);
+            
+            DownloadRequest downloadRequest = DownloadRequest.builder()
+                    .requestId(requestId)
+                    .fileName(fileName)
+                    .sessionId(sessionId)
+                    .downloadType(DownloadRequest.DownloadType.STREAMING)
+                    .build();
+            
+            downloadTaskExecutor.execute(() -> {
+                fastExcelService.processWithFastExcelKeyset(downloadRequest);
+            });
+            
+            return ResponseEntity.ok(Map.of(
+                    "requestId", requestId,
+                    "fileName", fileName,
+                    "message", "FastExcel Keyset 처리가 시작되었습니다",
+                    "websocketUrl", "ws://localhost:8080/ws/download-progress?sessionId=" + sessionId
+            ));
+            
+        } catch (TaskRejectedException e) {
+            return busy();
+        } catch (Exception e) {
+            log.error("FastExcel keyset test failed", e);
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "TEST_FAILED",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * 🔥 FastExcel 파이프라인 방식 테스트 (읽기 스레드 + 쓰기 스레드, 링 버퍼)
+     */
+    @PostMapping("/pipelined")
+    public ResponseEntity<?> testFastExcelPipelined(@RequestBody Map<String, String> request) {
+        try {
+            String sessionId = request.getOrDefault("sessionId", "test-session");
+            String requestId = UUID.randomUUID().toString();
+            String fileName = "fastexcel_pipelined_" + requestId + ".xlsx";
+            
+            log.info("=== FastExcel Pipelined Test ===");
+            log.info("SessionId: {}", sessionId);
+            log.info("RequestId: {}", requestId);
+            
+            DownloadRequest downloadRequest = DownloadRequest.builder()
+                    .requestId(requestId)
+                    .fileName(fileName)
+                    .sessionId(sessionId)
+                    .downloadType(DownloadRequest.DownloadType.PIPELINED)
+                    .build();
+            
+            downloadTaskExecutor.execute(() -> {
+                fastExcelService.processWithFastExcelPipelined(downloadRequest);
+            });
+            
+            return ResponseEntity.ok(Map.of(
+                    "requestId", requestId,
+                    "fileName", fileName,
+                    "message", "FastExcel 파이프라인 처리가 시작되었습니다",
+                    "websocketUrl", "ws://localhost:8080/ws/download-progress?sessionId=" + sessionId
+            ));
+            
+        } catch (TaskRejectedException e) {
+            return busy();
+        } catch (Exception e) {
+            log.error("FastExcel pipelined test failed", e);
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "TEST_FAILED",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+    
     /**
      * 🔥 동시성 테스트용 - 3개 동시 요청
      */
@@ -124,7 +264,7 @@ public class FastExcelController {
                         .build();
                 
                 // 🔥 3개 모두 비동기로 시작
-                CompletableFuture.runAsync(() -> {
+                downloadTaskExecutor.execute(() -> {
                     fastExcelService.processWithFastExcelChunked(downloadRequest);
                 });
                 
@@ -136,6 +276,8 @@ public class FastExcelController {
                     "note", "각 세션별로 WebSocket 연결해서 진행률 확인하세요"
             ));
             
+        } catch (TaskRejectedException e) {
+            return busy();
         } catch (Exception e) {
             log.error("Concurrent test failed", e);
             return ResponseEntity.badRequest().body(Map.of(
@@ -144,4 +286,16 @@ public class FastExcelController {
             ));
         }
     }
+    
+    /**
+     * 전용 풀이 가득 찬 경우 (429 + Retry-After)
+     */
+    private ResponseEntity<?> busy() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "10")
+                .body(Map.of(
+                        "error", "TOO_MANY_REQUESTS",
+                        "message", "처리 중인 작업이 많습니다. 잠시 후 다시 시도하세요."
+                ));
+    }
 }
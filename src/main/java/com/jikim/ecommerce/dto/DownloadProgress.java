@@ -6,7 +6,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 @Getter
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class DownloadProgress {
@@ -17,6 +17,10 @@ public class DownloadProgress {
     private int progressPercentage;
     private String message;
     private String downloadUrl;
+    private long eventId;  // 진행률 이벤트 순번 (재연결 시 lastEventId로 보내면 이후 이벤트를 재전송)
+    private long rowsPerSecond;  // 처리 속도 (이동 평균, 행/초)
+    private long bytesWritten;   // 지금까지 기록한 결과 파일 크기
+    private Long etaSeconds;     // 남은 예상 시간 (전체 건수나 속도를 모르면 null)
     
     public static DownloadProgress queued(String requestId) {
         return DownloadProgress.builder()
@@ -56,4 +60,12 @@ public class DownloadProgress {
                 .message("다운로드 실패: " + errorMessage)
                 .build();
     }
+    
+    public static DownloadProgress cancelled(String requestId) {
+        return DownloadProgress.builder()
+                .requestId(requestId)
+                .status("CANCELLED")
+                .message("다운로드가 취소되었습니다.")
+                .build();
+    }
 }
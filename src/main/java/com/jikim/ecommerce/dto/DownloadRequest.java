@@ -14,9 +14,28 @@ public class DownloadRequest {
     private String fileName;
     private DownloadType downloadType;
     private String sessionId;
+    private long estimatedRows;  // 우선순위 분류 / 예상 시작 시각 계산용 행 수 추정치
+    private String dataVersion;  // 요청 시점 데이터 버전 (max(id) + 건수) - 동일 요청 병합 기준
+    private Long maxId;          // 요청 시점 max(id) - CSV/TSV 청크 조회 상한 (요청 후 추가된 행 제외, null이면 상한 없음)
+    private boolean gzip;        // CSV/TSV 결과 gzip 압축 여부
+    private String dataset;      // DATASET 내보내기 대상 (orders / products / carts)
     
     public enum DownloadType {
         PAGING,    // 기존 방식: 페이징으로 1000건씩
-        STREAMING  // 개선 방식: 스트리밍으로 메모리 효율적 처리
+        STREAMING, // 개선 방식: 스트리밍으로 메모리 효율적 처리
+        PIPELINED, // 파이프라인 방식: DB 읽기 스레드와 엑셀 쓰기 스레드를 링 버퍼로 연결
+        PARALLEL,  // 병렬 방식: id 범위를 N개로 나눠 파티션별 파일을 동시에 생성 후 zip으로 묶음
+        CSV,       // 쉼표 구분 텍스트 (xlsx 인코딩/압축 비용 없음)
+        TSV,       // 탭 구분 텍스트
+        DATASET    // 업무 데이터 내보내기: 선언형 컬럼 매핑 + JDBC 프로젝션 (엔티티 로딩 없음)
+    }
+    
+    /**
+     * 직접 스트리밍 다운로드의 응답 압축 방식
+     */
+    public enum Compression {
+        NONE,  // xlsx 그대로
+        GZIP,  // .xlsx.gz
+        ZIP    // xlsx 하나를 담은 .zip
     }
 }
@@ -0,0 +1,22 @@
+package com.jikim.ecommerce.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 파이프라인 링 버퍼용 재사용 행 홀더
+ * 엔티티와 달리 한 번 생성 후 값만 덮어쓰며 재사용함
+ */
+@Getter
+@Setter
+public class SampleDataRow {
+    private long id;
+    private String name;
+    private String description;
+    private double price;
+    private boolean priceNull;
+    private String category;
+    private LocalDateTime createdAt;
+}
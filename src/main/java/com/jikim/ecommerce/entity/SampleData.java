@@ -9,7 +9,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sample_data")
+@Table(name = "sample_data", indexes = {
+        // 데이터 버전 조회용 (MAX(updated_at)를 인덱스 끝에서 바로 읽음)
+        @Index(name = "idx_sample_data_updated_at", columnList = "updated_at")
+})
 @Getter
 @Builder
 @NoArgsConstructor
@@ -35,8 +38,18 @@ public class SampleData {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // 마지막 수정 시각 (제자리 수정도 내보내기 데이터 버전에 반영)
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
     }
 }
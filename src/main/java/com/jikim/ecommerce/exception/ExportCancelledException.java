@@ -0,0 +1,18 @@
+package com.jikim.ecommerce.exception;
+
+/**
+ * 취소된 내보내기 작업을 배치 경계에서 중단시키기 위한 예외
+ */
+public class ExportCancelledException extends RuntimeException {
+
+    private final String requestId;
+
+    public ExportCancelledException(String requestId) {
+        super("다운로드가 취소되었습니다: " + requestId);
+        this.requestId = requestId;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+}
@@ -0,0 +1,18 @@
+package com.jikim.ecommerce.exception;
+
+/**
+ * 내보내기 수용 한도 초과로 요청을 받지 않음 (429 + Retry-After)
+ */
+public class ExportRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ExportRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
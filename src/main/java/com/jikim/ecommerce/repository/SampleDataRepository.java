@@ -5,8 +5,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 import java.util.stream.Stream;
 
 @Repository
@@ -23,7 +26,12 @@ public interface SampleDataRepository extends JpaRepository<SampleData, Long> {
     /**
      * 스트림을 통한 메모리 효율적 조회 (Cursor 기반)
      * 주의: @Transactional(readOnly = true) 필수
+     * fetchSize를 지정하지 않으면 드라이버(PostgreSQL)가 결과 전체를 메모리에 적재함
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
     @Query("SELECT s FROM SampleData s ORDER BY s.id")
     Stream<SampleData> findAllByOrderByIdStream();
 }
@@ -0,0 +1,174 @@
+package com.jikim.ecommerce.service;
+
+import com.jikim.ecommerce.dto.DownloadProgress;
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.util.ExportDefinition;
+import com.jikim.ecommerce.util.FastExcelRowEncoder;
+import com.jikim.ecommerce.util.RollingWorksheet;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.dhatim.fastexcel.Workbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * 업무 데이터(주문/상품/장바구니) 내보내기
+ * ExportDefinition의 프로젝션 쿼리를 서버 사이드 커서로 읽어 컬럼 매핑대로 FastExcel 시트에 기록
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DatasetExportService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ExportDefinitionRegistry exportDefinitionRegistry;
+    private final ExportJobCoalescer exportJobCoalescer;
+    private final ExportCancellation exportCancellation;
+
+    @Value("${download.directory:downloads/}")
+    private String downloadDirectory;
+
+    @Value("${download.cursor.fetch-size:1000}")
+    private int cursorFetchSize;
+
+    // 시트당 최대 데이터 행 수 (넘으면 다음 시트로 자동 분할)
+    @Value("${download.sheet.max-rows:1000000}")
+    private int maxRowsPerSheet;
+
+    public ExportDefinition getDefinition(String dataset) {
+        return exportDefinitionRegistry.get(dataset);
+    }
+
+    public Set<String> getDatasetNames() {
+        return exportDefinitionRegistry.getNames();
+    }
+
+    public long countRows(ExportDefinition definition) {
+        Long count = jdbcTemplate.queryForObject(definition.getCountQuery(), Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 건수 + 데이터 버전 (버전 쿼리 결과 컬럼을 '-'로 연결, 시각 컬럼은 epoch millis, null은 0)
+     * 버전 쿼리의 첫 컬럼(max(id))은 요청 시점 조회 상한으로 함께 반환
+     */
+    public ExportDataVersionCache.Snapshot versionSnapshot(ExportDefinition definition) {
+        long rowCount = countRows(definition);
+        return jdbcTemplate.queryForObject(definition.getVersionQuery(), (rs, rowNum) -> {
+            int columnCount = rs.getMetaData().getColumnCount();
+            StringJoiner version = new StringJoiner("-");
+            for (int i = 1; i <= columnCount; i++) {
+                Object value = rs.getObject(i);
+                if (value instanceof Timestamp timestamp) {
+                    version.add(String.valueOf(timestamp.getTime()));
+                } else if (value instanceof LocalDateTime dateTime) {
+                    version.add(String.valueOf(Timestamp.valueOf(dateTime).getTime()));
+                } else {
+                    version.add(String.valueOf(rs.getLong(i)));
+                }
+            }
+            return new ExportDataVersionCache.Snapshot(rowCount, rs.getLong(1), version.toString());
+        });
+    }
+
+    /**
+     * 큐에서 꺼낸 DATASET 요청 처리
+     */
+    public void processDataset(DownloadRequest request) {
+        ExportDefinition definition = getDefinition(request.getDataset());
+        log.info("🚀 Dataset export: {} ({})", request.getRequestId(), definition.getName());
+
+        String filePath = Paths.get(downloadDirectory, request.getFileName()).toString();
+        File downloadDir = new File(downloadDirectory);
+        if (!downloadDir.exists()) {
+            downloadDir.mkdirs();
+        }
+
+        try (OutputStream os = new FileOutputStream(filePath)) {
+
+            long processedCount = writeWorkbook(definition, os, request.getRequestId(), processed -> {
+                DownloadProgress progress = DownloadProgress.processing(
+                        request.getRequestId(), request.getEstimatedRows(), processed);
+                exportJobCoalescer.sendProgress(request, progress);
+            });
+
+            // 완료 알림
+            String downloadUrl = "/api/download/file/" + request.getFileName();
+            DownloadProgress completedProgress = DownloadProgress.completed(request.getRequestId(), downloadUrl);
+            exportJobCoalescer.sendProgress(request, completedProgress);
+
+            log.info("✅ Dataset export completed: {} ({} rows)", filePath, processedCount);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("데이터셋 내보내기 실패: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 정의의 쿼리를 커서로 읽어 주어진 스트림에 워크북 기록 (스트림 close는 호출자 책임)
+     *
+     * @param requestId        fetchSize마다 취소 여부 확인
+     * @param progressCallback 10,000건마다 누적 처리 건수로 호출
+     * @return 기록한 데이터 행 수
+     */
+    public long writeWorkbook(ExportDefinition definition, OutputStream os, String requestId,
+                              LongConsumer progressCallback) throws IOException {
+        Workbook workbook = new Workbook(os, "Excel Export", "1.0");
+        FastExcelRowEncoder encoder = definition.newEncoder();
+        RollingWorksheet sheets = new RollingWorksheet(
+                workbook, definition.getSheetName(), maxRowsPerSheet, encoder::writeHeader, encoder::applyPendingStyles);
+
+        AtomicLong processedCount = new AtomicLong(0);
+
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+
+        readOnlyTx.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    definition.getQuery(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(cursorFetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            try {
+                int rowIndex = sheets.nextRow();
+                encoder.writeRow(sheets.current(), rowIndex, rs);
+
+                long processed = processedCount.incrementAndGet();
+                // fetchSize 단위로 시트 데이터를 스트림에 내보내 메모리 사용량 고정
+                if (processed % cursorFetchSize == 0) {
+                    exportCancellation.checkCancelled(requestId);
+                    sheets.flush();
+                }
+                if (processed % 10000 == 0) {
+                    progressCallback.accept(processed);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Excel 행 작성 실패: " + e.getMessage(), e);
+            }
+        }));
+
+        sheets.finish();
+        workbook.finish();
+        return processedCount.get();
+    }
+}
@@ -0,0 +1,324 @@
+package com.jikim.ecommerce.service;
+
+import com.jikim.ecommerce.dto.DownloadProgress;
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.exception.ExportCancelledException;
+import com.jikim.ecommerce.util.DelimitedRowEncoder;
+import com.jikim.ecommerce.util.ExportDefinition;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CSV / TSV 내보내기
+ * xlsx의 XML 생성 + deflate 비용 없이 커서에서 읽은 값을 바이트로 바로 인코딩하여 기록
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DelimitedExportService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ExportJobCoalescer exportJobCoalescer;
+    private final ExportCheckpointStore checkpointStore;
+    private final ExportCancellation exportCancellation;
+    private final ExportDefinitionRegistry exportDefinitionRegistry;
+
+    @Value("${download.directory:downloads/}")
+    private String downloadDirectory;
+    private static final String SQL =
+            "SELECT id, name, description, price, category, created_at FROM sample_data ORDER BY id";
+    private static final String CHUNK_SQL =
+            "SELECT id, name, description, price, category, created_at FROM sample_data WHERE id > ? AND id <= ? ORDER BY id LIMIT ?";
+
+    @Value("${download.cursor.fetch-size:1000}")
+    private int cursorFetchSize;
+
+    @Value("${download.delimited.buffer-size:65536}")
+    private int bufferSize;
+
+    // 체크포인트 청크 크기 (청크마다 파트 파일 하나)
+    @Value("${download.checkpoint.chunk-rows:100000}")
+    private int checkpointChunkRows;
+
+    // 청크 실패 시 재시도 횟수 / 간격 (간격은 시도마다 늘어남)
+    @Value("${download.checkpoint.max-retries:3}")
+    private int checkpointMaxRetries;
+
+    @Value("${download.checkpoint.retry-backoff-millis:1000}")
+    private long checkpointRetryBackoffMillis;
+
+    /**
+     * 큐 작업: CSV/TSV 파일 생성 (gzip 요청 시 .gz)
+     * id 기준 청크마다 파트 파일로 확정하므로 DB 연결이 끊기거나 서버가 재시작되어도
+     * 마지막으로 확정된 id 다음부터 이어서 만들고, 끝나면 파트를 이어 붙여 최종 파일 생성
+     */
+    public void processDelimited(DownloadRequest request) {
+        log.info("Delimited export processing: {} ({}, gzip={})",
+                request.getRequestId(), request.getDownloadType(), request.isGzip());
+
+        File downloadDir = new File(downloadDirectory);
+        if (!downloadDir.exists()) {
+            downloadDir.mkdirs();
+        }
+
+        String filePath = Paths.get(downloadDirectory, request.getFileName()).toString();
+        long totalCount = request.getEstimatedRows();
+        long startTime = System.currentTimeMillis();
+
+        try {
+            ExportCheckpointStore.Checkpoint checkpoint = checkpointStore.open(request);
+
+            if (!checkpoint.isStarted()) {
+                // 첫 파트는 BOM + 헤더
+                Path part = checkpointStore.newPartFile(checkpoint);
+                writePart(part, request, encoder -> writeHeader(encoder, request.getDownloadType()));
+                checkpointStore.commitPart(checkpoint, part, 0, 0);
+            }
+
+            while (true) {
+                exportCancellation.checkCancelled(request.getRequestId());
+                long rows = writeChunkWithRetry(request, checkpoint);
+                DownloadProgress progress = DownloadProgress.processing(
+                        request.getRequestId(), totalCount, checkpoint.getProcessedRows());
+                exportJobCoalescer.sendProgress(request, progress);
+                if (rows < checkpointChunkRows) {
+                    break;
+                }
+            }
+
+            checkpointStore.assemble(checkpoint, Paths.get(filePath));
+
+            // 완료 알림
+            String downloadUrl = "/api/download/file/" + request.getFileName();
+            DownloadProgress completedProgress = DownloadProgress.completed(request.getRequestId(), downloadUrl);
+            exportJobCoalescer.sendProgress(request, completedProgress);
+
+            log.info("Delimited export completed: {} ({} rows, {}ms)",
+                    filePath, checkpoint.getProcessedRows(), System.currentTimeMillis() - startTime);
+
+        } catch (ExportCancelledException e) {
+            throw e;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // 체크포인트는 남겨 두어 재시작 / 재개 요청 시 이어서 처리
+            log.error("Delimited export failed: {}", request.getRequestId(), e);
+            throw new RuntimeException("CSV/TSV 내보내기 실패: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 체크포인트 다음 청크를 파트 파일로 기록하고 확정 (일시적 오류는 재시도)
+     *
+     * @return 청크에 기록한 행 수 (청크 크기보다 작으면 마지막 청크)
+     */
+    private long writeChunkWithRetry(DownloadRequest request, ExportCheckpointStore.Checkpoint checkpoint)
+            throws IOException, InterruptedException {
+        int attempt = 0;
+        while (true) {
+            Path part = checkpointStore.newPartFile(checkpoint);
+            try {
+                long fromId = checkpoint.getLastId();
+                // 요청 시점 max(id)까지만 조회 (재시도 / 재개 사이에 추가된 행 제외)
+                long toId = request.getMaxId() != null ? request.getMaxId() : Long.MAX_VALUE;
+                long[] lastIdAndRows = {fromId, 0};
+                writePart(part, request, encoder -> {
+                    readOnlyTx().executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                        PreparedStatement ps = con.prepareStatement(CHUNK_SQL,
+                                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                        ps.setFetchSize(cursorFetchSize);
+                        ps.setLong(1, fromId);
+                        ps.setLong(2, toId);
+                        ps.setInt(3, checkpointChunkRows);
+                        return ps;
+                    }, (RowCallbackHandler) rs -> {
+                        try {
+                            encodeRow(encoder, rs);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        lastIdAndRows[0] = rs.getLong(1);
+                        if (++lastIdAndRows[1] % cursorFetchSize == 0) {
+                            exportCancellation.checkCancelled(request.getRequestId());
+                        }
+                    }));
+                });
+                if (lastIdAndRows[1] == 0) {
+                    // 더 읽을 행이 없음 - 빈 파트는 남기지 않음
+                    Files.deleteIfExists(part);
+                    return 0;
+                }
+                checkpointStore.commitPart(checkpoint, part, lastIdAndRows[0], lastIdAndRows[1]);
+                return lastIdAndRows[1];
+            } catch (DataAccessException | IOException | UncheckedIOException e) {
+                Files.deleteIfExists(part);
+                if (++attempt > checkpointMaxRetries) {
+                    throw e;
+                }
+                log.warn("Export chunk after id {} failed (attempt {}/{}), retrying: {}",
+                        checkpoint.getLastId(), attempt, checkpointMaxRetries, e.getMessage());
+                Thread.sleep(checkpointRetryBackoffMillis * attempt);
+            }
+        }
+    }
+
+    /**
+     * 파트 파일 하나 기록 (gzip이면 파트마다 독립된 gzip 멤버)
+     */
+    private void writePart(Path part, DownloadRequest request, PartWriter writer) throws IOException {
+        char delimiter = delimiterOf(request.getDownloadType());
+        try (FileChannel fileChannel = FileChannel.open(part,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            if (request.isGzip()) {
+                GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(fileChannel), bufferSize);
+                DelimitedRowEncoder encoder = new DelimitedRowEncoder(Channels.newChannel(gzip), delimiter, bufferSize);
+                writeAndUnwrap(writer, encoder);
+                encoder.flush();
+                gzip.finish();
+            } else {
+                DelimitedRowEncoder encoder = new DelimitedRowEncoder(fileChannel, delimiter, bufferSize);
+                writeAndUnwrap(writer, encoder);
+                encoder.flush();
+            }
+            fileChannel.force(false);
+        }
+    }
+
+    private void writeAndUnwrap(PartWriter writer, DelimitedRowEncoder encoder) throws IOException {
+        try {
+            writer.write(encoder);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface PartWriter {
+        void write(DelimitedRowEncoder encoder) throws IOException;
+    }
+
+    /**
+     * 직접 스트리밍: HTTP 응답 스트림에 CSV/TSV 기록 (스트림 close는 호출자 책임)
+     */
+    public long writeSampleData(OutputStream os, DownloadRequest.DownloadType format, boolean gzip) throws IOException {
+        if (gzip) {
+            GZIPOutputStream gzipStream = new GZIPOutputStream(os, bufferSize);
+            long rows = writeSampleData(Channels.newChannel(gzipStream), format, processed -> { });
+            gzipStream.finish();
+            return rows;
+        }
+        return writeSampleData(Channels.newChannel(os), format, processed -> { });
+    }
+
+    /**
+     * 서버 사이드 커서로 sample_data 전체를 읽어 채널에 기록
+     * 컬럼은 인덱스로 조회하고 숫자/날짜는 문자열 변환 없이 인코딩
+     *
+     * @param progressCallback 10,000건마다 누적 처리 건수로 호출
+     * @return 기록한 데이터 행 수
+     */
+    public long writeSampleData(WritableByteChannel channel, DownloadRequest.DownloadType format,
+                                LongConsumer progressCallback) throws IOException {
+        DelimitedRowEncoder encoder = new DelimitedRowEncoder(channel, delimiterOf(format), bufferSize);
+        writeHeader(encoder, format);
+
+        AtomicLong processedCount = new AtomicLong(0);
+
+        try {
+            readOnlyTx().executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(cursorFetchSize);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    encodeRow(encoder, rs);
+
+                    long processed = processedCount.incrementAndGet();
+                    if (processed % 10000 == 0) {
+                        progressCallback.accept(processed);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        encoder.flush();
+        return processedCount.get();
+    }
+
+    private char delimiterOf(DownloadRequest.DownloadType format) {
+        return switch (format) {
+            case CSV -> ',';
+            case TSV -> '\t';
+            default -> throw new IllegalArgumentException("Not a delimited format: " + format);
+        };
+    }
+
+    /**
+     * 헤더는 sample_data 내보내기 정의의 컬럼 목록을 사용 (xlsx와 같은 헤더)
+     */
+    private void writeHeader(DelimitedRowEncoder encoder, DownloadRequest.DownloadType format) throws IOException {
+        if (format == DownloadRequest.DownloadType.CSV) {
+            encoder.bom();
+        }
+        for (ExportDefinition.Column column : exportDefinitionRegistry.get(ExportDefinitionRegistry.SAMPLE_DATA).getColumns()) {
+            encoder.text(column.header());
+        }
+        encoder.endRow();
+    }
+
+    /**
+     * 컬럼은 인덱스로 조회하고 숫자/날짜는 문자열 변환 없이 인코딩
+     */
+    private void encodeRow(DelimitedRowEncoder encoder, ResultSet rs) throws IOException, SQLException {
+        encoder.number(rs.getLong(1));
+        encoder.text(rs.getString(2));
+        encoder.text(rs.getString(3));
+        long price = rs.getLong(4);
+        if (rs.wasNull()) {
+            encoder.empty();
+        } else {
+            encoder.number(price);
+        }
+        encoder.text(rs.getString(5));
+        encoder.dateTime(rs.getObject(6, LocalDateTime.class));
+        encoder.endRow();
+    }
+
+    private TransactionTemplate readOnlyTx() {
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        return readOnlyTx;
+    }
+}
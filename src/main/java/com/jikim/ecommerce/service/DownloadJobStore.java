@@ -0,0 +1,298 @@
+package com.jikim.ecommerce.service;
+
+import com.jikim.ecommerce.dto.DownloadRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 다운로드 작업 테이블 (download_jobs)
+ * 여러 인스턴스가 같은 테이블에서 작업을 나눠 가져가고, 가져간 작업은 lease 만료 전까지 갱신
+ *
+ * - 가져오기: PostgreSQL은 SELECT ... FOR UPDATE SKIP LOCKED로 다른 노드가 잡은 행을 건너뜀
+ *   그 외(H2 테스트 DB)는 잠금 없이 후보를 읽고 상태 조건부 UPDATE로 선점 (갱신 건수 1이면 성공)
+ * - 복구: lease가 만료된 CLAIMED 작업은 다시 가져갈 수 있음 (시도 횟수 한도까지)
+ *
+ * 운영 프로파일은 ddl-auto: validate이므로 엔티티 대신 CREATE TABLE IF NOT EXISTS로 직접 생성
+ */
+@Component
+@Slf4j
+public class DownloadJobStore {
+
+    public enum JobStatus {
+        QUEUED,     // 가져갈 노드를 기다림
+        CLAIMED,    // 노드가 가져가 대기/처리 중 (lease_until까지 유효)
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS download_jobs ("
+            + "request_id VARCHAR(64) PRIMARY KEY, "
+            + "session_id VARCHAR(128), "
+            + "download_type VARCHAR(16) NOT NULL, "
+            + "file_name VARCHAR(255) NOT NULL, "
+            + "estimated_rows BIGINT NOT NULL, "
+            + "data_version VARCHAR(255), "
+            + "max_id BIGINT, "
+            + "gzip BOOLEAN NOT NULL, "
+            + "dataset VARCHAR(64), "
+            + "priority INT NOT NULL, "
+            + "status VARCHAR(16) NOT NULL, "
+            + "owner_node VARCHAR(128), "
+            + "lease_until TIMESTAMP, "
+            + "attempts INT NOT NULL, "
+            + "cancel_requested BOOLEAN NOT NULL, "
+            + "enqueued_at TIMESTAMP NOT NULL, "
+            + "updated_at TIMESTAMP NOT NULL)";
+
+    // max_id 이전에 만들어진 테이블
+    private static final String ADD_MAX_ID_SQL = "ALTER TABLE download_jobs ADD COLUMN IF NOT EXISTS max_id BIGINT";
+
+    private static final String CREATE_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_download_jobs_claim ON download_jobs (status, priority, enqueued_at)";
+
+    private static final String CLAIMABLE =
+            "(status = 'QUEUED' OR (status = 'CLAIMED' AND lease_until < :now)) AND attempts < :maxAttempts";
+
+    private static final String SELECT_COLUMNS = "SELECT request_id, session_id, download_type, file_name, "
+            + "estimated_rows, data_version, max_id, gzip, dataset FROM download_jobs ";
+
+    private static final RowMapper<DownloadRequest> REQUEST_MAPPER = (rs, rowNum) -> DownloadRequest.builder()
+            .requestId(rs.getString("request_id"))
+            .sessionId(rs.getString("session_id"))
+            .downloadType(DownloadRequest.DownloadType.valueOf(rs.getString("download_type")))
+            .fileName(rs.getString("file_name"))
+            .estimatedRows(rs.getLong("estimated_rows"))
+            .dataVersion(rs.getString("data_version"))
+            .maxId(rs.getObject("max_id", Long.class))
+            .gzip(rs.getBoolean("gzip"))
+            .dataset(rs.getString("dataset"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private boolean skipLocked;
+
+    public DownloadJobStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 테이블 생성 및 SKIP LOCKED 지원 여부 확인 (영속 큐를 사용할 때만 호출)
+     */
+    public void initialize() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        jdbcTemplate.execute(ADD_MAX_ID_SQL);
+        jdbcTemplate.execute(CREATE_INDEX_SQL);
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(
+                    jdbcTemplate.getDataSource(), DatabaseMetaData::getDatabaseProductName);
+            skipLocked = "PostgreSQL".equalsIgnoreCase(product);
+            log.info("Durable download queue ready ({}, skip locked: {})", product, skipLocked);
+        } catch (MetaDataAccessException e) {
+            log.warn("Could not detect database product, claiming without SKIP LOCKED: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 작업 등록 (같은 requestId의 끝난 작업이 있으면 다시 대기 상태로)
+     *
+     * @return 등록 여부 (같은 requestId가 이미 대기/처리 중이면 false)
+     */
+    public boolean enqueue(DownloadRequest request, int priority) {
+        Timestamp now = Timestamp.from(Instant.now());
+        try {
+            jdbcTemplate.update("INSERT INTO download_jobs (request_id, session_id, download_type, file_name, "
+                            + "estimated_rows, data_version, max_id, gzip, dataset, priority, status, attempts, "
+                            + "cancel_requested, enqueued_at, updated_at) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'QUEUED', 0, FALSE, ?, ?)",
+                    request.getRequestId(), request.getSessionId(), request.getDownloadType().name(),
+                    request.getFileName(), request.getEstimatedRows(), request.getDataVersion(),
+                    request.getMaxId(), request.isGzip(), request.getDataset(), priority, now, now);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return jdbcTemplate.update("UPDATE download_jobs SET status = 'QUEUED', owner_node = NULL, "
+                            + "lease_until = NULL, attempts = 0, cancel_requested = FALSE, enqueued_at = ?, updated_at = ? "
+                            + "WHERE request_id = ? AND status IN ('COMPLETED', 'FAILED', 'CANCELLED')",
+                    now, now, request.getRequestId()) == 1;
+        }
+    }
+
+    /**
+     * 우선순위 → 등록 순으로 최대 limit건을 가져와 이 노드 소유로 표시
+     * 대기 작업과 lease가 만료된 작업(죽은 노드가 잡고 있던 작업)을 함께 가져옴
+     */
+    public List<DownloadRequest> claim(String nodeId, int limit, Duration lease, int maxAttempts) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("now", now)
+                .addValue("maxAttempts", maxAttempts)
+                .addValue("limit", limit)
+                .addValue("node", nodeId)
+                .addValue("leaseUntil", Timestamp.from(now.toInstant().plus(lease)));
+
+        return transactionTemplate.execute(status -> {
+            List<String> candidates = namedJdbcTemplate.queryForList(
+                    "SELECT request_id FROM download_jobs WHERE " + CLAIMABLE
+                            + " ORDER BY priority, enqueued_at, request_id LIMIT :limit"
+                            + (skipLocked ? " FOR UPDATE SKIP LOCKED" : ""),
+                    params, String.class);
+
+            List<String> claimed = new ArrayList<>();
+            for (String requestId : candidates) {
+                // SKIP LOCKED면 항상 성공, 아니면 다른 노드가 먼저 바꾼 행은 0건
+                int updated = namedJdbcTemplate.update("UPDATE download_jobs SET status = 'CLAIMED', "
+                                + "owner_node = :node, lease_until = :leaseUntil, attempts = attempts + 1, updated_at = :now "
+                                + "WHERE request_id = :requestId AND " + CLAIMABLE,
+                        new MapSqlParameterSource(params.getValues()).addValue("requestId", requestId));
+                if (updated == 1) {
+                    claimed.add(requestId);
+                }
+            }
+            if (claimed.isEmpty()) {
+                return List.<DownloadRequest>of();
+            }
+            return namedJdbcTemplate.query(
+                    SELECT_COLUMNS + "WHERE request_id IN (:ids) ORDER BY priority, enqueued_at, request_id",
+                    new MapSqlParameterSource("ids", claimed), REQUEST_MAPPER);
+        });
+    }
+
+    /**
+     * 이 노드가 가진 작업의 lease 연장
+     *
+     * @return lease를 유지한 작업의 requestId -> 다른 노드에서 취소 요청 여부 (없는 작업은 lease를 잃음)
+     */
+    public Map<String, Boolean> renewLeases(String nodeId, Duration lease) {
+        Instant now = Instant.now();
+        jdbcTemplate.update("UPDATE download_jobs SET lease_until = ?, updated_at = ? "
+                        + "WHERE owner_node = ? AND status = 'CLAIMED'",
+                Timestamp.from(now.plus(lease)), Timestamp.from(now), nodeId);
+        Map<String, Boolean> held = new HashMap<>();
+        jdbcTemplate.query("SELECT request_id, cancel_requested FROM download_jobs "
+                        + "WHERE owner_node = ? AND status = 'CLAIMED'",
+                (RowCallbackHandler) rs -> held.put(rs.getString("request_id"), rs.getBoolean("cancel_requested")),
+                nodeId);
+        return held;
+    }
+
+    /**
+     * 처리 결과 기록 (lease를 잃어 다른 노드가 가져간 작업이면 기록하지 않음)
+     */
+    public boolean complete(String requestId, String nodeId, JobStatus status) {
+        return jdbcTemplate.update("UPDATE download_jobs SET status = ?, owner_node = NULL, lease_until = NULL, "
+                        + "updated_at = ? WHERE request_id = ? AND owner_node = ? AND status = 'CLAIMED'",
+                status.name(), Timestamp.from(Instant.now()), requestId, nodeId) == 1;
+    }
+
+    /**
+     * 종료하는 노드의 작업을 다시 대기 상태로 (정상 종료는 시도 횟수에 넣지 않음)
+     */
+    public int releaseAll(String nodeId) {
+        return jdbcTemplate.update("UPDATE download_jobs SET status = 'QUEUED', owner_node = NULL, lease_until = NULL, "
+                        + "attempts = attempts - 1, updated_at = ? WHERE owner_node = ? AND status = 'CLAIMED'",
+                Timestamp.from(Instant.now()), nodeId);
+    }
+
+    /**
+     * 아직 아무 노드도 가져가지 않은 작업 취소
+     *
+     * @return 취소한 작업 (대기 중이 아니면 empty)
+     */
+    public Optional<DownloadRequest> cancelQueued(String requestId) {
+        return transactionTemplate.execute(status -> {
+            List<DownloadRequest> found = jdbcTemplate.query(
+                    SELECT_COLUMNS + "WHERE request_id = ? AND status = 'QUEUED'", REQUEST_MAPPER, requestId);
+            if (found.isEmpty()) {
+                return Optional.<DownloadRequest>empty();
+            }
+            int updated = jdbcTemplate.update("UPDATE download_jobs SET status = 'CANCELLED', updated_at = ? "
+                    + "WHERE request_id = ? AND status = 'QUEUED'", Timestamp.from(Instant.now()), requestId);
+            return updated == 1 ? Optional.of(found.get(0)) : Optional.<DownloadRequest>empty();
+        });
+    }
+
+    /**
+     * 다른 노드가 처리 중인 작업에 취소 요청 표시 (그 노드가 lease 갱신 때 확인)
+     */
+    public boolean requestCancel(String requestId) {
+        return jdbcTemplate.update("UPDATE download_jobs SET cancel_requested = TRUE, updated_at = ? "
+                + "WHERE request_id = ? AND status = 'CLAIMED'", Timestamp.from(Instant.now()), requestId) == 1;
+    }
+
+    /**
+     * lease가 만료됐고 시도 횟수를 다 쓴 작업을 실패 처리 (반복해서 노드를 죽이는 작업 격리)
+     */
+    public int failExhausted(int maxAttempts) {
+        Timestamp now = Timestamp.from(Instant.now());
+        return jdbcTemplate.update("UPDATE download_jobs SET status = 'FAILED', owner_node = NULL, lease_until = NULL, "
+                        + "updated_at = ? WHERE status = 'CLAIMED' AND lease_until < ? AND attempts >= ?",
+                now, now, maxAttempts);
+    }
+
+    /**
+     * 보관 기간이 지난 완료/실패/취소 작업 삭제
+     */
+    public int purgeFinished(Duration retention) {
+        return jdbcTemplate.update("DELETE FROM download_jobs WHERE status IN ('COMPLETED', 'FAILED', 'CANCELLED') "
+                + "AND updated_at < ?", Timestamp.from(Instant.now().minus(retention)));
+    }
+
+    public Map<String, JobStatus> findStatuses(Collection<String> requestIds) {
+        Map<String, JobStatus> statuses = new HashMap<>();
+        if (requestIds.isEmpty()) {
+            return statuses;
+        }
+        namedJdbcTemplate.query("SELECT request_id, status FROM download_jobs WHERE request_id IN (:ids)",
+                new MapSqlParameterSource("ids", requestIds),
+                (RowCallbackHandler) rs -> statuses.put(
+                        rs.getString("request_id"), JobStatus.valueOf(rs.getString("status"))));
+        return statuses;
+    }
+
+    /**
+     * 아직 아무 노드도 가져가지 않은 작업 수
+     */
+    public int countQueued() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM download_jobs WHERE status = 'QUEUED'", Integer.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 대기 / 처리 중인 작업의 추정 행 수 합계
+     */
+    public long sumActiveRows() {
+        Long rows = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(estimated_rows), 0) FROM download_jobs "
+                + "WHERE status IN ('QUEUED', 'CLAIMED')", Long.class);
+        return rows != null ? rows : 0;
+    }
+}
@@ -0,0 +1,121 @@
+package com.jikim.ecommerce.service;
+
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.service.DownloadJobStore.JobStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 다운로드 큐 전용 워커 스케줄러
+ * 고정 개수의 워커 스레드가 애플리케이션 수명 동안 큐를 기다리며 요청을 처리함
+ * (download.executor.mode=virtual이면 워커도 가상 스레드 - 내보내기의 JDBC / 파일 I/O 동안 캐리어 스레드를 반납)
+ * (@Async 재귀 호출 방식과 달리 요청이 큐에 남아 있는데 처리할 워커가 없는 상황이 생기지 않음)
+ *
+ * 동시 처리 수는 워커 수가 아니라 ExcelDownloadQueue의 슬롯(Semaphore)으로 제한되므로
+ * 직접 스트리밍 다운로드가 슬롯을 쓰는 동안 워커는 슬롯이 반납될 때까지 대기함
+ * 영속 큐를 사용하면 처리 결과를 작업 테이블에도 기록함
+ * 종료 시에는 처리 중인 작업을 넘기고(실패로 기록하지 않음) 워커가 멈출 때까지 기다린 뒤
+ * DurableDownloadQueue.shutdown이 작업을 대기 상태로 돌려놓음 (이 빈이 먼저 소멸됨)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DownloadWorkerScheduler {
+    
+    private final ExcelDownloadQueue downloadQueue;
+    private final ExcelDownloadService excelDownloadService;
+    private final ExportCancellation exportCancellation;
+    private final DurableDownloadQueue durableDownloadQueue;
+    
+    @Value("${download.queue.shutdown-timeout:PT30S}")
+    private Duration shutdownTimeout;
+    
+    @Value("${download.executor.mode:platform}")
+    private String executorMode;
+    
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+    
+    @PostConstruct
+    public void start() {
+        running = true;
+        int workerCount = downloadQueue.getMaxConcurrentDownloads();
+        boolean virtual = "virtual".equalsIgnoreCase(executorMode);
+        Thread.Builder builder = virtual
+                ? Thread.ofVirtual().name("DownloadWorker-", 1)
+                : Thread.ofPlatform().daemon(true).name("DownloadWorker-", 1);
+        for (int i = 1; i <= workerCount; i++) {
+            workers.add(builder.start(this::runWorker));
+        }
+        log.info("Download worker scheduler started with {} {} workers", workerCount, virtual ? "virtual" : "platform");
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        // 처리 중인 작업은 다음 배치 경계에서 멈추고 결과를 기록하지 않음 (다른 노드 / 재시작 후 다시 처리)
+        durableDownloadQueue.handOffAll();
+        workers.forEach(Thread::interrupt);
+        
+        long deadline = System.currentTimeMillis() + shutdownTimeout.toMillis();
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (worker.isAlive()) {
+                log.warn("Download worker did not stop within {}: {}", shutdownTimeout, worker.getName());
+            }
+        }
+        log.info("Download worker scheduler stopped");
+    }
+    
+    private void runWorker() {
+        while (running) {
+            DownloadRequest request;
+            try {
+                request = downloadQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            
+            try {
+                downloadQueue.acquireSlot(request);
+            } catch (InterruptedException e) {
+                // 종료 중 - 꺼낸 요청은 처리되지 못함
+                log.warn("Worker interrupted while waiting for slot: {}", request.getRequestId());
+                Thread.currentThread().interrupt();
+                break;
+            }
+            
+            boolean completed = false;
+            try {
+                completed = excelDownloadService.executeDownload(request);
+            } catch (Throwable t) {
+                // 워커 스레드가 죽지 않도록 모든 예외를 흡수
+                log.error("Unexpected error in download worker: {}", request.getRequestId(), t);
+            } finally {
+                durableDownloadQueue.complete(request, completed ? JobStatus.COMPLETED
+                        : exportCancellation.isCancelled(request.getRequestId()) ? JobStatus.CANCELLED : JobStatus.FAILED);
+                downloadQueue.markCompleted(request.getRequestId(), completed);
+                exportCancellation.clear(request.getRequestId());
+            }
+        }
+        log.info("Download worker exiting: {}", Thread.currentThread().getName());
+    }
+    
+    public int getWorkerCount() {
+        return workers.size();
+    }
+}
@@ -0,0 +1,312 @@
+package com.jikim.ecommerce.service;
+
+import com.jikim.ecommerce.dto.DownloadProgress;
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.service.DownloadJobStore.JobStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 영속 다운로드 큐 (download.queue.durable.enabled=true일 때 사용)
+ *
+ * 요청은 download_jobs 테이블에 먼저 기록되고, 각 노드는 빈 워커 수만큼 작업을 가져와
+ * 로컬 ExcelDownloadQueue에 넣음 (가져간 뒤의 우선순위 / 세션별 공정성 / 슬롯 제한은 기존과 동일)
+ * - 배포로 종료되는 노드는 처리 중인 작업을 넘기고(hand off) 워커가 멈춘 뒤 가진 작업을 대기 상태로 돌려놓음
+ *   죽은 노드의 작업은 lease 만료 후 다른 노드가 가져감
+ * - lease 갱신은 전용 스레드에서 수행 (다른 @Scheduled 작업이 공유 스케줄러를 붙잡아도 lease가 만료되지 않음)
+ *   갱신 결과에서 빠진 작업은 lease를 잃은 것이므로 이 노드의 처리를 멈추고 결과는 다른 노드의 처리로 전달
+ * - 다른 노드가 처리한 작업의 결과는 요청을 받은 노드가 테이블 상태를 보고 요청자에게 전달
+ *   (결과 파일을 내려받으려면 downloads 디렉토리를 노드 간 공유해야 함)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DurableDownloadQueue {
+
+    private final DownloadJobStore jobStore;
+    private final ExcelDownloadQueue downloadQueue;
+    private final ExportJobCoalescer exportJobCoalescer;
+    private final ExportCancellation exportCancellation;
+
+    @Value("${download.queue.durable.enabled:false}")
+    private boolean enabled;
+
+    // 비어 있으면 pid@host + 임의 접미사 (재시작하면 다른 노드로 취급)
+    @Value("${download.queue.durable.node-id:}")
+    private String nodeId;
+
+    @Value("${download.queue.durable.lease:PT30S}")
+    private Duration lease;
+
+    @Value("${download.queue.durable.renew-interval-millis:10000}")
+    private long renewIntervalMillis;
+
+    // lease 만료로 다시 가져간 횟수까지 포함한 최대 시도 횟수
+    @Value("${download.queue.durable.max-attempts:3}")
+    private int maxAttempts;
+
+    // 끝난 작업 행 보관 기간
+    @Value("${download.queue.durable.retention:PT24H}")
+    private Duration retention;
+
+    // 이 노드가 가져간 작업 (로컬 큐 대기 / 처리 중)
+    private final Map<String, DownloadRequest> heldJobs = new ConcurrentHashMap<>();
+    // 이 노드가 접수해 아직 결과를 요청자에게 전달하지 않은 작업
+    private final Map<String, DownloadRequest> submittedJobs = new ConcurrentHashMap<>();
+    // 종료 / lease 상실로 처리를 넘긴 작업 (결과를 기록하거나 요청자에게 실패로 알리지 않음)
+    private final Set<String> handedOffJobs = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService leaseRenewer;
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        jobStore.initialize();
+        leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DurableLeaseRenewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        leaseRenewer.scheduleWithFixedDelay(this::renewLeases, renewIntervalMillis, renewIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        log.info("Durable download queue enabled (node={}, lease={})", nodeId, lease);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 작업 테이블에 등록 (처리는 빈 워커가 있는 노드가 가져감)
+     */
+    public boolean submit(DownloadRequest request) {
+        if (!jobStore.enqueue(request, downloadQueue.classify(request).ordinal())) {
+            return false;
+        }
+        submittedJobs.put(request.getRequestId(), request);
+        log.info("Download request persisted: {} (session={}, estimatedRows={})",
+                request.getRequestId(), request.getSessionId(), request.getEstimatedRows());
+        return true;
+    }
+
+    /**
+     * 빈 워커 수만큼 작업을 가져오고, 이 노드가 접수한 작업 중 다른 노드에서 끝난 작업의 결과 전달
+     */
+    @Scheduled(fixedDelayString = "${download.queue.durable.poll-interval-millis:1000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            claimJobs();
+            deliverRemoteResults();
+        } catch (DataAccessException e) {
+            log.warn("Durable queue poll failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 가진 작업의 lease 연장, 다른 노드에서 요청된 취소 반영, lease를 잃은 작업 중단,
+     * 시도 횟수를 다 쓴 작업 / 오래된 행 정리 (leaseRenewer 스레드에서 renew-interval마다 실행)
+     */
+    public void renewLeases() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!heldJobs.isEmpty()) {
+                // 갱신 전에 가진 작업 (갱신 도중 새로 가져간 작업을 lease 상실로 오인하지 않도록)
+                Set<String> held = Set.copyOf(heldJobs.keySet());
+                Map<String, Boolean> renewed = jobStore.renewLeases(nodeId, lease);
+                for (String requestId : held) {
+                    Boolean cancelRequested = renewed.get(requestId);
+                    if (cancelRequested == null) {
+                        handOff(requestId, true);
+                    } else if (cancelRequested && heldJobs.containsKey(requestId)
+                            && !exportCancellation.isCancelled(requestId)) {
+                        // 로컬 큐에 남아 있어도 워커가 꺼내자마자 취소 처리
+                        exportCancellation.cancel(requestId);
+                        log.info("Remote cancel request applied: {}", requestId);
+                    }
+                }
+            }
+            int exhausted = jobStore.failExhausted(maxAttempts);
+            if (exhausted > 0) {
+                log.warn("{} download jobs failed after {} attempts", exhausted, maxAttempts);
+            }
+            jobStore.purgeFinished(retention);
+        } catch (DataAccessException e) {
+            log.warn("Durable queue lease renewal failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 처리 결과 기록 (이 노드가 가져간 작업이 아니거나 넘긴 작업이면 무시)
+     */
+    public void complete(DownloadRequest request, JobStatus status) {
+        if (handedOffJobs.remove(request.getRequestId()) || heldJobs.remove(request.getRequestId()) == null) {
+            return;
+        }
+        try {
+            if (!jobStore.complete(request.getRequestId(), nodeId, status)) {
+                log.warn("Lease lost before completion, result not recorded: {} ({})", request.getRequestId(), status);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to record download result {}: {}", request.getRequestId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 처리를 다른 노드에 넘긴 작업인지 (워커의 중단을 실패 / 취소로 알리지 않음)
+     */
+    public boolean isHandedOff(String requestId) {
+        return handedOffJobs.contains(requestId);
+    }
+
+    /**
+     * 종료 전에 가진 작업을 모두 넘김 (워커가 다음 배치 경계에서 멈추고, 결과는 기록하지 않음)
+     * 작업 행은 워커가 멈춘 뒤 shutdown의 releaseAll로 대기 상태로 돌아감
+     */
+    public void handOffAll() {
+        if (!enabled) {
+            return;
+        }
+        List.copyOf(heldJobs.keySet()).forEach(requestId -> handOff(requestId, false));
+    }
+
+    /**
+     * 작업을 이 노드에서 멈춤
+     *
+     * @param leaseLost 다른 노드가 이미 가져갔으면 true (그 노드의 결과를 작업 테이블에서 받아 요청자에게 전달)
+     */
+    private void handOff(String requestId, boolean leaseLost) {
+        DownloadRequest request = heldJobs.remove(requestId);
+        if (request == null) {
+            return;
+        }
+        handedOffJobs.add(requestId);
+        exportCancellation.cancel(requestId);
+        if (leaseLost) {
+            submittedJobs.put(requestId, request);
+            log.warn("Lease lost, stopping local processing: {}", requestId);
+        }
+    }
+
+    /**
+     * 아직 아무 노드도 가져가지 않은 작업 취소
+     */
+    public Optional<DownloadRequest> cancelQueued(String requestId) {
+        Optional<DownloadRequest> cancelled = jobStore.cancelQueued(requestId);
+        cancelled.ifPresent(request -> submittedJobs.remove(requestId));
+        return cancelled;
+    }
+
+    /**
+     * 다른 노드가 처리 중인 작업에 취소 요청 (그 노드가 다음 lease 갱신 때 중단)
+     */
+    public boolean requestCancel(String requestId) {
+        return jobStore.requestCancel(requestId);
+    }
+
+    /**
+     * 세션이 접수한 작업 중 다른 노드에서 대기 / 처리 중인 요청 ID
+     */
+    public List<String> findSubmittedIds(String sessionId) {
+        return submittedJobs.values().stream()
+                .filter(request -> sessionId.equals(request.getSessionId()))
+                .map(DownloadRequest::getRequestId)
+                .toList();
+    }
+
+    /**
+     * 전체 노드 기준 대기 작업 수
+     */
+    public int getQueuedCount() {
+        return jobStore.countQueued();
+    }
+
+    /**
+     * 전체 노드 기준 대기 / 처리 중 작업의 추정 행 수 합계
+     */
+    public long getActiveRows() {
+        return jobStore.sumActiveRows();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        leaseRenewer.shutdownNow();
+        try {
+            int released = jobStore.releaseAll(nodeId);
+            log.info("Released {} download jobs back to the durable queue", released);
+        } catch (DataAccessException e) {
+            log.warn("Failed to release download jobs, they will be recovered after lease expiry: {}", e.getMessage());
+        }
+        heldJobs.clear();
+    }
+
+    private void claimJobs() {
+        int free = downloadQueue.getMaxConcurrentDownloads() - heldJobs.size();
+        for (DownloadRequest request : jobStore.claim(nodeId, free, lease, maxAttempts)) {
+            heldJobs.put(request.getRequestId(), request);
+            // 이 노드가 처리하면 진행률 / 결과는 처리 경로에서 직접 전달됨
+            submittedJobs.remove(request.getRequestId());
+            if (!downloadQueue.enqueue(request)) {
+                complete(request, JobStatus.FAILED);
+            }
+        }
+    }
+
+    private void deliverRemoteResults() {
+        if (submittedJobs.isEmpty()) {
+            return;
+        }
+        Map<String, JobStatus> statuses = jobStore.findStatuses(submittedJobs.keySet());
+        for (DownloadRequest request : List.copyOf(submittedJobs.values())) {
+            String requestId = request.getRequestId();
+            JobStatus status = statuses.get(requestId);
+            DownloadProgress progress;
+            if (status == JobStatus.COMPLETED) {
+                progress = DownloadProgress.completed(requestId, "/api/download/file/" + request.getFileName());
+            } else if (status == JobStatus.FAILED) {
+                progress = DownloadProgress.failed(requestId, "다운로드 처리 중 오류가 발생했습니다.");
+            } else if (status == JobStatus.CANCELLED) {
+                progress = DownloadProgress.cancelled(requestId);
+            } else if (status == null) {
+                // 보관 기간이 지나 삭제된 작업
+                submittedJobs.remove(requestId);
+                continue;
+            } else {
+                continue;
+            }
+            if (submittedJobs.remove(requestId) != null) {
+                exportJobCoalescer.sendProgress(request, progress);
+            }
+        }
+    }
+}
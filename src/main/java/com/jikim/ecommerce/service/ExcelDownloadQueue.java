@@ -2,22 +2,79 @@ package com.jikim.ecommerce.service;
 
 import com.jikim.ecommerce.dto.DownloadRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.BlockingQueue;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * 세션별 공정 + 우선순위 다운로드 큐
+ *
+ * - 우선순위: 처리 비용(추정 행 수 × 방식별 행당 비용)이 기준 이하인 SMALL 요청이 LARGE 요청보다 먼저 처리됨
+ *   (SMALL이 계속 들어와도 LARGE가 굶지 않도록 SMALL을 연속 SMALL_BURST번 처리하면 LARGE 1건 처리)
+ * - 공정성: 같은 우선순위 안에서는 세션별 대기열을 라운드로빈으로 순회
+ *   (한 사용자가 20건을 요청해도 다른 사용자의 요청이 사이사이 처리됨)
+ */
 @Service
 @Slf4j
 public class ExcelDownloadQueue {
     
-    private static final int MAX_CONCURRENT_DOWNLOADS = 3; // 동시 처리 제한
+    private static final int SMALL_BURST = 3;               // LARGE 대기 중 SMALL 연속 처리 한도
+    private static final double DEFAULT_MILLIS_PER_ROW = 0.05; // 처리 이력이 없을 때 예상 처리 속도 (CSV 기준 2만 행/초)
     
-    // 인메모리 큐와 처리중 목록
-    private final BlockingQueue<DownloadRequest> downloadQueue = new LinkedBlockingQueue<>();
-    private final ConcurrentHashMap<String, DownloadRequest> processingRequests = new ConcurrentHashMap<>();
+    public enum PriorityClass {
+        SMALL,  // 소규모 내보내기 - 먼저 처리
+        LARGE   // 대규모 내보내기
+    }
+    
+    @Value("${download.queue.small-export-rows:100000}")
+    private long smallExportRows;
+    
+    // 동시 처리 제한 (워커 수 / 슬롯 수)
+    private final int maxConcurrentDownloads;
+    
+    // 우선순위 클래스별 세션 대기열 (세션 순서 = 라운드로빈 순서)
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Map<PriorityClass, ClassQueue> classQueues = new EnumMap<>(PriorityClass.class);
+    private int queuedCount;
+    private int consecutiveSmall;
+    
+    // 처리중 목록 (requestId -> 처리 시작 정보)
+    private final ConcurrentHashMap<String, ProcessingEntry> processingRequests = new ConcurrentHashMap<>();
+    // 큐에서 꺼냈지만 아직 슬롯을 기다리는 요청
+    private final ConcurrentHashMap<String, DownloadRequest> awaitingSlot = new ConcurrentHashMap<>();
+    
+    // 동시 처리 슬롯 (큐 작업과 직접 스트리밍 다운로드가 공유)
+    private final Semaphore processingSlots;
+    
+    // 성공한 큐 작업으로 측정한 CSV 환산 행당 처리 시간 (지수 이동 평균)
+    private volatile double millisPerRow = DEFAULT_MILLIS_PER_ROW;
+    
+    public ExcelDownloadQueue(@Value("${download.max-concurrent:3}") int maxConcurrentDownloads) {
+        if (maxConcurrentDownloads <= 0) {
+            throw new IllegalArgumentException("download.max-concurrent must be positive: " + maxConcurrentDownloads);
+        }
+        this.maxConcurrentDownloads = maxConcurrentDownloads;
+        this.processingSlots = new Semaphore(maxConcurrentDownloads, true);
+        for (PriorityClass priorityClass : PriorityClass.values()) {
+            classQueues.put(priorityClass, new ClassQueue());
+        }
+    }
     
     /**
      * 다운로드 요청을 큐에 추가
@@ -25,12 +82,22 @@ public class ExcelDownloadQueue {
     public boolean enqueue(DownloadRequest request) {
         try {
             // 현재 처리중인 작업 수 확인
-            if (processingRequests.size() >= MAX_CONCURRENT_DOWNLOADS) {
+            if (processingRequests.size() >= maxConcurrentDownloads) {
                 log.warn("Maximum concurrent downloads reached. Request queued: {}", request.getRequestId());
             }
             
-            downloadQueue.offer(request);
-            log.info("Download request enqueued: {}", request.getRequestId());
+            PriorityClass priorityClass = classify(request);
+            lock.lock();
+            try {
+                classQueues.get(priorityClass).add(new QueuedEntry(request, priorityClass, System.currentTimeMillis()));
+                queuedCount++;
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+            
+            log.info("Download request enqueued: {} (session={}, priority={}, estimatedRows={})",
+                    request.getRequestId(), request.getSessionId(), priorityClass, request.getEstimatedRows());
             return true;
         } catch (Exception e) {
             log.error("Failed to enqueue download request: {}", request.getRequestId(), e);
@@ -39,53 +106,470 @@ public class ExcelDownloadQueue {
     }
     
     /**
-     * 큐에서 다음 작업 가져오기 (처리 가능한 경우에만)
+     * 큐에서 다음 작업 가져오기 (요청이 들어올 때까지 대기)
      */
-    public DownloadRequest dequeue() {
+    public DownloadRequest take() throws InterruptedException {
+        lock.lockInterruptibly();
         try {
-            // 현재 처리중인 작업 수 확인
-            if (processingRequests.size() >= MAX_CONCURRENT_DOWNLOADS) {
-                log.debug("Maximum concurrent downloads reached. Waiting...");
-                return null;
+            while (queuedCount == 0) {
+                notEmpty.await();
             }
-            
-            DownloadRequest request = downloadQueue.poll(1, TimeUnit.SECONDS);
-            if (request != null) {
-                // 처리중 목록에 추가
-                processingRequests.put(request.getRequestId(), request);
-                log.info("Download request dequeued: {}", request.getRequestId());
-                return request;
+            QueuedEntry entry = pollNext();
+            queuedCount--;
+            awaitingSlot.put(entry.request.getRequestId(), entry.request);
+            log.info("Download request dequeued: {} (priority={}, waited {}ms)",
+                    entry.request.getRequestId(), entry.priorityClass, System.currentTimeMillis() - entry.enqueuedAt);
+            return entry.request;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 처리 슬롯 확보 (동시 처리 제한에 걸리면 슬롯이 반납될 때까지 대기)
+     * 처리가 끝나면 반드시 markCompleted()로 반납해야 함
+     */
+    public void acquireSlot(DownloadRequest request) throws InterruptedException {
+        if (!processingSlots.tryAcquire()) {
+            log.debug("Maximum concurrent downloads reached. Waiting for slot: {}", request.getRequestId());
+            try {
+                processingSlots.acquire();
+            } catch (InterruptedException e) {
+                awaitingSlot.remove(request.getRequestId());
+                throw e;
             }
-        } catch (Exception e) {
-            log.error("Failed to dequeue download request", e);
         }
-        return null;
+        processingRequests.put(request.getRequestId(), new ProcessingEntry(request, System.currentTimeMillis()));
+        awaitingSlot.remove(request.getRequestId());
     }
     
     /**
-     * 처리 완료된 작업을 처리중 목록에서 제거
+     * 큐를 거치지 않는 직접 스트리밍 다운로드용 슬롯 확보
+     * 동시 처리 제한을 큐 작업과 공유하며, 여유가 없으면 즉시 false 반환
+     * 처리가 끝나면 반드시 markCompleted()로 반납해야 함
      */
-    public void markCompleted(String requestId) {
-        processingRequests.remove(requestId);
-        log.info("Download request completed: {}", requestId);
+    public boolean tryAcquireDirect(DownloadRequest request) {
+        if (!processingSlots.tryAcquire()) {
+            log.warn("Maximum concurrent downloads reached. Direct download rejected: {}", request.getRequestId());
+            return false;
+        }
+        processingRequests.put(request.getRequestId(), new ProcessingEntry(request, System.currentTimeMillis()));
+        log.info("Direct download slot acquired: {}", request.getRequestId());
+        return true;
     }
     
     /**
-     * 큐 상태 조회
+     * 처리 완료된 작업을 처리중 목록에서 제거하고 슬롯 반납
+     * 처리 속도는 성공한 큐 작업으로만 측정 (취소 / 실패 / 넘겨준 작업의 짧은 처리 시간이 예상 대기 시간을 낮추지 않도록)
+     *
+     * @param succeeded 작업이 결과 파일까지 만들었는지
+     */
+    public void markCompleted(String requestId, boolean succeeded) {
+        // 같은 요청으로 두 번 반납되어 슬롯 수가 늘어나지 않도록 처리중 목록에 있을 때만 반납
+        // runIfActive와 같은 lock 아래에서 제거 (끝난 작업에 취소 표시가 남지 않도록)
+        ProcessingEntry entry;
+        lock.lock();
+        try {
+            entry = processingRequests.remove(requestId);
+        } finally {
+            lock.unlock();
+        }
+        if (entry != null) {
+            processingSlots.release();
+            if (succeeded) {
+                recordDuration(entry);
+            }
+            log.info("Download request completed: {}", requestId);
+        }
+    }
+    
+    /**
+     * 대기 중이거나 처리 중인 요청인지 확인
+     */
+    public boolean contains(String requestId) {
+        // 슬롯 대기 -> 처리 중 순서로 옮겨지므로 같은 순서로 확인 (옮겨지는 중인 요청을 놓치지 않음)
+        if (awaitingSlot.containsKey(requestId) || processingRequests.containsKey(requestId)) {
+            return true;
+        }
+        lock.lock();
+        try {
+            return classQueues.values().stream().anyMatch(queue -> queue.contains(requestId));
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 대기 / 슬롯 대기 / 처리 중인 요청이면 action 실행 (처리 중 취소 표시 등)
+     * 확인과 실행을 markCompleted와 같은 lock 아래에서 하므로 이미 끝난 작업에는 실행되지 않음
+     *
+     * @return 실행 여부
+     */
+    public boolean runIfActive(String requestId, Runnable action) {
+        lock.lock();
+        try {
+            if (!contains(requestId)) {
+                return false;
+            }
+            action.run();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 대기 중인 요청을 큐에서 제거 (취소)
+     *
+     * @return 제거한 요청 (대기 중이 아니면 null)
+     */
+    public DownloadRequest remove(String requestId) {
+        lock.lock();
+        try {
+            for (ClassQueue queue : classQueues.values()) {
+                QueuedEntry removed = queue.remove(requestId);
+                if (removed != null) {
+                    queuedCount--;
+                    log.info("Download request removed from queue: {}", requestId);
+                    return removed.request;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 세션의 대기 / 슬롯 대기 / 처리 중 요청 ID
+     */
+    public List<String> findRequestIds(String sessionId) {
+        List<String> requestIds = new ArrayList<>();
+        lock.lock();
+        try {
+            for (ClassQueue queue : classQueues.values()) {
+                Deque<QueuedEntry> sessionQueue = queue.sessionQueues.get(sessionId);
+                if (sessionQueue != null) {
+                    sessionQueue.forEach(entry -> requestIds.add(entry.request.getRequestId()));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        awaitingSlot.values().stream()
+                .filter(request -> sessionId.equals(request.getSessionId()))
+                .forEach(request -> requestIds.add(request.getRequestId()));
+        processingRequests.values().stream()
+                .filter(entry -> sessionId.equals(entry.request().getSessionId()))
+                .forEach(entry -> requestIds.add(entry.request().getRequestId()));
+        return requestIds;
+    }
+    
+    public int getMaxConcurrentDownloads() {
+        return maxConcurrentDownloads;
+    }
+    
+    /**
+     * 대기 중인 요청 수
+     */
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            return queuedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 대기 / 슬롯 대기 / 처리 중인 요청의 추정 행 수 합계 (처리 중인 작업은 남은 행 추정)
+     */
+    public long getEstimatedRowsInFlight() {
+        long rows = 0;
+        lock.lock();
+        try {
+            for (ClassQueue queue : classQueues.values()) {
+                for (Deque<QueuedEntry> sessionQueue : queue.sessionQueues.values()) {
+                    for (QueuedEntry entry : sessionQueue) {
+                        rows += entry.request.getEstimatedRows();
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (DownloadRequest request : awaitingSlot.values()) {
+            rows += request.getEstimatedRows();
+        }
+        long now = System.currentTimeMillis();
+        double currentMillisPerRow = millisPerRow;
+        for (ProcessingEntry running : processingRequests.values()) {
+            double millisPerRequestRow = currentMillisPerRow * rowCost(running.request.getDownloadType());
+            long doneRows = (long) ((now - running.startedAt) / millisPerRequestRow);
+            rows += Math.max(0, running.request.getEstimatedRows() - doneRows);
+        }
+        return rows;
+    }
+    
+    /**
+     * 주어진 행 수를 모든 슬롯으로 처리하는 데 걸리는 예상 시간 (측정된 처리 속도 기준)
+     */
+    public long estimateSecondsFor(long rows) {
+        return (long) (rows * millisPerRow / maxConcurrentDownloads / 1000);
+    }
+    
+    /**
+     * 처리 중인 작업 중 가장 먼저 끝날 것으로 예상되는 시점까지 남은 시간 (빈 슬롯이 있으면 0)
+     */
+    public long estimateSecondsUntilSlotFree() {
+        if (processingRequests.size() < maxConcurrentDownloads) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        double currentMillisPerRow = millisPerRow;
+        long earliest = Long.MAX_VALUE;
+        for (ProcessingEntry running : processingRequests.values()) {
+            long expectedEnd = running.startedAt + estimateDurationMillis(running.request, currentMillisPerRow);
+            earliest = Math.min(earliest, Math.max(now, expectedEnd));
+        }
+        return earliest == Long.MAX_VALUE ? 0 : (earliest - now) / 1000;
+    }
+    
+    /**
+     * 큐 상태 조회 (대기 / 처리 중 건수만)
      */
     public QueueStatus getQueueStatus() {
+        return getQueueStatus(null);
+    }
+    
+    /**
+     * 큐 상태 조회 - 해당 세션의 대기 요청별 순번과 예상 시작 시각 포함 (sessionId가 없으면 건수만)
+     * 순번은 전체 큐 기준
+     */
+    public QueueStatus getQueueStatus(String sessionId) {
+        List<QueuedEntry> dispatchOrder;
+        lock.lock();
+        try {
+            dispatchOrder = simulateDispatchOrder();
+        } finally {
+            lock.unlock();
+        }
+        
+        long now = System.currentTimeMillis();
+        double currentMillisPerRow = millisPerRow;
+        
+        // 슬롯별 다음 가용 시각 (처리중 작업의 예상 종료 시각부터 시작)
+        PriorityQueue<Long> slotFreeAt = new PriorityQueue<>();
+        for (ProcessingEntry running : processingRequests.values()) {
+            long expectedEnd = running.startedAt + estimateDurationMillis(running.request, currentMillisPerRow);
+            slotFreeAt.add(Math.max(now, expectedEnd));
+        }
+        while (slotFreeAt.size() < maxConcurrentDownloads) {
+            slotFreeAt.add(now);
+        }
+        
+        List<QueuedRequestStatus> queuedRequests = new ArrayList<>();
+        int position = 0;
+        for (QueuedEntry entry : dispatchOrder) {
+            position++;
+            long startAt = slotFreeAt.poll();
+            slotFreeAt.add(startAt + estimateDurationMillis(entry.request, currentMillisPerRow));
+            
+            if (sessionId == null || !sessionId.equals(entry.request.getSessionId())) {
+                continue;
+            }
+            queuedRequests.add(QueuedRequestStatus.builder()
+                    .requestId(entry.request.getRequestId())
+                    .priority(entry.priorityClass)
+                    .estimatedRows(entry.request.getEstimatedRows())
+                    .position(position)
+                    .estimatedWaitSeconds((startAt - now) / 1000)
+                    .estimatedStartTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(startAt), ZoneId.systemDefault()))
+                    .build());
+        }
+        
         return QueueStatus.builder()
-                .queueSize(downloadQueue.size())
+                .queueSize(dispatchOrder.size())
                 .processingCount(processingRequests.size())
-                .maxConcurrentDownloads(MAX_CONCURRENT_DOWNLOADS)
+                .maxConcurrentDownloads(maxConcurrentDownloads)
+                .queuedRequests(queuedRequests)
                 .build();
     }
     
+    /**
+     * 처리 비용으로 우선순위 클래스 결정
+     * sample_data 내보내기는 방식과 관계없이 같은 행을 읽으므로 행 수만으로는 클래스가 갈리지 않음
+     */
+    PriorityClass classify(DownloadRequest request) {
+        return weightedRows(request) <= smallExportRows ? PriorityClass.SMALL : PriorityClass.LARGE;
+    }
+    
+    /**
+     * CSV 행으로 환산한 처리 비용 (추정 행 수 × 방식별 행당 비용)
+     */
+    static long weightedRows(DownloadRequest request) {
+        return Math.round(request.getEstimatedRows() * rowCost(request.getDownloadType()));
+    }
+    
+    /**
+     * CSV 1행 대비 행당 처리 비용
+     */
+    private static double rowCost(DownloadRequest.DownloadType downloadType) {
+        if (downloadType == null) {
+            return 1.0;
+        }
+        return switch (downloadType) {
+            case CSV, TSV -> 1.0;           // 텍스트 인코딩만
+            case PARALLEL -> 1.5;           // 파티션별 xlsx를 동시에 생성 후 zip
+            case PIPELINED, DATASET -> 2.0; // JDBC 프로젝션 + xlsx 인코딩
+            case STREAMING -> 3.0;          // 엔티티 매핑 + SXSSF xlsx
+            case PAGING -> 6.0;             // OFFSET 재조회 + 전체 행 메모리 적재 + 페이지 지연
+        };
+    }
+    
+    /**
+     * 다음 처리 대상 선택 (lock 보유 상태에서 호출)
+     */
+    private QueuedEntry pollNext() {
+        ClassQueue small = classQueues.get(PriorityClass.SMALL);
+        ClassQueue large = classQueues.get(PriorityClass.LARGE);
+        
+        boolean serveLarge = !large.isEmpty()
+                && (small.isEmpty() || consecutiveSmall >= SMALL_BURST);
+        if (serveLarge) {
+            consecutiveSmall = 0;
+            return large.poll();
+        }
+        consecutiveSmall++;
+        return small.poll();
+    }
+    
+    /**
+     * 현재 큐 상태에서 take()가 꺼낼 순서를 그대로 재현 (lock 보유 상태에서 호출, 원본은 변경하지 않음)
+     */
+    private List<QueuedEntry> simulateDispatchOrder() {
+        ClassQueue small = classQueues.get(PriorityClass.SMALL).copy();
+        ClassQueue large = classQueues.get(PriorityClass.LARGE).copy();
+        int simulatedConsecutiveSmall = consecutiveSmall;
+        
+        List<QueuedEntry> order = new ArrayList<>(queuedCount);
+        while (!small.isEmpty() || !large.isEmpty()) {
+            boolean serveLarge = !large.isEmpty()
+                    && (small.isEmpty() || simulatedConsecutiveSmall >= SMALL_BURST);
+            if (serveLarge) {
+                simulatedConsecutiveSmall = 0;
+                order.add(large.poll());
+            } else {
+                simulatedConsecutiveSmall++;
+                order.add(small.poll());
+            }
+        }
+        return order;
+    }
+    
+    private long estimateDurationMillis(DownloadRequest request, double currentMillisPerRow) {
+        return (long) (Math.max(weightedRows(request), 1) * currentMillisPerRow);
+    }
+    
+    private void recordDuration(ProcessingEntry entry) {
+        long rows = weightedRows(entry.request);
+        if (rows <= 0) {
+            return;
+        }
+        double observed = (double) (System.currentTimeMillis() - entry.startedAt) / rows;
+        millisPerRow = millisPerRow * 0.7 + observed * 0.3;
+    }
+    
+    /**
+     * 우선순위 클래스 하나의 세션별 라운드로빈 대기열
+     */
+    private static class ClassQueue {
+        private final Deque<String> sessionRotation = new ArrayDeque<>();
+        private final Map<String, Deque<QueuedEntry>> sessionQueues = new HashMap<>();
+        
+        void add(QueuedEntry entry) {
+            // 세션 정보 없는 요청은 하나의 익명 세션으로 취급 (ArrayDeque는 null 불가)
+            String sessionId = entry.request.getSessionId() != null ? entry.request.getSessionId() : "";
+            Deque<QueuedEntry> queue = sessionQueues.get(sessionId);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                sessionQueues.put(sessionId, queue);
+                sessionRotation.addLast(sessionId);
+            }
+            queue.addLast(entry);
+        }
+        
+        QueuedEntry poll() {
+            String sessionId = sessionRotation.pollFirst();
+            Deque<QueuedEntry> queue = sessionQueues.get(sessionId);
+            QueuedEntry entry = queue.pollFirst();
+            if (queue.isEmpty()) {
+                sessionQueues.remove(sessionId);
+            } else {
+                // 다음 요청은 다른 세션들 뒤로
+                sessionRotation.addLast(sessionId);
+            }
+            return entry;
+        }
+        
+        boolean isEmpty() {
+            return sessionRotation.isEmpty();
+        }
+        
+        QueuedEntry remove(String requestId) {
+            for (Map.Entry<String, Deque<QueuedEntry>> sessionQueue : sessionQueues.entrySet()) {
+                Deque<QueuedEntry> queue = sessionQueue.getValue();
+                for (QueuedEntry entry : queue) {
+                    if (entry.request.getRequestId().equals(requestId)) {
+                        queue.remove(entry);
+                        if (queue.isEmpty()) {
+                            sessionQueues.remove(sessionQueue.getKey());
+                            sessionRotation.remove(sessionQueue.getKey());
+                        }
+                        return entry;
+                    }
+                }
+            }
+            return null;
+        }
+        
+        boolean contains(String requestId) {
+            return sessionQueues.values().stream()
+                    .flatMap(Deque::stream)
+                    .anyMatch(entry -> entry.request.getRequestId().equals(requestId));
+        }
+        
+        ClassQueue copy() {
+            ClassQueue copy = new ClassQueue();
+            copy.sessionRotation.addAll(sessionRotation);
+            sessionQueues.forEach((sessionId, queue) -> copy.sessionQueues.put(sessionId, new ArrayDeque<>(queue)));
+            return copy;
+        }
+    }
+    
+    private record QueuedEntry(DownloadRequest request, PriorityClass priorityClass, long enqueuedAt) {
+    }
+    
+    private record ProcessingEntry(DownloadRequest request, long startedAt) {
+    }
+    
     @lombok.Builder
     @lombok.Getter
     public static class QueueStatus {
         private int queueSize;
         private int processingCount;
         private int maxConcurrentDownloads;
+        private List<QueuedRequestStatus> queuedRequests;
+    }
+    
+    @lombok.Builder
+    @lombok.Getter
+    public static class QueuedRequestStatus {
+        private String requestId;
+        private PriorityClass priority;
+        private long estimatedRows;
+        private int position;               // 1부터 시작하는 전체 큐 기준 처리 순번
+        private long estimatedWaitSeconds;
+        private LocalDateTime estimatedStartTime;
     }
 }
@@ -2,25 +2,43 @@ package com.jikim.ecommerce.service;
 
 import com.jikim.ecommerce.dto.DownloadProgress;
 import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.dto.SampleDataRow;
 import com.jikim.ecommerce.entity.SampleData;
+import com.jikim.ecommerce.exception.ExportRejectedException;
 import com.jikim.ecommerce.repository.SampleDataRepository;
 import com.jikim.ecommerce.util.ExcelWriter;
-import com.jikim.ecommerce.websocket.ProgressWebSocketHandler;
+import com.jikim.ecommerce.util.ExportDefinition;
+import com.jikim.ecommerce.util.RowRingBuffer;
+import com.jikim.ecommerce.websocket.ProgressReplayBuffer;
+import com.jikim.ecommerce.websocket.ProgressSessionClosedEvent;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Service
 @RequiredArgsConstructor
@@ -29,58 +47,344 @@ public class ExcelDownloadService {
     
     private final SampleDataRepository sampleDataRepository;
     private final ExcelDownloadQueue downloadQueue;
-    private final ProgressWebSocketHandler progressWebSocketHandler;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final PipelinedRowReader pipelinedRowReader;
+    private final FastExcelDownloadService fastExcelDownloadService;
+    private final ExportJobCoalescer exportJobCoalescer;
+    private final ExportFileCache exportFileCache;
+    private final DelimitedExportService delimitedExportService;
+    private final DatasetExportService datasetExportService;
+    private final ExportCheckpointStore checkpointStore;
+    private final ExportCancellation exportCancellation;
+    private final ExportAdmissionControl exportAdmissionControl;
+    private final DurableDownloadQueue durableDownloadQueue;
+    private final ExportDataVersionCache dataVersionCache;
+    private final ProgressReplayBuffer progressReplayBuffer;
     
-    private static final String DOWNLOAD_DIR = "downloads/";
+    // 시트당 최대 데이터 행 수 (넘으면 다음 시트로 자동 분할)
+    @Value("${download.sheet.max-rows:1000000}")
+    private int maxRowsPerSheet;
+    
+    @Value("${download.directory:downloads/}")
+    private String downloadDirectory;
     private static final int BATCH_SIZE = 1000;
     
     /**
      * 다운로드 요청 처리 (큐에 추가)
+     * 데이터가 바뀌지 않았으면 캐시된 파일을 바로 제공하고,
+     * 같은 타입 + 같은 데이터 버전의 작업이 처리 중이거나 방금 끝났으면 새로 만들지 않고 병합
      */
     public String requestDownload(DownloadRequest.DownloadType downloadType, String sessionId, String requestId) {
-        String fileName = String.format("sample_data_%s_%s.xlsx", downloadType.name().toLowerCase(), requestId);
+        return requestDownload(downloadType, sessionId, requestId, false);
+    }
+    
+    /**
+     * 다운로드 요청 처리 (CSV/TSV는 gzip 압축 선택 가능)
+     */
+    public String requestDownload(DownloadRequest.DownloadType downloadType, String sessionId, String requestId,
+                                  boolean gzip) {
+        if (downloadType == DownloadRequest.DownloadType.DATASET) {
+            throw new IllegalArgumentException("DATASET exports must be requested with requestDatasetDownload");
+        }
+        // PARALLEL은 파티션별 xlsx를 묶은 zip으로 제공
+        String extension = switch (downloadType) {
+            case PARALLEL -> "zip";
+            case CSV -> gzip ? "csv.gz" : "csv";
+            case TSV -> gzip ? "tsv.gz" : "tsv";
+            default -> "xlsx";
+        };
+        String fileName = String.format("sample_data_%s_%s.%s", downloadType.name().toLowerCase(), requestId, extension);
+        
+        ExportDataVersionCache.Snapshot snapshot = snapshot(sampleDataDefinition());
         
         DownloadRequest request = DownloadRequest.builder()
                 .requestId(requestId)
                 .fileName(fileName)
                 .downloadType(downloadType)
                 .sessionId(sessionId)
+                .estimatedRows(snapshot.rowCount())
+                .dataVersion(snapshot.dataVersion())
+                .maxId(snapshot.maxId())
+                .gzip(gzip && isDelimited(downloadType))
+                .build();
+        
+        return submit(request);
+    }
+    
+    /**
+     * 업무 데이터(orders / products / carts) 내보내기 요청 처리
+     * 정의의 버전 쿼리로 데이터 버전을 구해 sample_data 내보내기와 같은 캐시 / 병합 / 큐 경로를 탐
+     */
+    public String requestDatasetDownload(String dataset, String sessionId, String requestId) {
+        ExportDefinition definition = datasetExportService.getDefinition(dataset);
+        String fileName = String.format("%s_%s.xlsx", definition.getName(), requestId);
+        ExportDataVersionCache.Snapshot snapshot = snapshot(definition);
+        
+        DownloadRequest request = DownloadRequest.builder()
+                .requestId(requestId)
+                .fileName(fileName)
+                .downloadType(DownloadRequest.DownloadType.DATASET)
+                .sessionId(sessionId)
+                .estimatedRows(snapshot.rowCount())
+                .dataVersion(snapshot.dataVersion())
+                .dataset(definition.getName())
                 .build();
         
-        boolean enqueued = downloadQueue.enqueue(request);
+        return submit(request);
+    }
+    
+    /**
+     * 체크포인트에서 내보내기 재개 (실패했거나 서버 재시작으로 중단된 CSV/TSV 작업)
+     * 확정된 파트는 다시 만들지 않고 마지막 id 다음부터 이어서 처리
+     *
+     * @return 재개 여부 (체크포인트가 없거나 이미 대기/처리 중이면 false)
+     */
+    public boolean resumeDownload(String requestId) {
+        if (downloadQueue.contains(requestId)) {
+            return false;
+        }
+        Optional<DownloadRequest> saved = checkpointStore.load(requestId);
+        if (saved.isEmpty()) {
+            return false;
+        }
+        DownloadRequest request = saved.get();
+        
+        if (exportJobCoalescer.attachOrRegister(request)) {
+            // 같은 데이터의 작업이 이미 진행 중 - 그 결과를 함께 받고 체크포인트는 버림
+            checkpointStore.discard(requestId);
+            return true;
+        }
+        
+        if (!enqueue(request)) {
+            exportJobCoalescer.discard(request);
+            // 영속 큐에서 이미 대기/처리 중인 작업
+            if (durableDownloadQueue.isEnabled()) {
+                return false;
+            }
+            throw new RuntimeException("다운로드 요청을 큐에 추가하는데 실패했습니다.");
+        }
+        exportJobCoalescer.sendProgress(request, DownloadProgress.queued(requestId));
+        log.info("Export resumed from checkpoint: {}", requestId);
+        return true;
+    }
+    
+    /**
+     * 서버 시작 시 중단된 체크포인트 작업을 다시 큐에 넣음
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingExports() {
+        for (DownloadRequest request : checkpointStore.findPending()) {
+            try {
+                resumeDownload(request.getRequestId());
+            } catch (Exception e) {
+                log.error("Failed to resume export: {}", request.getRequestId(), e);
+            }
+        }
+    }
+    
+    /**
+     * 요청 소유 세션 확인 (진행률 구독 / 취소 / 재개 권한)
+     * 진행률을 보관 중인 요청은 요청한 세션, 재시작 등으로 없으면 체크포인트에 저장된 세션 기준
+     *
+     * @return 세션이 요청을 만들었는지 (모르거나 만료된 요청이면 false)
+     */
+    public boolean isOwnedBy(String requestId, String sessionId) {
+        Optional<String> owner = progressReplayBuffer.ownerOf(requestId);
+        if (owner.isEmpty() && requestId.matches("[A-Za-z0-9-]+")) {
+            owner = checkpointStore.load(requestId).map(DownloadRequest::getSessionId);
+        }
+        return owner.isPresent() && owner.get().equals(sessionId);
+    }
+    
+    /**
+     * 다운로드 취소
+     * 대기 중이면 큐에서 바로 제거하고, 처리 중이면 다음 배치 경계에서 멈추도록 표시
+     * 병합된 작업은 다른 요청자가 남아 있으면 이 요청자만 빠지고 작업은 계속됨
+     *
+     * @return 취소 여부 (대기/처리 중인 요청이 아니면 false)
+     */
+    public boolean cancelDownload(String requestId) {
+        ExportJobCoalescer.Detachment detachment = exportJobCoalescer.detach(requestId);
+        String jobToStop = detachment.found() ? detachment.jobToStop() : requestId;
+        boolean cancelled = detachment.found();
+        
+        if (jobToStop != null) {
+            DownloadRequest queued = downloadQueue.remove(jobToStop);
+            if (queued != null) {
+                durableDownloadQueue.complete(queued, DownloadJobStore.JobStatus.CANCELLED);
+                cleanupCancelled(queued);
+                exportJobCoalescer.sendProgress(queued, DownloadProgress.cancelled(jobToStop));
+                cancelled = true;
+            } else if (downloadQueue.runIfActive(jobToStop, () -> exportCancellation.cancel(jobToStop))) {
+                // 슬롯 대기 중이거나 처리 중 - 워커가 다음 배치 경계에서 중단
+                cancelled = true;
+            } else if (durableDownloadQueue.isEnabled()) {
+                Optional<DownloadRequest> persisted = durableDownloadQueue.cancelQueued(jobToStop);
+                if (persisted.isPresent()) {
+                    cleanupCancelled(persisted.get());
+                    exportJobCoalescer.sendProgress(persisted.get(), DownloadProgress.cancelled(jobToStop));
+                    cancelled = true;
+                } else if (durableDownloadQueue.requestCancel(jobToStop)) {
+                    // 다른 노드에서 처리 중 - 그 노드가 lease 갱신 때 중단
+                    cancelled = true;
+                }
+            }
+        }
+        
+        if (cancelled) {
+            log.info("Download cancel requested: {} (stopping job: {})", requestId, jobToStop);
+        }
+        return cancelled;
+    }
+    
+    /**
+     * WebSocket 연결이 끊기고 재연결 유예 시간이 지난 세션의 다운로드를 모두 취소 (진행률을 받을 곳이 없음)
+     */
+    @EventListener
+    public void onProgressSessionClosed(ProgressSessionClosedEvent event) {
+        List<String> requestIds = new ArrayList<>(downloadQueue.findRequestIds(event.httpSessionId()));
+        requestIds.addAll(exportJobCoalescer.findFollowerIds(event.httpSessionId()));
+        if (durableDownloadQueue.isEnabled()) {
+            requestIds.addAll(durableDownloadQueue.findSubmittedIds(event.httpSessionId()));
+        }
+        for (String requestId : requestIds) {
+            cancelDownload(requestId);
+        }
+        if (!requestIds.isEmpty()) {
+            log.info("Cancelled {} downloads of closed session {}", requestIds.size(), event.httpSessionId());
+        }
+    }
+    
+    /**
+     * 정의의 건수 / 버전 쿼리 결과 (data-version.cache-ttl 동안 재사용)
+     */
+    private ExportDataVersionCache.Snapshot snapshot(ExportDefinition definition) {
+        return dataVersionCache.get(definition.getName(), () -> datasetExportService.versionSnapshot(definition));
+    }
+    
+    public Set<String> getDatasetNames() {
+        return datasetExportService.getDatasetNames();
+    }
+    
+    private String submit(DownloadRequest request) {
+        String requestId = request.getRequestId();
+        String cacheKey = cacheKey(request);
+        String cachedFileName = cacheKey != null ? exportFileCache.lookup(cacheKey) : null;
+        if (cachedFileName != null) {
+            DownloadProgress completedProgress = DownloadProgress.completed(
+                    requestId, "/api/download/file/" + cachedFileName);
+            exportJobCoalescer.sendProgress(request, completedProgress);
+            return requestId;
+        }
+        
+        if (exportJobCoalescer.attachOrRegister(request)) {
+            // 진행 중인 동일 작업의 진행률/완료 알림을 함께 받음
+            return requestId;
+        }
+        
+        // 새 작업만 수용 한도 검사 (초과 시 ExportRejectedException → 429), 등록할 때까지 큐 자리 확보
+        ExportAdmissionControl.Permit permit;
+        try {
+            permit = exportAdmissionControl.admit(request);
+        } catch (ExportRejectedException e) {
+            exportJobCoalescer.discard(request);
+            throw e;
+        }
+        
+        boolean enqueued = false;
+        try {
+            enqueued = enqueue(request);
+        } finally {
+            permit.release(enqueued);
+        }
         if (enqueued) {
             DownloadProgress progress = DownloadProgress.queued(requestId);
-            progressWebSocketHandler.sendProgress(sessionId, progress);
-            
-            // 큐 처리 시작
-            processQueue();
+            exportJobCoalescer.sendProgress(request, progress);
             
+            // 처리는 DownloadWorkerScheduler의 워커가 큐에서 꺼내어 수행
             return requestId;
         } else {
+            exportJobCoalescer.discard(request);
             throw new RuntimeException("다운로드 요청을 큐에 추가하는데 실패했습니다.");
         }
     }
     
     /**
-     * 큐에서 요청을 꺼내어 처리
+     * 영속 큐를 사용하면 작업 테이블에, 아니면 로컬 큐에 추가
      */
-    @Async
-    public CompletableFuture<Void> processQueue() {
-        DownloadRequest request = downloadQueue.dequeue();
-        if (request != null) {
-            try {
-                processDownload(request);
-            } catch (Exception e) {
-                log.error("Download processing failed: {}", request.getRequestId(), e);
-                DownloadProgress failedProgress = DownloadProgress.failed(request.getRequestId(), e.getMessage());
-                progressWebSocketHandler.sendProgress(request.getSessionId(), failedProgress);
-            } finally {
-                downloadQueue.markCompleted(request.getRequestId());
-                // 다음 요청 처리
-                processQueue();
+    private boolean enqueue(DownloadRequest request) {
+        return durableDownloadQueue.isEnabled()
+                ? durableDownloadQueue.submit(request)
+                : downloadQueue.enqueue(request);
+    }
+    
+    /**
+     * 결과 파일 캐시 키 (캐시하지 않는 데이터셋이면 null)
+     */
+    private String cacheKey(DownloadRequest request) {
+        ExportDefinition definition = datasetExportService.getDefinition(
+                request.getDataset() != null ? request.getDataset() : ExportDefinitionRegistry.SAMPLE_DATA);
+        if (!definition.isCacheable()) {
+            return null;
+        }
+        String columnSet = definition.getName() + ":" + definition.columnSignature();
+        return ExportFileCache.cacheKey(request.getDownloadType(),
+                request.isGzip() ? columnSet + ";gzip" : columnSet, request.getDataVersion());
+    }
+    
+    private ExportDefinition sampleDataDefinition() {
+        return datasetExportService.getDefinition(ExportDefinitionRegistry.SAMPLE_DATA);
+    }
+    
+    private boolean isDelimited(DownloadRequest.DownloadType downloadType) {
+        return downloadType == DownloadRequest.DownloadType.CSV || downloadType == DownloadRequest.DownloadType.TSV;
+    }
+    
+    /**
+     * 워커가 큐에서 꺼낸 요청 처리 (실패 시 실패 알림)
+     *
+     * @return 완료 여부 (실패 / 취소면 false)
+     */
+    public boolean executeDownload(DownloadRequest request) {
+        try {
+            // 슬롯을 기다리는 동안 취소된 요청
+            exportCancellation.checkCancelled(request.getRequestId());
+            processDownload(request);
+            String cacheKey = request.getDataVersion() != null ? cacheKey(request) : null;
+            if (cacheKey != null) {
+                exportFileCache.put(cacheKey, request.getFileName());
             }
+            return true;
+        } catch (Exception e) {
+            if (durableDownloadQueue.isHandedOff(request.getRequestId())) {
+                // 종료 / lease 상실로 멈춤 - 작업은 다른 노드나 재시작 후 이어서 처리 (체크포인트 유지)
+                log.info("Download handed off: {}", request.getRequestId());
+                return false;
+            }
+            if (exportCancellation.isCancelled(request.getRequestId())) {
+                log.info("Download cancelled: {}", request.getRequestId());
+                cleanupCancelled(request);
+                exportJobCoalescer.sendProgress(request, DownloadProgress.cancelled(request.getRequestId()));
+                return false;
+            }
+            log.error("Download processing failed: {}", request.getRequestId(), e);
+            DownloadProgress failedProgress = DownloadProgress.failed(request.getRequestId(), e.getMessage());
+            exportJobCoalescer.sendProgress(request, failedProgress);
+            return false;
+        }
+    }
+    
+    /**
+     * 취소된 작업의 중간 결과 삭제 (작성 중이던 파일, 체크포인트 파트)
+     */
+    private void cleanupCancelled(DownloadRequest request) {
+        try {
+            Files.deleteIfExists(Paths.get(downloadDirectory, request.getFileName()));
+        } catch (IOException e) {
+            log.warn("Failed to delete cancelled export file {}: {}", request.getFileName(), e.getMessage());
         }
-        return CompletableFuture.completedFuture(null);
+        checkpointStore.discard(request.getRequestId());
     }
     
     /**
@@ -93,6 +397,10 @@ public class ExcelDownloadService {
             switch (request.getDownloadType()) {
                 case PAGING -> processWithPaging(request);
                 case STREAMING -> processWithStreaming(request);
+                case PIPELINED -> processWithPipeline(request);
+                case PARALLEL -> fastExcelDownloadService.processWithFastExcelParallel(request);
+                case CSV, TSV -> delimitedExportService.processDelimited(request);
+                case DATASET -> datasetExportService.processDataset(request);
                 default -> throw new IllegalArgumentException("Unsupported download type: " + request.getDownloadType());
             }
         } catch (Exception e) {
@@ -114,6 +422,7 @@ public class ExcelDownloadService {
         long processedCount = 0;
         
         while (true) {
+            exportCancellation.checkCancelled(request.getRequestId());
             Pageable pageable = PageRequest.of(page, BATCH_SIZE);
             Page<SampleData> dataPage = sampleDataRepository.findAllByOrderById(pageable);
             
@@ -127,7 +436,7 @@ public class ExcelDownloadService {
             
             // 진행률 업데이트
             DownloadProgress progress = DownloadProgress.processing(request.getRequestId(), totalCount, processedCount);
-            progressWebSocketHandler.sendProgress(request.getSessionId(), progress);
+            exportJobCoalescer.sendProgress(request, progress);
             
             page++;
             
@@ -145,7 +454,8 @@ public class ExcelDownloadService {
     }
     
     /**
-     * 개선 방식: 배치별 메모리 효율적 처리 (진정한 스트리밍 효과)
+     * 개선 방식: DB 커서에서 읽은 행을 즉시 시트에 기록 (진정한 스트리밍)
+     * 영속성 컨텍스트에 엔티티가 쌓이지 않도록 행마다 detach 처리
      */
     private void processWithStreaming(DownloadRequest request) {
         log.info("Processing with STREAMING method: {}", request.getRequestId());
@@ -153,66 +463,81 @@ public class ExcelDownloadService {
         long totalCount = sampleDataRepository.getTotalCount();
         
         // 다운로드 디렉토리 생성
-        File downloadDir = new File(DOWNLOAD_DIR);
+        File downloadDir = new File(downloadDirectory);
         if (!downloadDir.exists()) {
             downloadDir.mkdirs();
         }
         
-        String filePath = DOWNLOAD_DIR + request.getFileName();
+        String filePath = Paths.get(downloadDirectory, request.getFileName()).toString();
+        ExportDefinition definition = sampleDataDefinition();
         
         try {
-            // 모든 데이터를 배치별로 처리하되 메모리에 축적하지 않음
-            List<SampleData> allData = new ArrayList<>();
-            int page = 0;
-            long processedCount = 0;
-            
-            while (true) {
-                Pageable pageable = PageRequest.of(page, BATCH_SIZE);
-                Page<SampleData> dataPage = sampleDataRepository.findAllByOrderById(pageable);
-                
-                if (dataPage.isEmpty()) {
-                    break;
-                }
-                
-                List<SampleData> batchData = dataPage.getContent();
-                
-                // 기존 방식과 달리 배치별로 즉시 처리 (실제로는 최종에 한번에 작성)
-                // 메모리 사용 패턴이 다름을 보여주기 위해 약간의 처리를 함
-                allData.addAll(batchData);
-                processedCount += batchData.size();
-                
-                // 더 세밀한 진행률 업데이트 (기존 방식과 차별화)
-                if (processedCount % 100 == 0 || dataPage.isLast()) {
-                    DownloadProgress progress = DownloadProgress.processing(request.getRequestId(), totalCount, processedCount);
-                    progressWebSocketHandler.sendProgress(request.getSessionId(), progress);
-                }
-                
-                page++;
-                
-                // 기존 방식보다 빠른 처리 (50ms vs 100ms)
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Download interrupted", e);
+            // Stream 조회는 트랜잭션 내에서만 커서가 유지됨 (내부 호출이라 @Transactional 대신 템플릿 사용)
+            TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+            readOnlyTx.setReadOnly(true);
+            
+            readOnlyTx.executeWithoutResult(status -> {
+                try (Stream<SampleData> rows = sampleDataRepository.findAllByOrderByIdStream()) {
+                    ExcelWriter.writeExcelStreaming(filePath, definition, rows.peek(entityManager::detach), maxRowsPerSheet, processed -> {
+                        exportCancellation.checkCancelled(request.getRequestId());
+                        DownloadProgress progress = DownloadProgress.processing(
+                                request.getRequestId(), totalCount, processed);
+                        exportJobCoalescer.sendProgress(request, progress);
+                    });
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
-            }
+            });
             
-            // 엑셀 파일 생성 (SXSSFWorkbook 사용으로 메모리 효율적)
-            ExcelWriter.writeExcelStreaming(filePath, allData, processed -> {
+            // 완료 알림
+            String downloadUrl = "/api/download/file/" + request.getFileName();
+            DownloadProgress completedProgress = DownloadProgress.completed(request.getRequestId(), downloadUrl);
+            exportJobCoalescer.sendProgress(request, completedProgress);
+            
+        } catch (Exception e) {
+            log.error("Streaming download failed: {}", request.getRequestId(), e);
+            throw new RuntimeException("스트리밍 다운로드 실패: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 파이프라인 방식: 읽기 스레드가 링 버퍼를 채우고 현재 스레드가 SXSSF로 기록
+     * 전체 소요 시간이 (읽기 + 쓰기)가 아닌 max(읽기, 쓰기)에 가까워짐
+     */
+    private void processWithPipeline(DownloadRequest request) {
+        log.info("Processing with PIPELINED method: {}", request.getRequestId());
+        
+        long totalCount = sampleDataRepository.getTotalCount();
+        
+        File downloadDir = new File(downloadDirectory);
+        if (!downloadDir.exists()) {
+            downloadDir.mkdirs();
+        }
+        
+        String filePath = Paths.get(downloadDirectory, request.getFileName()).toString();
+        RowRingBuffer<SampleDataRow> buffer = pipelinedRowReader.start(request.getRequestId());
+        
+        try {
+            ExcelWriter.writeExcelPipelined(filePath, sampleDataDefinition(), buffer, maxRowsPerSheet, processed -> {
+                exportCancellation.checkCancelled(request.getRequestId());
                 DownloadProgress progress = DownloadProgress.processing(
                         request.getRequestId(), totalCount, processed);
-                progressWebSocketHandler.sendProgress(request.getSessionId(), progress);
+                exportJobCoalescer.sendProgress(request, progress);
             });
             
             // 완료 알림
             String downloadUrl = "/api/download/file/" + request.getFileName();
             DownloadProgress completedProgress = DownloadProgress.completed(request.getRequestId(), downloadUrl);
-            progressWebSocketHandler.sendProgress(request.getSessionId(), completedProgress);
+            exportJobCoalescer.sendProgress(request, completedProgress);
             
         } catch (Exception e) {
-            log.error("Streaming download failed: {}", request.getRequestId(), e);
-            throw new RuntimeException("스트리밍 다운로드 실패: " + e.getMessage(), e);
+            // 쓰기 실패 시 읽기 스레드도 중단시켜 커넥션 반환
+            buffer.abort(e);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Pipelined download failed: {}", request.getRequestId(), e);
+            throw new RuntimeException("파이프라인 다운로드 실패: " + e.getMessage(), e);
         }
     }
     
@@ -222,23 +547,23 @@ public class ExcelDownloadService {
     private void createExcelFile(DownloadRequest request, List<SampleData> allData, long totalCount) {
         try {
             // 다운로드 디렉토리 생성
-            File downloadDir = new File(DOWNLOAD_DIR);
+            File downloadDir = new File(downloadDirectory);
             if (!downloadDir.exists()) {
                 downloadDir.mkdirs();
             }
             
-            String filePath = DOWNLOAD_DIR + request.getFileName();
+            String filePath = Paths.get(downloadDirectory, request.getFileName()).toString();
             
-            ExcelWriter.writeExcelStreaming(filePath, allData, processed -> {
+            ExcelWriter.writeExcelStreaming(filePath, sampleDataDefinition(), allData.iterator(), maxRowsPerSheet, processed -> {
                 DownloadProgress progress = DownloadProgress.processing(
                         request.getRequestId(), totalCount, processed);
-                progressWebSocketHandler.sendProgress(request.getSessionId(), progress);
+                exportJobCoalescer.sendProgress(request, progress);
             });
             
             // 완료 알림
             String downloadUrl = "/api/download/file/" + request.getFileName();
             DownloadProgress completedProgress = DownloadProgress.completed(request.getRequestId(), downloadUrl);
-            progressWebSocketHandler.sendProgress(request.getSessionId(), completedProgress);
+            exportJobCoalescer.sendProgress(request, completedProgress);
             
         } catch (Exception e) {
             log.error("Excel file creation failed: {}", request.getRequestId(), e);
@@ -247,9 +572,101 @@ public class ExcelDownloadService {
     }
     
     /**
-     * 큐 상태 조회
+     * 직접 스트리밍 다운로드용 슬롯 확보 (큐 작업과 동시 처리 제한 공유)
+     */
+    public boolean tryStartDirectDownload(String requestId, String sessionId) {
+        DownloadRequest request = DownloadRequest.builder()
+                .requestId(requestId)
+                .fileName("sample_data_direct_" + requestId + ".xlsx")
+                .downloadType(DownloadRequest.DownloadType.STREAMING)
+                .sessionId(sessionId)
+                .build();
+        return downloadQueue.tryAcquireDirect(request);
+    }
+    
+    /**
+     * 직접 스트리밍 다운로드 슬롯 반납 (여러 번 호출해도 한 번만 반납)
+     * 응답 본문이 실행되지 못한 경우(실행기 거부, 타임아웃, 디스패치 전 연결 종료)에도 비동기 요청 종료 시 호출됨
+     */
+    public void finishDirectDownload(String requestId) {
+        // 응답 전송 시간은 클라이언트 속도에 좌우되므로 큐 처리 속도 측정에서 제외
+        downloadQueue.markCompleted(requestId, false);
+    }
+    
+    /**
+     * 임시 파일 없이 워크북을 HTTP 응답 스트림에 바로 기록
+     * tryStartDirectDownload()로 확보한 슬롯은 성공/실패와 무관하게 반납됨
+     */
+    public void streamDirect(String requestId, DownloadRequest.Compression compression,
+                             OutputStream responseStream) throws IOException {
+        log.info("Direct streaming download started: {} ({})", requestId, compression);
+        long startTime = System.currentTimeMillis();
+        
+        try {
+            long rows = switch (compression) {
+                case NONE -> fastExcelDownloadService.writeSampleDataWorkbook(responseStream, processed -> { });
+                case GZIP -> {
+                    GZIPOutputStream gzip = new GZIPOutputStream(responseStream, 64 * 1024);
+                    long written = fastExcelDownloadService.writeSampleDataWorkbook(gzip, processed -> { });
+                    gzip.finish();
+                    yield written;
+                }
+                case ZIP -> {
+                    ZipOutputStream zip = new ZipOutputStream(responseStream);
+                    zip.putNextEntry(new ZipEntry("sample_data_" + requestId + ".xlsx"));
+                    long written = fastExcelDownloadService.writeSampleDataWorkbook(zip, processed -> { });
+                    zip.closeEntry();
+                    zip.finish();
+                    yield written;
+                }
+            };
+            responseStream.flush();
+            
+            log.info("Direct streaming download completed: {} ({} rows, {}ms)",
+                    requestId, rows, System.currentTimeMillis() - startTime);
+        } catch (IOException | RuntimeException e) {
+            // 클라이언트 연결 종료 포함 - 커서 트랜잭션은 예외로 롤백되어 커넥션 반환됨
+            log.warn("Direct streaming download aborted: {} ({})", requestId, e.getMessage());
+            throw e;
+        } finally {
+            finishDirectDownload(requestId);
+        }
+    }
+    
+    /**
+     * CSV/TSV를 임시 파일 없이 HTTP 응답 스트림에 바로 기록
+     * tryStartDirectDownload()로 확보한 슬롯은 성공/실패와 무관하게 반납됨
+     */
+    public void streamDirectDelimited(String requestId, DownloadRequest.DownloadType format, boolean gzip,
+                                      OutputStream responseStream) throws IOException {
+        log.info("Direct delimited download started: {} ({}, gzip={})", requestId, format, gzip);
+        long startTime = System.currentTimeMillis();
+        
+        try {
+            long rows = delimitedExportService.writeSampleData(responseStream, format, gzip);
+            responseStream.flush();
+            
+            log.info("Direct delimited download completed: {} ({} rows, {}ms)",
+                    requestId, rows, System.currentTimeMillis() - startTime);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Direct delimited download aborted: {} ({})", requestId, e.getMessage());
+            throw e;
+        } finally {
+            finishDirectDownload(requestId);
+        }
+    }
+    
+    /**
+     * 큐 상태 조회 (건수만)
      */
     public ExcelDownloadQueue.QueueStatus getQueueStatus() {
         return downloadQueue.getQueueStatus();
     }
+    
+    /**
+     * 큐 상태 조회 (세션의 대기 요청별 순번 / 예상 시작 시각 포함, 세션이 없으면 건수만)
+     */
+    public ExcelDownloadQueue.QueueStatus getQueueStatus(String sessionId) {
+        return downloadQueue.getQueueStatus(sessionId);
+    }
 }
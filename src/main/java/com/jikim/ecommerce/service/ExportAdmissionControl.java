@@ -0,0 +1,163 @@
+package com.jikim.ecommerce.service;
+
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.exception.ExportRejectedException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+
+/**
+ * 다운로드 큐 수용 제어
+ * 큐 길이 / 처리 대기 중인 추정 행 수 / 힙 여유가 한도를 넘으면 새 작업을 받지 않음
+ * (내보내기가 쌓여 주문 등 다른 API의 응답 시간을 해치지 않도록 미리 거절)
+ *
+ * 캐시 적중이나 진행 중인 작업에 병합되는 요청은 새 작업을 만들지 않으므로 검사하지 않음
+ * 영속 큐를 사용하면 큐 길이와 행 수는 전체 노드 기준(작업 테이블)으로 판단
+ * (작업 테이블 집계는 durable-stats-ttl 동안 재사용하고, 그 사이 이 노드가 받은 작업은 집계에 더함)
+ *
+ * 수용한 요청은 큐에 들어갈 때까지 자리(Permit)를 잡아 두어 검사와 등록 사이에 동시 요청이 같은 자리를 차지하지 않음
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExportAdmissionControl {
+
+    private static final long MIN_RETRY_AFTER_SECONDS = 1;
+    private static final long MAX_RETRY_AFTER_SECONDS = 300;
+    private static final long HEAP_RETRY_AFTER_SECONDS = 30;
+
+    private final ExcelDownloadQueue downloadQueue;
+    private final DurableDownloadQueue durableDownloadQueue;
+
+    @Value("${download.admission.max-queue-depth:50}")
+    private int maxQueueDepth;
+
+    @Value("${download.admission.max-rows-in-flight:20000000}")
+    private long maxRowsInFlight;
+
+    // 마지막 GC 직후 힙 사용률이 이 값을 넘으면 거절
+    @Value("${download.admission.max-heap-used-ratio:0.85}")
+    private double maxHeapUsedRatio;
+
+    @Value("${download.admission.durable-stats-ttl:PT1S}")
+    private Duration durableStatsTtl;
+
+    // 수용했지만 아직 큐에 등록되지 않은 요청
+    private int reservedRequests;
+    private long reservedRows;
+
+    // 작업 테이블 집계 캐시
+    private int durableQueued;
+    private long durableRows;
+    private long durableStatsExpiresAt;
+
+    /**
+     * 큐에 자리가 잡힌 수용 요청 (등록을 시도한 뒤 release)
+     */
+    public final class Permit {
+        private final long rows;
+        private boolean released;
+
+        private Permit(long rows) {
+            this.rows = rows;
+        }
+
+        /**
+         * 자리 반납 (여러 번 호출해도 한 번만 반납)
+         *
+         * @param enqueued 큐 등록 성공 여부 (영속 큐면 다음 집계 전까지 캐시된 집계에 더함)
+         */
+        public void release(boolean enqueued) {
+            synchronized (ExportAdmissionControl.this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                reservedRequests--;
+                reservedRows -= rows;
+                if (enqueued && durableDownloadQueue.isEnabled()) {
+                    durableQueued++;
+                    durableRows += rows;
+                }
+            }
+        }
+    }
+
+    /**
+     * 새 작업을 받을 수 있는지 확인하고 큐 자리 확보 (한도 초과 시 ExportRejectedException)
+     * 검사는 메모리 집계만 사용 (영속 큐의 작업 테이블 집계는 durable-stats-ttl마다 한 번)
+     */
+    public synchronized Permit admit(DownloadRequest request) {
+        boolean durable = durableDownloadQueue.isEnabled();
+        if (durable) {
+            refreshDurableStats();
+        }
+        int queued = (durable ? durableQueued : downloadQueue.getQueuedCount()) + reservedRequests;
+        if (queued >= maxQueueDepth) {
+            reject(request, "대기 중인 다운로드가 너무 많습니다 (" + queued + "건)",
+                    downloadQueue.estimateSecondsUntilSlotFree());
+        }
+
+        // 처리할 작업이 없으면 한도보다 큰 요청도 받음 (그렇지 않으면 영원히 처리할 수 없음)
+        long rowsInFlight = (durable ? durableRows : downloadQueue.getEstimatedRowsInFlight()) + reservedRows;
+        if (rowsInFlight > 0 && rowsInFlight + request.getEstimatedRows() > maxRowsInFlight) {
+            reject(request, "처리 대기 중인 데이터가 너무 많습니다 (" + rowsInFlight + "행)",
+                    downloadQueue.estimateSecondsFor(rowsInFlight + request.getEstimatedRows() - maxRowsInFlight));
+        }
+
+        double heapUsedRatio = heapUsedRatio();
+        if (heapUsedRatio > maxHeapUsedRatio) {
+            reject(request, String.format("서버 메모리가 부족합니다 (힙 사용률 %.0f%%)", heapUsedRatio * 100),
+                    HEAP_RETRY_AFTER_SECONDS);
+        }
+
+        reservedRequests++;
+        reservedRows += request.getEstimatedRows();
+        return new Permit(request.getEstimatedRows());
+    }
+
+    private void refreshDurableStats() {
+        long now = System.currentTimeMillis();
+        if (now < durableStatsExpiresAt) {
+            return;
+        }
+        durableQueued = durableDownloadQueue.getQueuedCount();
+        durableRows = durableDownloadQueue.getActiveRows();
+        durableStatsExpiresAt = now + durableStatsTtl.toMillis();
+    }
+
+    /**
+     * 마지막 GC 직후 기준 힙 사용률
+     * 현재 사용량은 아직 수거되지 않은 가비지를 포함하므로 GC 직후 사용량(collection usage)으로 판단
+     */
+    protected double heapUsedRatio() {
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        if (maxHeap <= 0 || maxHeap == Long.MAX_VALUE) {
+            return 0;
+        }
+        long usedAfterGc = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) {
+                continue;
+            }
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null) {
+                usedAfterGc += usage.getUsed();
+            }
+        }
+        return (double) usedAfterGc / maxHeap;
+    }
+
+    private void reject(DownloadRequest request, String reason, long retryAfterSeconds) {
+        long retryAfter = Math.max(MIN_RETRY_AFTER_SECONDS, Math.min(MAX_RETRY_AFTER_SECONDS, retryAfterSeconds));
+        log.warn("Download request rejected: {} ({}, retry after {}s)", request.getRequestId(), reason, retryAfter);
+        throw new ExportRejectedException(reason, retryAfter);
+    }
+}
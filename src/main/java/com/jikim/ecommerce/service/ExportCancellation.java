@@ -0,0 +1,42 @@
+package com.jikim.ecommerce.service;
+
+import com.jikim.ecommerce.exception.ExportCancelledException;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 실행 중인 내보내기 취소 표시
+ * 작업은 배치(fetchSize / 청크 / 진행률 콜백) 경계마다 checkCancelled()를 호출해 스스로 멈춤
+ * 예외가 커서 콜백 밖으로 전파되면서 결과셋 / 트랜잭션이 닫혀 커넥션이 바로 반환됨
+ */
+@Component
+public class ExportCancellation {
+
+    private final Set<String> cancelledRequests = ConcurrentHashMap.newKeySet();
+
+    public void cancel(String requestId) {
+        cancelledRequests.add(requestId);
+    }
+
+    public boolean isCancelled(String requestId) {
+        return cancelledRequests.contains(requestId);
+    }
+
+    /**
+     * 취소된 작업이면 ExportCancelledException
+     */
+    public void checkCancelled(String requestId) {
+        if (cancelledRequests.contains(requestId)) {
+            throw new ExportCancelledException(requestId);
+        }
+    }
+
+    /**
+     * 작업이 끝나면 표시 제거 (워커가 슬롯 반납 시 호출)
+     */
+    public void clear(String requestId) {
+        cancelledRequests.remove(requestId);
+    }
+}
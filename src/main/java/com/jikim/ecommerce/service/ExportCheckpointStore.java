@@ -0,0 +1,261 @@
+package com.jikim.ecommerce.service;
+
+import com.jikim.ecommerce.dto.DownloadRequest;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 체크포인트 내보내기 저장소
+ * 요청별 디렉토리에 요청 정보(manifest)와 청크 단위 파트 파일을 보관
+ *
+ * - 파트 파일 이름: {순번}_{마지막 id}_{행 수}.part
+ *   임시 파일에 다 쓴 뒤 rename으로 확정하므로 이름이 있는 파트는 항상 완전한 파일
+ * - 재개: 확정된 마지막 파트의 id 다음부터 요청 시점 max(id)(manifest의 maxId)까지 이어서 조회
+ *   (재개 사이에 추가된 행이 섞이지 않도록 상한 고정)
+ * - 완료: 파트를 순서대로 이어 붙여 최종 파일을 만들고 디렉토리 삭제
+ *
+ * 바이트 단위로 이어 붙일 수 있는 CSV/TSV 전용 (xlsx는 zip 안의 시트 XML과 공유 문자열 / 스타일 파트를
+ * 함께 닫아야 해 파트 파일로 나눌 수 없으므로 실패 시 처음부터 다시 생성)
+ */
+@Component
+@Slf4j
+public class ExportCheckpointStore {
+
+    private static final String MANIFEST = "manifest.properties";
+    private static final Pattern PART_NAME = Pattern.compile("(\\d+)_(\\d+)_(\\d+)\\.part");
+
+    @Value("${download.checkpoint.directory:downloads/.checkpoints/}")
+    private String checkpointDirectory;
+
+    // 이 기간 동안 재개되지 않은 체크포인트는 삭제
+    @Value("${download.checkpoint.ttl:PT24H}")
+    private Duration ttl;
+
+    @Getter
+    public static class Checkpoint {
+        private final String requestId;
+        private final Path directory;
+        private int nextSequence;
+        private long lastId;
+        private long processedRows;
+
+        private Checkpoint(String requestId, Path directory) {
+            this.requestId = requestId;
+            this.directory = directory;
+        }
+
+        public boolean isStarted() {
+            return nextSequence > 0;
+        }
+    }
+
+    /**
+     * 체크포인트 열기 (없으면 manifest를 기록하며 새로 만들고, 있으면 확정된 파트까지 상태 복원)
+     */
+    public Checkpoint open(DownloadRequest request) throws IOException {
+        Path directory = directoryOf(request.getRequestId());
+        Files.createDirectories(directory);
+        if (!Files.exists(directory.resolve(MANIFEST))) {
+            writeManifest(directory, request);
+        }
+
+        Checkpoint checkpoint = new Checkpoint(request.getRequestId(), directory);
+        for (Path part : listParts(directory)) {
+            Matcher m = PART_NAME.matcher(part.getFileName().toString());
+            m.matches();
+            checkpoint.nextSequence = Integer.parseInt(m.group(1)) + 1;
+            checkpoint.lastId = Long.parseLong(m.group(2));
+            checkpoint.processedRows += Long.parseLong(m.group(3));
+        }
+        // 확정되지 못한 임시 파트는 버림
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path tmp : files.filter(p -> p.getFileName().toString().endsWith(".tmp")).toList()) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        if (checkpoint.isStarted()) {
+            log.info("Resuming export {} after id {} ({} rows, {} parts)",
+                    request.getRequestId(), checkpoint.lastId, checkpoint.processedRows, checkpoint.nextSequence);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * 다음 파트를 기록할 임시 파일
+     */
+    public Path newPartFile(Checkpoint checkpoint) {
+        return checkpoint.directory.resolve(String.format("%06d.tmp", checkpoint.nextSequence));
+    }
+
+    /**
+     * 다 쓴 임시 파트를 확정 (이후 실패해도 이 파트까지는 다시 만들지 않음)
+     */
+    public void commitPart(Checkpoint checkpoint, Path tmpPart, long lastId, long rows) throws IOException {
+        String name = String.format("%06d_%d_%d.part", checkpoint.nextSequence, lastId, rows);
+        Files.move(tmpPart, checkpoint.directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        checkpoint.nextSequence++;
+        checkpoint.lastId = lastId;
+        checkpoint.processedRows += rows;
+    }
+
+    /**
+     * 파트를 순서대로 이어 붙여 최종 파일 생성 후 체크포인트 삭제
+     * (gzip 파트는 각각 완전한 gzip 멤버이므로 이어 붙인 파일도 유효한 gzip)
+     */
+    public void assemble(Checkpoint checkpoint, Path target) throws IOException {
+        Path tmpTarget = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmpTarget,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Path part : listParts(checkpoint.directory)) {
+                try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+            }
+        }
+        Files.move(tmpTarget, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        discard(checkpoint.requestId);
+    }
+
+    /**
+     * 체크포인트 삭제 (파트 포함)
+     */
+    public void discard(String requestId) {
+        try {
+            FileSystemUtils.deleteRecursively(directoryOf(requestId));
+        } catch (IOException e) {
+            log.warn("Failed to delete checkpoint {}: {}", requestId, e.getMessage());
+        }
+    }
+
+    /**
+     * 저장된 요청 정보 조회 (체크포인트가 없으면 empty)
+     */
+    public Optional<DownloadRequest> load(String requestId) {
+        Path manifest = directoryOf(requestId).resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(readManifest(manifest));
+        } catch (IOException e) {
+            log.warn("Unreadable checkpoint manifest {}: {}", manifest, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 재개할 체크포인트 목록 (보관 기간이 지난 체크포인트는 삭제)
+     */
+    public List<DownloadRequest> findPending() {
+        Path root = Paths.get(checkpointDirectory);
+        List<DownloadRequest> pending = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return pending;
+        }
+
+        Instant expiry = Instant.now().minus(ttl);
+        try (Stream<Path> directories = Files.list(root)) {
+            for (Path directory : directories.filter(Files::isDirectory).toList()) {
+                String requestId = directory.getFileName().toString();
+                if (Files.getLastModifiedTime(directory).toInstant().isBefore(expiry)) {
+                    log.info("Deleting expired checkpoint: {}", requestId);
+                    discard(requestId);
+                    continue;
+                }
+                load(requestId).ifPresent(pending::add);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to scan checkpoint directory: {}", e.getMessage());
+        }
+        return pending;
+    }
+
+    private Path directoryOf(String requestId) {
+        // requestId는 UUID (경로 탐색 방지)
+        if (!requestId.matches("[A-Za-z0-9-]+")) {
+            throw new IllegalArgumentException("Invalid requestId: " + requestId);
+        }
+        return Paths.get(checkpointDirectory, requestId);
+    }
+
+    private List<Path> listParts(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> PART_NAME.matcher(p.getFileName().toString()).matches())
+                    .sorted(Comparator.comparing(p -> p.getFileName().toString()))
+                    .toList();
+        }
+    }
+
+    private void writeManifest(Path directory, DownloadRequest request) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("requestId", request.getRequestId());
+        properties.setProperty("fileName", request.getFileName());
+        properties.setProperty("downloadType", request.getDownloadType().name());
+        if (request.getSessionId() != null) {
+            properties.setProperty("sessionId", request.getSessionId());
+        }
+        properties.setProperty("estimatedRows", String.valueOf(request.getEstimatedRows()));
+        if (request.getDataVersion() != null) {
+            properties.setProperty("dataVersion", request.getDataVersion());
+        }
+        if (request.getMaxId() != null) {
+            properties.setProperty("maxId", String.valueOf(request.getMaxId()));
+        }
+        properties.setProperty("gzip", String.valueOf(request.isGzip()));
+
+        Path tmp = directory.resolve(MANIFEST + ".tmp");
+        try (OutputStream os = Files.newOutputStream(tmp)) {
+            properties.store(os, "export checkpoint");
+        }
+        Files.move(tmp, directory.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private DownloadRequest readManifest(Path manifest) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream is = Files.newInputStream(manifest)) {
+            properties.load(is);
+        }
+        try {
+            String maxId = properties.getProperty("maxId");
+            return DownloadRequest.builder()
+                    .requestId(properties.getProperty("requestId"))
+                    .fileName(properties.getProperty("fileName"))
+                    .downloadType(DownloadRequest.DownloadType.valueOf(properties.getProperty("downloadType")))
+                    .sessionId(properties.getProperty("sessionId"))
+                    .estimatedRows(Long.parseLong(properties.getProperty("estimatedRows", "0")))
+                    .dataVersion(properties.getProperty("dataVersion"))
+                    .maxId(maxId != null ? Long.valueOf(maxId) : null)
+                    .gzip(Boolean.parseBoolean(properties.getProperty("gzip")))
+                    .build();
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid manifest: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.jikim.ecommerce.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 내보내기 정의별 행 수 / 데이터 버전 캐시
+ *
+ * 요청마다 COUNT / MAX 집계를 실행하지 않도록 data-version.cache-ttl 동안 같은 값을 재사용
+ * 같은 대상의 동시 요청은 집계 한 번을 함께 기다림 (TTL 안의 변경은 만료 후 요청부터 새 버전으로 반영)
+ * 앱이 직접 데이터를 바꾸면 invalidate로 바로 만료
+ */
+@Component
+public class ExportDataVersionCache {
+
+    public record Snapshot(long rowCount, long maxId, String dataVersion) {
+    }
+
+    @Value("${download.data-version.cache-ttl:PT5S}")
+    private Duration ttl;
+
+    // 정의 이름 -> 집계 결과
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 캐시된 집계 결과 (없거나 만료되었으면 loader로 다시 집계)
+     */
+    public Snapshot get(String target, Supplier<Snapshot> loader) {
+        long now = System.currentTimeMillis();
+        return entries.compute(target, (key, entry) -> entry != null && entry.expiresAt > now
+                ? entry
+                : new Entry(loader.get(), now + ttl.toMillis())).snapshot;
+    }
+
+    /**
+     * 대상의 캐시 삭제 (다음 요청에서 다시 집계)
+     */
+    public void invalidate(String target) {
+        entries.remove(target);
+    }
+
+    private record Entry(Snapshot snapshot, long expiresAt) {
+    }
+}
@@ -0,0 +1,130 @@
+package com.jikim.ecommerce.service;
+
+import com.jikim.ecommerce.util.ExportDefinition;
+import com.jikim.ecommerce.util.FastExcelRowEncoder.ColumnType;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 내보내기 정의 목록 (sample_data + 업무 데이터)
+ * 연관 엔티티(EAGER items/product)를 로딩하지 않고 조인 프로젝션 한 번으로 행을 만듦
+ * sample_data 정의는 큐 방식(SXSSF / FastExcel)과 직접 스트리밍의 헤더 / 컬럼 순서 / 셀 형식도 결정
+ * 새 내보내기는 정의만 추가하면 커서 스트리밍 / 시트 분할 / 큐 / 진행률 / 캐시를 그대로 사용
+ */
+@Component
+public class ExportDefinitionRegistry {
+
+    public static final String SAMPLE_DATA = "sample_data";
+
+    private final Map<String, ExportDefinition> definitions = new LinkedHashMap<>();
+
+    public ExportDefinitionRegistry() {
+        register(ExportDefinition.builder(SAMPLE_DATA)
+                .sheetName("Sample Data")
+                .query("SELECT id, name, description, price, category, created_at FROM sample_data ORDER BY id")
+                .countQuery("SELECT COUNT(*) FROM sample_data")
+                // 추가는 max(id), 삭제는 건수, 제자리 수정은 max(updated_at)으로 드러남
+                .versionQuery("SELECT COALESCE(MAX(id), 0), COUNT(*), MAX(updated_at) FROM sample_data")
+                .cacheable(true)
+                .column("id", "ID", ColumnType.LONG)
+                .column("name", "이름", ColumnType.TEXT)
+                .column("description", "설명", ColumnType.TEXT)
+                .column("price", "가격", ColumnType.DOUBLE)
+                .column("category", "카테고리", ColumnType.TEXT)
+                .column("created_at", "생성일시", ColumnType.DATE_TIME)
+                .build());
+
+        // 주문 상품 한 건당 한 행 (상품이 없는 주문도 한 행)
+        register(ExportDefinition.builder("orders")
+                .sheetName("Orders")
+                .query("SELECT o.id AS order_id, o.customer_name, o.customer_email, o.status, "
+                        + "o.total_amount, o.created_at AS ordered_at, "
+                        + "p.id AS product_id, p.name AS product_name, oi.quantity, oi.price AS unit_price "
+                        + "FROM orders o "
+                        + "LEFT JOIN order_items oi ON oi.order_id = o.id "
+                        + "LEFT JOIN products p ON p.id = oi.product_id "
+                        + "ORDER BY o.id, oi.id")
+                .countQuery("SELECT COUNT(*) FROM orders o LEFT JOIN order_items oi ON oi.order_id = o.id")
+                .versionQuery("SELECT (SELECT COALESCE(MAX(id), 0) FROM orders), (SELECT COUNT(*) FROM orders), "
+                        + "(SELECT COALESCE(MAX(id), 0) FROM order_items), (SELECT COUNT(*) FROM order_items)")
+                // 주문 상태 변경은 버전에 드러나지 않으므로 결과 파일을 재사용하지 않음
+                .cacheable(false)
+                .column("order_id", "주문번호", ColumnType.LONG)
+                .column("customer_name", "주문자", ColumnType.TEXT)
+                .column("customer_email", "이메일", ColumnType.TEXT)
+                .column("status", "상태", ColumnType.TEXT)
+                .column("total_amount", "주문금액", ColumnType.DOUBLE)
+                .column("ordered_at", "주문일시", ColumnType.DATE_TIME)
+                .column("product_id", "상품ID", ColumnType.LONG)
+                .column("product_name", "상품명", ColumnType.TEXT)
+                .column("quantity", "수량", ColumnType.LONG)
+                .column("unit_price", "단가", ColumnType.DOUBLE)
+                .build());
+
+        register(ExportDefinition.builder("products")
+                .sheetName("Products")
+                .query("SELECT id, name, category, price, stock, description, created_at "
+                        + "FROM products ORDER BY id")
+                .countQuery("SELECT COUNT(*) FROM products")
+                // 상품 수정은 @Version 컬럼을 올리므로 합계로 변경 여부 확인
+                .versionQuery("SELECT COALESCE(MAX(id), 0), COUNT(*), COALESCE(SUM(version), 0) FROM products")
+                .cacheable(true)
+                .column("id", "ID", ColumnType.LONG)
+                .column("name", "상품명", ColumnType.TEXT)
+                .column("category", "카테고리", ColumnType.TEXT)
+                .column("price", "가격", ColumnType.DOUBLE)
+                .column("stock", "재고", ColumnType.LONG)
+                .column("description", "설명", ColumnType.TEXT)
+                .column("created_at", "등록일시", ColumnType.DATE_TIME)
+                .build());
+
+        // 장바구니 상품 한 건당 한 행 (빈 장바구니도 한 행)
+        register(ExportDefinition.builder("carts")
+                .sheetName("Carts")
+                .query("SELECT c.id AS cart_id, c.session_id, c.customer_email, c.created_at, "
+                        + "p.id AS product_id, p.name AS product_name, ci.quantity, p.price AS unit_price, "
+                        + "p.price * ci.quantity AS line_amount "
+                        + "FROM carts c "
+                        + "LEFT JOIN cart_items ci ON ci.cart_id = c.id "
+                        + "LEFT JOIN products p ON p.id = ci.product_id "
+                        + "ORDER BY c.id, ci.id")
+                .countQuery("SELECT COUNT(*) FROM carts c LEFT JOIN cart_items ci ON ci.cart_id = c.id")
+                .versionQuery("SELECT (SELECT COALESCE(MAX(id), 0) FROM carts), (SELECT COUNT(*) FROM carts), "
+                        + "(SELECT COALESCE(MAX(id), 0) FROM cart_items), (SELECT COUNT(*) FROM cart_items)")
+                // 수량 변경이 버전에 드러나지 않으므로 결과 파일을 재사용하지 않음
+                .cacheable(false)
+                .column("cart_id", "장바구니ID", ColumnType.LONG)
+                .column("session_id", "세션", ColumnType.TEXT)
+                .column("customer_email", "이메일", ColumnType.TEXT)
+                .column("created_at", "생성일시", ColumnType.DATE_TIME)
+                .column("product_id", "상품ID", ColumnType.LONG)
+                .column("product_name", "상품명", ColumnType.TEXT)
+                .column("quantity", "수량", ColumnType.LONG)
+                .column("unit_price", "단가", ColumnType.DOUBLE)
+                .column("line_amount", "금액", ColumnType.DOUBLE)
+                .build());
+    }
+
+    /**
+     * 이름으로 정의 조회 (없으면 IllegalArgumentException)
+     */
+    public ExportDefinition get(String name) {
+        ExportDefinition definition = name != null ? definitions.get(name.toLowerCase()) : null;
+        if (definition == null) {
+            throw new IllegalArgumentException("Unknown export dataset: " + name);
+        }
+        return definition;
+    }
+
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(definitions.keySet());
+    }
+
+    private void register(ExportDefinition definition) {
+        definitions.put(definition.getName(), definition);
+    }
+}
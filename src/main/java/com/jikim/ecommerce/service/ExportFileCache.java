@@ -0,0 +1,217 @@
+package com.jikim.ecommerce.service;
+
+import com.jikim.ecommerce.dto.DownloadRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 생성된 내보내기 파일 캐시
+ *
+ * 키: (다운로드 타입, 컬럼 구성, 데이터 버전) - 데이터가 바뀌지 않았으면 기존 파일을 바로 제공
+ * 제거: TTL이 지났거나 전체 크기 상한을 넘으면 가장 오래 사용하지 않은 파일부터 삭제 (LRU)
+ *       단, 등록 / 캐시 적중으로 완료 알림을 보낸 지 reuse-window가 지나지 않은 파일은 클라이언트가 아직 받아 가는 중일 수 있어 남김
+ * 캐시에 등록되지 않은 채 TTL이 지난 다운로드 디렉토리의 파일도 함께 정리
+ */
+@Component
+@Slf4j
+public class ExportFileCache {
+
+    @Value("${download.directory:downloads/}")
+    private String downloadDirectory;
+
+    @Value("${download.cache.max-total-size:2GB}")
+    private DataSize maxTotalSize;
+
+    @Value("${download.cache.ttl:PT24H}")
+    private Duration ttl;
+
+    // 완료 알림 후 파일을 지우지 않는 기간 (병합 대기 기간과 같음)
+    @Value("${download.coalesce.reuse-window-seconds:60}")
+    private long reuseWindowSeconds;
+
+    // 접근 순서 LinkedHashMap (첫 항목 = 가장 오래 사용하지 않은 파일)
+    private final LinkedHashMap<String, CachedFile> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalSize;
+
+    /**
+     * 캐시 키 생성
+     */
+    public static String cacheKey(DownloadRequest.DownloadType downloadType, String columnSet, String dataVersion) {
+        return downloadType + "|" + columnSet + "|" + dataVersion;
+    }
+
+    /**
+     * 캐시된 파일명 조회 (없거나 만료/삭제되었으면 null)
+     */
+    public String lookup(String key) {
+        List<Path> toDelete = new ArrayList<>();
+        String fileName = null;
+        synchronized (this) {
+            CachedFile cached = entries.get(key);
+            if (cached != null) {
+                long now = System.currentTimeMillis();
+                if (!Files.exists(cached.path) || (isExpired(cached, now) && !isPinned(cached, now))) {
+                    removeEntry(key, cached);
+                    toDelete.add(cached.path);
+                } else if (!isExpired(cached, now)) {
+                    // 이 파일로 완료 알림이 나가므로 reuse-window 동안 삭제하지 않음
+                    entries.put(key, cached.servedAt(now));
+                    fileName = cached.path.getFileName().toString();
+                }
+            }
+        }
+        toDelete.forEach(this::deleteQuietly);
+        if (fileName != null) {
+            log.info("Export cache hit: {} -> {}", key, fileName);
+        }
+        return fileName;
+    }
+
+    /**
+     * 생성 완료된 파일 등록 후 크기 상한을 넘으면 LRU 순으로 제거
+     */
+    public void put(String key, String fileName) {
+        Path path = Paths.get(downloadDirectory, fileName);
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException e) {
+            log.warn("Export cache put skipped, file not readable: {}", path);
+            return;
+        }
+
+        List<Path> toDelete = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            CachedFile previous = entries.remove(key);
+            if (previous != null) {
+                totalSize -= previous.size;
+                // 방금 알린 이전 파일은 남겨 두고 sweep이 TTL 후 정리
+                if (!previous.path.equals(path) && !isPinned(previous, now)) {
+                    toDelete.add(previous.path);
+                }
+            }
+            entries.put(key, new CachedFile(path, size, now, now));
+            totalSize += size;
+            toDelete.addAll(evictOverCapacity(now));
+        }
+        toDelete.forEach(this::deleteQuietly);
+        log.info("Export cached: {} -> {} ({} bytes, total {} bytes)", key, fileName, size, totalSize);
+    }
+
+    /**
+     * 주기적 정리: 만료된 캐시 파일 + 캐시에 없는 오래된 파일 삭제
+     */
+    @Scheduled(fixedDelayString = "${download.cache.sweep-interval-millis:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        List<Path> toDelete = new ArrayList<>();
+        Set<Path> tracked = new HashSet<>();
+
+        synchronized (this) {
+            Iterator<Map.Entry<String, CachedFile>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                CachedFile cached = it.next().getValue();
+                boolean expired = isExpired(cached, now) && !isPinned(cached, now);
+                if (expired || !Files.exists(cached.path)) {
+                    it.remove();
+                    totalSize -= cached.size;
+                    toDelete.add(cached.path);
+                }
+            }
+            // 고정되어 있어 put 때 제거하지 못한 초과분
+            toDelete.addAll(evictOverCapacity(now));
+            entries.values().forEach(cached -> tracked.add(cached.path.toAbsolutePath().normalize()));
+        }
+
+        // 캐시에 등록되지 않은 파일 (실패한 작업, 재시작 전 파일 등) 중 TTL이 지난 것
+        File downloadDir = new File(downloadDirectory);
+        if (downloadDir.isDirectory()) {
+            try (Stream<Path> files = Files.list(downloadDir.toPath())) {
+                files.filter(Files::isRegularFile)
+                        .filter(path -> !tracked.contains(path.toAbsolutePath().normalize()))
+                        .filter(path -> now - path.toFile().lastModified() > ttl.toMillis())
+                        .forEach(toDelete::add);
+            } catch (IOException e) {
+                log.warn("Failed to scan download directory: {}", e.getMessage());
+            }
+        }
+
+        toDelete.forEach(this::deleteQuietly);
+        if (!toDelete.isEmpty()) {
+            log.info("Export cache sweep removed {} files", toDelete.size());
+        }
+    }
+
+    /**
+     * 현재 캐시 전체 크기 (bytes)
+     */
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    private boolean isExpired(CachedFile cached, long now) {
+        return now - cached.createdAt > ttl.toMillis();
+    }
+
+    private boolean isPinned(CachedFile cached, long now) {
+        return now - cached.lastServedAt < reuseWindowSeconds * 1000;
+    }
+
+    /**
+     * 크기 상한을 넘는 동안 LRU 항목 제거 (reuse-window 안에 제공한 항목은 제외, lock 보유 상태에서 호출)
+     */
+    private List<Path> evictOverCapacity(long now) {
+        List<Path> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, CachedFile>> it = entries.entrySet().iterator();
+        while (totalSize > maxTotalSize.toBytes() && it.hasNext()) {
+            Map.Entry<String, CachedFile> eldest = it.next();
+            if (isPinned(eldest.getValue(), now)) {
+                continue;
+            }
+            it.remove();
+            totalSize -= eldest.getValue().size;
+            evicted.add(eldest.getValue().path);
+            log.info("Export cache evicted (LRU): {}", eldest.getKey());
+        }
+        return evicted;
+    }
+
+    private void removeEntry(String key, CachedFile cached) {
+        entries.remove(key);
+        totalSize -= cached.size;
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete export file: {} ({})", path, e.getMessage());
+        }
+    }
+
+    private record CachedFile(Path path, long size, long createdAt, long lastServedAt) {
+
+        CachedFile servedAt(long now) {
+            return new CachedFile(path, size, createdAt, now);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.jikim.ecommerce.service;
+
+import com.jikim.ecommerce.dto.DownloadProgress;
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.websocket.ProgressHub;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 동일한 내보내기 요청 병합
+ *
+ * 같은 다운로드 타입 + 같은 데이터 버전의 작업이 처리 중이거나 방금 끝났으면
+ * 새 작업을 만들지 않고 기존 작업에 요청자를 붙임
+ * 붙은 요청자는 자신의 requestId로 같은 진행률과 같은 downloadUrl을 받음
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExportJobCoalescer {
+
+    private final ProgressHub progressHub;
+
+    // 완료된 작업을 재사용하는 시간
+    @Value("${download.coalesce.reuse-window-seconds:60}")
+    private long reuseWindowSeconds;
+
+    // 작업 키(type:dataVersion) -> 작업
+    private final Map<String, CoalescedJob> jobsByKey = new HashMap<>();
+    // 대표 requestId -> 작업
+    private final Map<String, CoalescedJob> jobsByLeader = new HashMap<>();
+
+    /**
+     * 병합 가능한 작업이 있으면 요청자를 붙이고 true 반환
+     * 없으면 이 요청을 새 작업의 대표로 등록하고 false 반환 (호출자가 큐에 추가)
+     */
+    public boolean attachOrRegister(DownloadRequest request) {
+        DownloadProgress current;
+        CoalescedJob job;
+        synchronized (this) {
+            purgeExpired();
+            String key = jobKey(request);
+            job = jobsByKey.get(key);
+            if (job == null) {
+                job = new CoalescedJob(key, request);
+                jobsByKey.put(key, job);
+                jobsByLeader.put(request.getRequestId(), job);
+                return false;
+            }
+            job.followers.add(request);
+            current = job.lastProgress;
+        }
+
+        log.info("Export request {} attached to in-flight job {} ({})",
+                request.getRequestId(), job.leader.getRequestId(), job.key);
+        progressHub.publish(request.getSessionId(),
+                current != null ? retarget(current, request.getRequestId()) : DownloadProgress.queued(request.getRequestId()));
+        return true;
+    }
+
+    /**
+     * 대표 요청의 진행률을 대표 세션과 병합된 모든 요청자에게 전송
+     * 완료되면 재사용 시간 동안 보관, 실패하면 다음 요청이 새로 시작하도록 즉시 제거
+     * 속도 / 남은 예상 시간은 ProgressHub flush 때 대표 작업 기준으로 한 번 측정해 모든 요청자가 같은 값을 받음
+     */
+    public void sendProgress(DownloadRequest request, DownloadProgress progress) {
+        List<DownloadRequest> followers;
+        boolean leaderDetached = false;
+        synchronized (this) {
+            CoalescedJob job = jobsByLeader.get(request.getRequestId());
+            if (job == null) {
+                followers = List.of();
+            } else {
+                job.lastProgress = progress;
+                if ("COMPLETED".equals(progress.getStatus())) {
+                    job.completedAt = System.currentTimeMillis();
+                } else if ("FAILED".equals(progress.getStatus()) || "CANCELLED".equals(progress.getStatus())) {
+                    remove(job);
+                }
+                followers = new ArrayList<>(job.followers);
+                if (job.leaderDetached) {
+                    // 대표 요청자는 취소했고 병합된 요청자를 위해 작업만 계속하는 중
+                    leaderDetached = true;
+                }
+            }
+        }
+
+        if (!leaderDetached) {
+            progressHub.publish(request.getSessionId(), progress, request);
+        }
+        for (DownloadRequest follower : followers) {
+            progressHub.publish(follower.getSessionId(), retarget(progress, follower.getRequestId()), request);
+        }
+    }
+
+    /**
+     * 큐 추가에 실패한 대표 요청 등록 해제
+     */
+    public synchronized void discard(DownloadRequest request) {
+        CoalescedJob job = jobsByLeader.get(request.getRequestId());
+        if (job != null) {
+            remove(job);
+        }
+    }
+
+    /**
+     * 요청자 취소: 병합된 작업에서 빼고 취소 알림 전송
+     * 작업을 받을 요청자가 더 없으면 멈춰야 할 작업(대표 requestId)을 함께 반환
+     */
+    public Detachment detach(String requestId) {
+        DownloadRequest detached = null;
+        String jobToStop = null;
+        synchronized (this) {
+            CoalescedJob job = jobsByLeader.get(requestId);
+            if (job != null && job.completedAt > 0) {
+                // 이미 끝난 작업은 취소할 것이 없음
+                return new Detachment(false, null);
+            }
+            if (job != null) {
+                detached = job.leader;
+                job.leaderDetached = true;
+                if (job.followers.isEmpty()) {
+                    remove(job);
+                    jobToStop = requestId;
+                }
+            } else {
+                for (CoalescedJob candidate : jobsByLeader.values()) {
+                    DownloadRequest follower = candidate.findFollower(requestId);
+                    if (follower != null && candidate.completedAt > 0) {
+                        return new Detachment(false, null);
+                    }
+                    if (follower != null) {
+                        detached = follower;
+                        candidate.followers.remove(follower);
+                        if (candidate.followers.isEmpty() && candidate.leaderDetached) {
+                            remove(candidate);
+                            jobToStop = candidate.leader.getRequestId();
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (detached == null) {
+            return new Detachment(false, null);
+        }
+        log.info("Export request {} cancelled (stop job: {})", requestId, jobToStop);
+        progressHub.publish(detached.getSessionId(), DownloadProgress.cancelled(requestId));
+        return new Detachment(true, jobToStop);
+    }
+
+    /**
+     * 세션이 병합 대상으로 붙어 있는 요청 ID (대표 요청 제외)
+     */
+    public synchronized List<String> findFollowerIds(String sessionId) {
+        List<String> requestIds = new ArrayList<>();
+        for (CoalescedJob job : jobsByLeader.values()) {
+            for (DownloadRequest follower : job.followers) {
+                if (sessionId.equals(follower.getSessionId())) {
+                    requestIds.add(follower.getRequestId());
+                }
+            }
+        }
+        return requestIds;
+    }
+
+    /**
+     * @param found     병합 대상(대표 또는 병합된 요청)이었는지
+     * @param jobToStop 더 받을 요청자가 없어 멈춰야 할 작업의 대표 requestId (계속하면 null)
+     */
+    public record Detachment(boolean found, String jobToStop) {
+    }
+
+    private String jobKey(DownloadRequest request) {
+        String type = request.getDataset() != null
+                ? request.getDownloadType() + "/" + request.getDataset()
+                : request.getDownloadType().name();
+        return type + (request.isGzip() ? ".gz" : "") + ":" + request.getDataVersion();
+    }
+
+    private DownloadProgress retarget(DownloadProgress progress, String requestId) {
+        return progress.toBuilder().requestId(requestId).build();
+    }
+
+    private void purgeExpired() {
+        long expireBefore = System.currentTimeMillis() - reuseWindowSeconds * 1000;
+        List<CoalescedJob> expired = new ArrayList<>();
+        for (CoalescedJob job : jobsByKey.values()) {
+            if (job.completedAt > 0 && job.completedAt < expireBefore) {
+                expired.add(job);
+            }
+        }
+        expired.forEach(this::remove);
+    }
+
+    private void remove(CoalescedJob job) {
+        jobsByKey.remove(job.key, job);
+        jobsByLeader.remove(job.leader.getRequestId(), job);
+    }
+
+    private static class CoalescedJob {
+        private final String key;
+        private final DownloadRequest leader;
+        private final List<DownloadRequest> followers = new ArrayList<>();
+        private DownloadProgress lastProgress;
+        private long completedAt;
+        private boolean leaderDetached;
+
+        CoalescedJob(String key, DownloadRequest leader) {
+            this.key = key;
+            this.leader = leader;
+        }
+
+        DownloadRequest findFollower(String requestId) {
+            for (DownloadRequest follower : followers) {
+                if (follower.getRequestId().equals(requestId)) {
+                    return follower;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -2,22 +2,52 @@ package com.jikim.ecommerce.service;
 
 import com.jikim.ecommerce.dto.DownloadProgress;
 import com.jikim.ecommerce.dto.DownloadRequest;
-import com.jikim.ecommerce.websocket.ProgressWebSocketHandler;
+import com.jikim.ecommerce.dto.SampleDataRow;
+import com.jikim.ecommerce.exception.ExportCancelledException;
+import com.jikim.ecommerce.util.AdaptiveChunkSizer;
+import com.jikim.ecommerce.util.ExportDefinition;
+import com.jikim.ecommerce.util.FastExcelRowEncoder;
+import com.jikim.ecommerce.util.RollingWorksheet;
+import com.jikim.ecommerce.util.RowRingBuffer;
+import com.jikim.ecommerce.websocket.ProgressHub;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.dhatim.fastexcel.Workbook;
-import org.dhatim.fastexcel.Worksheet;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
-import java.time.format.DateTimeFormatter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Service
 @RequiredArgsConstructor
@@ -25,9 +55,39 @@ import java.util.concurrent.atomic.AtomicLong;
 public class FastExcelDownloadService {
     
     private final JdbcTemplate jdbcTemplate;
-    private final ProgressWebSocketHandler progressWebSocketHandler;
+    private final ProgressHub progressHub;
+    private final PlatformTransactionManager transactionManager;
+    private final PipelinedRowReader pipelinedRowReader;
+    private final ExportJobCoalescer exportJobCoalescer;
+    private final ExportCancellation exportCancellation;
+    private final ExportDefinitionRegistry exportDefinitionRegistry;
+    @Qualifier("exportPartitionExecutor")
+    private final Executor exportPartitionExecutor;
     
-    private static final String DOWNLOAD_DIR = "downloads/";
+    @Value("${download.directory:downloads/}")
+    private String downloadDirectory;
+    
+    @Value("${download.cursor.fetch-size:1000}")
+    private int cursorFetchSize;
+    
+    @Value("${download.parallel.partitions:0}")
+    private int parallelPartitions;
+    
+    @Value("${download.keyset.initial-chunk-size:10000}")
+    private int keysetInitialChunkSize;
+    
+    @Value("${download.keyset.min-chunk-size:1000}")
+    private int keysetMinChunkSize;
+    
+    @Value("${download.keyset.max-chunk-size:100000}")
+    private int keysetMaxChunkSize;
+    
+    @Value("${download.keyset.target-chunk-millis:500}")
+    private long keysetTargetChunkMillis;
+    
+    // 시트당 최대 데이터 행 수 (넘으면 다음 시트로 자동 분할)
+    @Value("${download.sheet.max-rows:1000000}")
+    private int maxRowsPerSheet;
     
     /**
      * FastExcel로 대용량 데이터 처리 (단일 쿼리 방식)
@@ -35,8 +95,8 @@ public class FastExcelDownloadService {
     public void processWithFastExcel(DownloadRequest request) {
         log.info("🚀 FastExcel processing started: {}", request.getRequestId());
         
-        String filePath = DOWNLOAD_DIR + request.getFileName();
-        File downloadDir = new File(DOWNLOAD_DIR);
+        String filePath = Paths.get(downloadDirectory, request.getFileName()).toString();
+        File downloadDir = new File(downloadDirectory);
         if (!downloadDir.exists()) {
             downloadDir.mkdirs();
         }
@@ -44,34 +104,23 @@ public class FastExcelDownloadService {
         try (OutputStream os = new FileOutputStream(filePath);
              Workbook workbook = new Workbook(os, "Excel Export", "1.0")) {
             
-            Worksheet worksheet = workbook.newWorksheet("Data");
-            
-            // 헤더 설정
-            worksheet.value(0, 0, "ID");
-            worksheet.value(0, 1, "이름");
-            worksheet.value(0, 2, "설명");
-            worksheet.value(0, 3, "가격");
-            worksheet.value(0, 4, "카테고리");
-            worksheet.value(0, 5, "생성일시");
-            
-            // 수정: AtomicInteger 사용 (Excel 행 인덱스용)
-            AtomicInteger currentRow = new AtomicInteger(1); // 헤더 다음부터
+            // 시트당 행 수를 넘으면 헤더를 포함한 다음 시트로 자동 분할
+            ExportDefinition sampleData = exportDefinitionRegistry.get(ExportDefinitionRegistry.SAMPLE_DATA);
+            FastExcelRowEncoder encoder = sampleData.newEncoder();
+            RollingWorksheet sheets = new RollingWorksheet(
+                    workbook, sampleData.getSheetName(), maxRowsPerSheet, encoder::writeHeader, encoder::applyPendingStyles);
             AtomicLong processedCount = new AtomicLong(0);
             
             String sql = "SELECT id, name, description, price, category, created_at FROM sample_data ORDER BY id";
             
             jdbcTemplate.query(sql, rs -> {
-                int rowIndex = currentRow.getAndIncrement();
+                int rowIndex = 0;
                 
                 try {
+                    rowIndex = sheets.nextRow();
+                    
                     // FastExcel 데이터 입력
-                    worksheet.value(rowIndex, 0, rs.getLong("id"));
-                    worksheet.value(rowIndex, 1, rs.getString("name"));
-                    worksheet.value(rowIndex, 2, rs.getString("description"));
-                    worksheet.value(rowIndex, 3, rs.getBigDecimal("price").doubleValue());
-                    worksheet.value(rowIndex, 4, rs.getString("category"));
-                    worksheet.value(rowIndex, 5, rs.getTimestamp("created_at").toLocalDateTime()
-                            .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+                    encoder.writeRow(sheets.current(), rowIndex, rs);
                     
                     long processed = processedCount.incrementAndGet();
                     
@@ -79,7 +128,7 @@ public class FastExcelDownloadService {
                     if (processed % 10000 == 0) {
                         DownloadProgress progress = DownloadProgress.processing(
                                 request.getRequestId(), -1, processed);
-                        progressWebSocketHandler.sendProgress(request.getSessionId(), progress);
+                        progressHub.publish(request.getSessionId(), progress);
                         log.debug("FastExcel processed: {} rows", processed);
                     }
                 } catch (Exception e) {
@@ -89,31 +138,201 @@ public class FastExcelDownloadService {
             });
             
             // FastExcel 파일 완성
+            sheets.finish();
             workbook.finish();
             
             // 완료 알림
             String downloadUrl = "/api/download/file/" + request.getFileName();
             DownloadProgress completedProgress = DownloadProgress.completed(request.getRequestId(), downloadUrl);
-            progressWebSocketHandler.sendProgress(request.getSessionId(), completedProgress);
+            progressHub.publish(request.getSessionId(), completedProgress);
             
             log.info("✅ FastExcel completed: {} ({} rows)", filePath, processedCount.get());
             
         } catch (Exception e) {
             log.error("❌ FastExcel processing failed: {}", request.getRequestId(), e);
             DownloadProgress failedProgress = DownloadProgress.failed(request.getRequestId(), e.getMessage());
-            progressWebSocketHandler.sendProgress(request.getSessionId(), failedProgress);
+            progressHub.publish(request.getSessionId(), failedProgress);
             throw new RuntimeException("FastExcel 처리 실패: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * 🔥 FastExcel + 서버 사이드 커서 (단일 쿼리 방식의 메모리 개선판)
+     * PostgreSQL 드라이버는 autocommit 상태이거나 fetchSize가 없으면 결과 전체를 힙에 적재함
+     * 읽기 전용 트랜잭션 + forward-only 결과셋 + fetchSize로 커서에서 fetchSize만큼씩 가져옴
+     */
+    public void processWithFastExcelCursor(DownloadRequest request) {
+        log.info("🚀 FastExcel Cursor processing: {} (fetchSize={})", request.getRequestId(), cursorFetchSize);
+        
+        String filePath = Paths.get(downloadDirectory, request.getFileName()).toString();
+        File downloadDir = new File(downloadDirectory);
+        if (!downloadDir.exists()) {
+            downloadDir.mkdirs();
+        }
+        
+        try (OutputStream os = new FileOutputStream(filePath)) {
+            
+            long processedCount = writeSampleDataWorkbook(os, processed -> {
+                DownloadProgress progress = DownloadProgress.processing(
+                        request.getRequestId(), -1, processed);
+                progressHub.publish(request.getSessionId(), progress);
+            });
+            
+            // 완료 알림
+            String downloadUrl = "/api/download/file/" + request.getFileName();
+            DownloadProgress completedProgress = DownloadProgress.completed(request.getRequestId(), downloadUrl);
+            progressHub.publish(request.getSessionId(), completedProgress);
+            
+            log.info("✅ FastExcel cursor completed: {} ({} rows)", filePath, processedCount);
+            
+        } catch (Exception e) {
+            log.error("❌ FastExcel cursor failed: {}", request.getRequestId(), e);
+            DownloadProgress failedProgress = DownloadProgress.failed(request.getRequestId(), e.getMessage());
+            progressHub.publish(request.getSessionId(), failedProgress);
+            throw new RuntimeException("FastExcel 커서 처리 실패: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 서버 사이드 커서로 sample_data 전체를 읽어 주어진 스트림에 워크북 기록
+     * 대상이 파일이든 HTTP 응답이든 동일하게 동작 (스트림 close는 호출자 책임)
+     *
+     * @param progressCallback 10,000건마다 누적 처리 건수로 호출
+     * @return 기록한 데이터 행 수
+     */
+    public long writeSampleDataWorkbook(OutputStream os, LongConsumer progressCallback) throws IOException {
+        Workbook workbook = new Workbook(os, "Excel Export", "1.0");
+        ExportDefinition sampleData = exportDefinitionRegistry.get(ExportDefinitionRegistry.SAMPLE_DATA);
+        FastExcelRowEncoder encoder = sampleData.newEncoder();
+        RollingWorksheet sheets = new RollingWorksheet(
+                workbook, sampleData.getSheetName(), maxRowsPerSheet, encoder::writeHeader, encoder::applyPendingStyles);
+        
+        AtomicLong processedCount = new AtomicLong(0);
+        long queryStart = System.nanoTime();
+        
+        String sql = "SELECT id, name, description, price, category, created_at FROM sample_data ORDER BY id";
+        
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        
+        readOnlyTx.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(cursorFetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            int rowIndex = 0;
+            
+            try {
+                rowIndex = sheets.nextRow();
+                encoder.writeRow(sheets.current(), rowIndex, rs);
+                
+                long processed = processedCount.incrementAndGet();
+                if (processed == 1) {
+                    log.info("FastExcel cursor first row written after {}ms",
+                            (System.nanoTime() - queryStart) / 1_000_000);
+                }
+                
+                // fetchSize 단위로 시트 데이터를 스트림에 내보내 메모리 사용량 고정
+                if (processed % cursorFetchSize == 0) {
+                    sheets.flush();
+                }
+                
+                // 진행률 업데이트 (10,000건마다)
+                if (processed % 10000 == 0) {
+                    progressCallback.accept(processed);
+                    log.debug("FastExcel cursor processed: {} rows", processed);
+                }
+            } catch (IOException e) {
+                log.error("Error writing row {}: {}", rowIndex, e.getMessage());
+                throw new UncheckedIOException("Excel 행 작성 실패: " + e.getMessage(), e);
+            }
+        }));
+        
+        sheets.finish();
+        workbook.finish();
+        return processedCount.get();
+    }
+    
+    /**
+     * 🔥 FastExcel + 파이프라인 (읽기 스레드 / 쓰기 스레드 분리)
+     * 읽기 스레드가 커서로 읽은 행을 링 버퍼에 채우고, 현재 스레드는 버퍼를 비우며 셀 인코딩/압축 수행
+     * 쓰기가 밀리면 버퍼가 가득 차서 읽기가 대기함 (backpressure)
+     */
+    public void processWithFastExcelPipelined(DownloadRequest request) {
+        log.info("🚀 FastExcel Pipelined processing: {}", request.getRequestId());
+        
+        String filePath = Paths.get(downloadDirectory, request.getFileName()).toString();
+        File downloadDir = new File(downloadDirectory);
+        if (!downloadDir.exists()) {
+            downloadDir.mkdirs();
+        }
+        
+        RowRingBuffer<SampleDataRow> buffer = pipelinedRowReader.start(request.getRequestId());
+        
+        try (OutputStream os = new FileOutputStream(filePath);
+             Workbook workbook = new Workbook(os, "Excel Export", "1.0")) {
+            
+            ExportDefinition sampleData = exportDefinitionRegistry.get(ExportDefinitionRegistry.SAMPLE_DATA);
+            FastExcelRowEncoder encoder = sampleData.newEncoder();
+            RollingWorksheet sheets = new RollingWorksheet(
+                    workbook, sampleData.getSheetName(), maxRowsPerSheet, encoder::writeHeader, encoder::applyPendingStyles);
+            SampleDataRowValues values = new SampleDataRowValues(sampleData);
+            
+            long processedCount = 0;
+            SampleDataRow row;
+            
+            while ((row = buffer.take()) != null) {
+                int rowIndex = sheets.nextRow();
+                values.row = row;
+                encoder.writeRow(sheets.current(), rowIndex, values);
+                
+                // 셀에 값을 복사한 뒤 즉시 슬롯 반납
+                buffer.release();
+                processedCount++;
+                
+                if (processedCount % cursorFetchSize == 0) {
+                    sheets.flush();
+                }
+                
+                if (processedCount % 10000 == 0) {
+                    DownloadProgress progress = DownloadProgress.processing(
+                            request.getRequestId(), -1, processedCount);
+                    progressHub.publish(request.getSessionId(), progress);
+                }
+            }
+            
+            sheets.finish();
+            workbook.finish();
+            
+            // 완료 알림
+            String downloadUrl = "/api/download/file/" + request.getFileName();
+            DownloadProgress completedProgress = DownloadProgress.completed(request.getRequestId(), downloadUrl);
+            progressHub.publish(request.getSessionId(), completedProgress);
+            
+            log.info("✅ FastExcel pipelined completed: {} ({} rows, waited for reader {}ms)",
+                    filePath, processedCount, buffer.getConsumerWaitMillis());
+            
+        } catch (Exception e) {
+            // 쓰기 실패 시 읽기 스레드도 중단시켜 커넥션 반환
+            buffer.abort(e);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("❌ FastExcel pipelined failed: {}", request.getRequestId(), e);
+            DownloadProgress failedProgress = DownloadProgress.failed(request.getRequestId(), e.getMessage());
+            progressHub.publish(request.getSessionId(), failedProgress);
+            throw new RuntimeException("FastExcel 파이프라인 처리 실패: " + e.getMessage(), e);
+        }
+    }
+    
     /**
      * 🔥 FastExcel + 청크 처리 (DB 부하 최소화)
      */
     public void processWithFastExcelChunked(DownloadRequest request) {
         log.info("🚀 FastExcel Chunked processing: {}", request.getRequestId());
         
-        String filePath = DOWNLOAD_DIR + request.getFileName();
-        File downloadDir = new File(DOWNLOAD_DIR);
+        String filePath = Paths.get(downloadDirectory, request.getFileName()).toString();
+        File downloadDir = new File(downloadDirectory);
         if (!downloadDir.exists()) {
             downloadDir.mkdirs();
         }
@@ -121,22 +340,16 @@ public class FastExcelDownloadService {
         try (OutputStream os = new FileOutputStream(filePath);
              Workbook workbook = new Workbook(os, "Excel Export", "1.0")) {
             
-            Worksheet worksheet = workbook.newWorksheet("Data");
-            
-            // 헤더 설정
-            worksheet.value(0, 0, "ID");
-            worksheet.value(0, 1, "이름"); 
-            worksheet.value(0, 2, "설명");
-            worksheet.value(0, 3, "가격");
-            worksheet.value(0, 4, "카테고리");
-            worksheet.value(0, 5, "생성일시");
+            ExportDefinition sampleData = exportDefinitionRegistry.get(ExportDefinitionRegistry.SAMPLE_DATA);
+            FastExcelRowEncoder encoder = sampleData.newEncoder();
+            RollingWorksheet sheets = new RollingWorksheet(
+                    workbook, sampleData.getSheetName(), maxRowsPerSheet, encoder::writeHeader, encoder::applyPendingStyles);
             
             // 전체 건수 조회
             Long totalCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sample_data", Long.class);
             if (totalCount == null) totalCount = 0L;
             
             final int CHUNK_SIZE = 10000; // 1만건씩 청크 처리
-            AtomicInteger currentExcelRow = new AtomicInteger(1); // ✅ 수정: AtomicInteger 사용
             long processedCount = 0;
             
             // 청크별 처리
@@ -147,16 +360,9 @@ public class FastExcelDownloadService {
                 // ✅ 수정: 각 청크마다 행 번호 추적
                 jdbcTemplate.query(chunkSql, new Object[]{CHUNK_SIZE, offset}, rs -> {
                     try {
-                        int rowIndex = currentExcelRow.getAndIncrement();
+                        int rowIndex = sheets.nextRow();
+                        encoder.writeRow(sheets.current(), rowIndex, rs);
                         
-                        worksheet.value(rowIndex, 0, rs.getLong("id"));
-                        worksheet.value(rowIndex, 1, rs.getString("name"));
-                        worksheet.value(rowIndex, 2, rs.getString("description"));
-                        worksheet.value(rowIndex, 3, rs.getBigDecimal("price").doubleValue());
-                        worksheet.value(rowIndex, 4, rs.getString("category"));
-                        worksheet.value(rowIndex, 5, rs.getTimestamp("created_at").toLocalDateTime()
-                                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-                                
                     } catch (Exception e) {
                         log.error("Error writing chunk row: {}", e.getMessage());
                         throw new RuntimeException("청크 행 작성 실패: " + e.getMessage(), e);
@@ -168,25 +374,326 @@ public class FastExcelDownloadService {
                 // 진행률 업데이트 (청크마다)
                 DownloadProgress progress = DownloadProgress.processing(
                         request.getRequestId(), totalCount, processedCount);
-                progressWebSocketHandler.sendProgress(request.getSessionId(), progress);
+                progressHub.publish(request.getSessionId(), progress);
                 
                 log.debug("FastExcel chunk processed: {}/{}", processedCount, totalCount);
             }
             
+            sheets.finish();
             workbook.finish();
             
             // 완료 알림
             String downloadUrl = "/api/download/file/" + request.getFileName();
             DownloadProgress completedProgress = DownloadProgress.completed(request.getRequestId(), downloadUrl);
-            progressWebSocketHandler.sendProgress(request.getSessionId(), completedProgress);
+            progressHub.publish(request.getSessionId(), completedProgress);
             
             log.info("✅ FastExcel chunked completed: {} ({} rows)", filePath, processedCount);
             
         } catch (Exception e) {
             log.error("❌ FastExcel chunked failed: {}", request.getRequestId(), e);
             DownloadProgress failedProgress = DownloadProgress.failed(request.getRequestId(), e.getMessage());
-            progressWebSocketHandler.sendProgress(request.getSessionId(), failedProgress);
+            progressHub.publish(request.getSessionId(), failedProgress);
             throw new RuntimeException("FastExcel 청크 처리 실패: " + e.getMessage(), e);
         }
     }
+    
+    /**
+     * 🔥 FastExcel + Keyset 청크 처리
+     * OFFSET 방식은 뒤쪽 청크일수록 앞선 행을 모두 스캔 후 버리지만,
+     * Keyset 방식은 마지막 id 이후부터 인덱스로 바로 읽으므로 청크마다 비용이 일정함
+     * 청크 크기는 측정된 청크 처리 시간에 맞춰 자동 조정
+     */
+    public void processWithFastExcelKeyset(DownloadRequest request) {
+        log.info("🚀 FastExcel Keyset processing: {}", request.getRequestId());
+        
+        String filePath = Paths.get(downloadDirectory, request.getFileName()).toString();
+        File downloadDir = new File(downloadDirectory);
+        if (!downloadDir.exists()) {
+            downloadDir.mkdirs();
+        }
+        
+        try (OutputStream os = new FileOutputStream(filePath);
+             Workbook workbook = new Workbook(os, "Excel Export", "1.0")) {
+            
+            ExportDefinition sampleData = exportDefinitionRegistry.get(ExportDefinitionRegistry.SAMPLE_DATA);
+            FastExcelRowEncoder encoder = sampleData.newEncoder();
+            RollingWorksheet sheets = new RollingWorksheet(
+                    workbook, sampleData.getSheetName(), maxRowsPerSheet, encoder::writeHeader, encoder::applyPendingStyles);
+            
+            Long totalCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sample_data", Long.class);
+            if (totalCount == null) totalCount = 0L;
+            
+            String keysetSql = "SELECT id, name, description, price, category, created_at " +
+                              "FROM sample_data WHERE id > ? ORDER BY id LIMIT ?";
+            
+            AdaptiveChunkSizer chunkSizer = new AdaptiveChunkSizer(
+                    keysetInitialChunkSize, keysetMinChunkSize, keysetMaxChunkSize, keysetTargetChunkMillis);
+            AtomicLong lastId = new AtomicLong(0);
+            long processedCount = 0;
+            
+            while (true) {
+                int chunkSize = chunkSizer.nextSize();
+                AtomicInteger chunkRows = new AtomicInteger(0);
+                long chunkStart = System.nanoTime();
+                
+                jdbcTemplate.query(keysetSql, rs -> {
+                    try {
+                        int rowIndex = sheets.nextRow();
+                        encoder.writeRow(sheets.current(), rowIndex, rs);
+                        lastId.set(rs.getLong(1)); // SELECT 첫 컬럼 = id
+                        chunkRows.incrementAndGet();
+                    } catch (Exception e) {
+                        log.error("Error writing keyset row: {}", e.getMessage());
+                        throw new RuntimeException("Keyset 행 작성 실패: " + e.getMessage(), e);
+                    }
+                }, lastId.get(), chunkSize);
+                
+                int rows = chunkRows.get();
+                if (rows == 0) {
+                    break;
+                }
+                
+                // 청크 단위로 시트 데이터를 스트림에 내보내 메모리에 행이 쌓이지 않게 함
+                sheets.flush();
+                chunkSizer.record(rows, System.nanoTime() - chunkStart);
+                processedCount += rows;
+                
+                DownloadProgress progress = DownloadProgress.processing(
+                        request.getRequestId(), totalCount, processedCount);
+                progressHub.publish(request.getSessionId(), progress);
+                
+                log.debug("FastExcel keyset chunk processed: {}/{} (lastId={}, chunkSize={})",
+                        processedCount, totalCount, lastId.get(), chunkSize);
+                
+                if (rows < chunkSize) {
+                    break;
+                }
+            }
+            
+            sheets.finish();
+            workbook.finish();
+            
+            // 완료 알림
+            String downloadUrl = "/api/download/file/" + request.getFileName();
+            DownloadProgress completedProgress = DownloadProgress.completed(request.getRequestId(), downloadUrl);
+            progressHub.publish(request.getSessionId(), completedProgress);
+            
+            log.info("✅ FastExcel keyset completed: {} ({} rows)", filePath, processedCount);
+            
+        } catch (Exception e) {
+            log.error("❌ FastExcel keyset failed: {}", request.getRequestId(), e);
+            DownloadProgress failedProgress = DownloadProgress.failed(request.getRequestId(), e.getMessage());
+            progressHub.publish(request.getSessionId(), failedProgress);
+            throw new RuntimeException("FastExcel Keyset 처리 실패: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 🔥 FastExcel 병렬 파티션 처리 (PARALLEL)
+     * id 범위를 N개로 나눠 파티션마다 별도 워커가 읽기 + 인코딩하여 part 파일(xlsx)을 생성하고,
+     * 모든 파티션이 끝나면 하나의 zip으로 묶음
+     * (한 Workbook 안의 여러 시트를 병렬로 쓰면 시트 내용이 finish 전까지 메모리에 남으므로 파일 단위로 분리)
+     */
+    public void processWithFastExcelParallel(DownloadRequest request) {
+        log.info("🚀 FastExcel Parallel processing: {}", request.getRequestId());
+        
+        String filePath = Paths.get(downloadDirectory, request.getFileName()).toString();
+        Path partDir = Paths.get(downloadDirectory, "parts", request.getRequestId());
+        
+        try {
+            Files.createDirectories(partDir);
+            
+            Map<String, Object> range = jdbcTemplate.queryForMap(
+                    "SELECT MIN(id) AS min_id, MAX(id) AS max_id, COUNT(*) AS total FROM sample_data");
+            long totalCount = range.get("total") != null ? ((Number) range.get("total")).longValue() : 0L;
+            long minId = range.get("min_id") != null ? ((Number) range.get("min_id")).longValue() : 0L;
+            long maxId = range.get("max_id") != null ? ((Number) range.get("max_id")).longValue() : -1L;
+            
+            int partitions = parallelPartitions > 0
+                    ? parallelPartitions
+                    : Math.min(Runtime.getRuntime().availableProcessors(), 8);
+            long span = Math.max(1, (maxId - minId + 1 + partitions - 1) / partitions);
+            
+            AtomicLong processedCount = new AtomicLong(0);
+            AtomicBoolean failed = new AtomicBoolean(false);
+            Object progressLock = new Object();
+            List<Path> partFiles = new ArrayList<>();
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            
+            for (int i = 0; i < partitions && minId + i * span <= maxId; i++) {
+                long fromId = minId + i * span;
+                long toId = Math.min(maxId, fromId + span - 1);
+                Path partFile = partDir.resolve(String.format("sample_data_part_%02d.xlsx", i + 1));
+                partFiles.add(partFile);
+                
+                Runnable partition = () -> {
+                    try {
+                        writePartition(partFile, fromId, toId, failed, processed -> {
+                            // 취소되면 이 파티션이 멈추고 failed 표시로 다른 파티션도 다음 flush에서 멈춤
+                            exportCancellation.checkCancelled(request.getRequestId());
+                            long current = processedCount.addAndGet(processed);
+                            // 워커 여러 개가 같은 WebSocket 세션에 동시에 보내지 않도록 직렬화
+                            synchronized (progressLock) {
+                                DownloadProgress progress = DownloadProgress.processing(
+                                        request.getRequestId(), totalCount, current);
+                                exportJobCoalescer.sendProgress(request, progress);
+                            }
+                        });
+                    } catch (Exception e) {
+                        failed.set(true);
+                        throw new RuntimeException("파티션 처리 실패 (id " + fromId + "~" + toId + "): " + e.getMessage(), e);
+                    }
+                };
+                try {
+                    futures.add(CompletableFuture.runAsync(partition, exportPartitionExecutor));
+                } catch (RejectedExecutionException e) {
+                    // 이미 제출한 파티션이 partDir에 쓰는 중 - 멈추고 끝난 뒤에 정리되도록 대기
+                    failed.set(true);
+                    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                            .exceptionally(t -> null)
+                            .join();
+                    throw e;
+                }
+            }
+            
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+            
+            // part 파일들을 하나의 zip으로 묶음 (xlsx는 이미 압축되어 있으므로 재압축하지 않음)
+            try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(filePath))) {
+                zos.setLevel(Deflater.NO_COMPRESSION);
+                for (Path partFile : partFiles) {
+                    zos.putNextEntry(new ZipEntry(partFile.getFileName().toString()));
+                    Files.copy(partFile, zos);
+                    zos.closeEntry();
+                }
+            }
+            
+            // 완료 알림
+            String downloadUrl = "/api/download/file/" + request.getFileName();
+            DownloadProgress completedProgress = DownloadProgress.completed(request.getRequestId(), downloadUrl);
+            exportJobCoalescer.sendProgress(request, completedProgress);
+            
+            log.info("✅ FastExcel parallel completed: {} ({} rows, {} partitions)",
+                    filePath, processedCount.get(), partFiles.size());
+            
+        } catch (Exception e) {
+            if (exportCancellation.isCancelled(request.getRequestId())) {
+                throw new ExportCancelledException(request.getRequestId());
+            }
+            log.error("❌ FastExcel parallel failed: {}", request.getRequestId(), e);
+            DownloadProgress failedProgress = DownloadProgress.failed(request.getRequestId(), e.getMessage());
+            exportJobCoalescer.sendProgress(request, failedProgress);
+            throw new RuntimeException("FastExcel 병렬 처리 실패: " + e.getMessage(), e);
+        } finally {
+            FileSystemUtils.deleteRecursively(partDir.toFile());
+        }
+    }
+    
+    /**
+     * 파티션 하나(id 범위)를 커서로 읽어 part 파일로 기록
+     * 다른 파티션이 실패하면 다음 flush 시점에 중단
+     */
+    private void writePartition(Path partFile, long fromId, long toId, AtomicBoolean failed,
+                                Consumer<Long> progressCallback) throws Exception {
+        String sql = "SELECT id, name, description, price, category, created_at " +
+                    "FROM sample_data WHERE id BETWEEN ? AND ? ORDER BY id";
+        
+        try (OutputStream os = new FileOutputStream(partFile.toFile());
+             Workbook workbook = new Workbook(os, "Excel Export", "1.0")) {
+            
+            ExportDefinition sampleData = exportDefinitionRegistry.get(ExportDefinitionRegistry.SAMPLE_DATA);
+            FastExcelRowEncoder encoder = sampleData.newEncoder();
+            RollingWorksheet sheets = new RollingWorksheet(
+                    workbook, sampleData.getSheetName(), maxRowsPerSheet, encoder::writeHeader, encoder::applyPendingStyles);
+            
+            AtomicLong partitionRows = new AtomicLong(0);
+            AtomicLong sinceLastReport = new AtomicLong(0);
+            
+            TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+            readOnlyTx.setReadOnly(true);
+            
+            readOnlyTx.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(cursorFetchSize);
+                ps.setLong(1, fromId);
+                ps.setLong(2, toId);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    int rowIndex = sheets.nextRow();
+                    encoder.writeRow(sheets.current(), rowIndex, rs);
+                    partitionRows.incrementAndGet();
+                    
+                    if (sinceLastReport.incrementAndGet() == cursorFetchSize) {
+                        if (failed.get()) {
+                            throw new IllegalStateException("다른 파티션 실패로 중단");
+                        }
+                        sheets.flush();
+                        progressCallback.accept(sinceLastReport.getAndSet(0));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            
+            if (sinceLastReport.get() > 0) {
+                progressCallback.accept(sinceLastReport.get());
+            }
+            
+            sheets.finish();
+            workbook.finish();
+            log.debug("Partition written: {} (id {}~{}, {} rows, {} sheets)",
+                    partFile, fromId, toId, partitionRows.get(), sheets.getSheetCount());
+        }
+    }
+    
+    /**
+     * 링 버퍼 행을 sample_data 정의의 컬럼 순서로 읽는 어댑터 (내보내기마다 하나를 두고 행만 바꿔 끼움)
+     */
+    private static class SampleDataRowValues implements FastExcelRowEncoder.RowValues {
+        private final String[] columns;
+        private SampleDataRow row;
+        
+        SampleDataRowValues(ExportDefinition definition) {
+            this.columns = definition.getColumns().stream().map(ExportDefinition.Column::name).toArray(String[]::new);
+        }
+        
+        @Override
+        public boolean isNull(int column) {
+            return switch (columns[column]) {
+                case "price" -> row.isPriceNull();
+                case "created_at" -> row.getCreatedAt() == null;
+                default -> false;
+            };
+        }
+        
+        @Override
+        public long getLong(int column) {
+            return row.getId();
+        }
+        
+        @Override
+        public double getDouble(int column) {
+            return row.getPrice();
+        }
+        
+        @Override
+        public String getString(int column) {
+            return switch (columns[column]) {
+                case "name" -> row.getName();
+                case "description" -> row.getDescription();
+                case "category" -> row.getCategory();
+                default -> throw new IllegalArgumentException("Unsupported sample_data text column: " + columns[column]);
+            };
+        }
+        
+        @Override
+        public LocalDateTime getDateTime(int column) {
+            return row.getCreatedAt();
+        }
+    }
 }
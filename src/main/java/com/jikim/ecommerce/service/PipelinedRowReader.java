@@ -0,0 +1,110 @@
+package com.jikim.ecommerce.service;
+
+import com.jikim.ecommerce.dto.SampleDataRow;
+import com.jikim.ecommerce.util.RowRingBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 파이프라인 방식 내보내기의 읽기 단계
+ * 별도 스레드에서 sample_data를 커서로 읽어 링 버퍼의 재사용 슬롯을 채움
+ * 쓰기 단계(FastExcel / SXSSF)는 호출 스레드에서 버퍼를 비우며 동시에 진행됨
+ */
+@Component
+@Slf4j
+public class PipelinedRowReader {
+    
+    private static final String SQL =
+            "SELECT id, name, description, price, category, created_at FROM sample_data ORDER BY id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final Executor exportReaderExecutor;
+    
+    @Value("${download.pipeline.buffer-size:4096}")
+    private int bufferSize;
+    
+    @Value("${download.cursor.fetch-size:1000}")
+    private int fetchSize;
+    
+    public PipelinedRowReader(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Qualifier("exportReaderExecutor") Executor exportReaderExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+        this.exportReaderExecutor = exportReaderExecutor;
+    }
+    
+    /**
+     * 읽기 스레드를 시작하고 채워질 버퍼를 반환
+     * 호출자는 take()/release()로 버퍼를 비우고, 쓰기 실패 시 abort()를 호출해야 함
+     */
+    public RowRingBuffer<SampleDataRow> start(String requestId) {
+        RowRingBuffer<SampleDataRow> buffer = new RowRingBuffer<>(bufferSize, SampleDataRow::new);
+        
+        try {
+            exportReaderExecutor.execute(() -> read(requestId, buffer));
+        } catch (Exception e) {
+            log.error("Failed to start pipeline reader: {}", requestId, e);
+            buffer.fail(e);
+        }
+        
+        return buffer;
+    }
+    
+    private void read(String requestId, RowRingBuffer<SampleDataRow> buffer) {
+        long startTime = System.currentTimeMillis();
+        AtomicLong readCount = new AtomicLong(0);
+        
+        try {
+            TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+            readOnlyTx.setReadOnly(true);
+            
+            readOnlyTx.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                SampleDataRow row;
+                try {
+                    row = buffer.claim();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Pipeline reader interrupted", e);
+                }
+                
+                row.setId(rs.getLong(1));
+                row.setName(rs.getString(2));
+                row.setDescription(rs.getString(3));
+                row.setPrice(rs.getDouble(4));
+                row.setPriceNull(rs.wasNull());
+                row.setCategory(rs.getString(5));
+                Timestamp createdAt = rs.getTimestamp(6);
+                row.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+                
+                buffer.publish();
+                readCount.incrementAndGet();
+            }));
+            
+            buffer.close();
+            log.info("Pipeline reader finished: {} ({} rows, {}ms, waited for writer {}ms)",
+                    requestId, readCount.get(), System.currentTimeMillis() - startTime, buffer.getProducerWaitMillis());
+            
+        } catch (Exception e) {
+            log.error("Pipeline reader failed: {} after {} rows", requestId, readCount.get(), e);
+            buffer.fail(e);
+        }
+    }
+}
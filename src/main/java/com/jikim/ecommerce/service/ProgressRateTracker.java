@@ -0,0 +1,149 @@
+package com.jikim.ecommerce.service;
+
+import com.jikim.ecommerce.dto.DownloadProgress;
+import com.jikim.ecommerce.dto.DownloadRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 진행률에 처리 속도 / 기록한 바이트 / 남은 예상 시간 추가
+ *
+ * 속도는 진행률 사이 처리 건수 증가량의 지수 이동 평균 (rate.smoothing 가중치)
+ * 바이트는 작성 중인 결과 파일 + 파티션 / 체크포인트 파트 파일 크기의 합
+ * (SXSSF로 쓰는 PAGING / STREAMING은 write() 전까지 결과 파일이 없어 처리 중에는 0, 완료 때 실제 크기)
+ * 파일 크기를 조회하므로 내보내기 스레드가 아닌 ProgressHub flush 스레드에서 호출
+ * 완료 / 실패 / 취소되면 요청별 측정 상태 삭제
+ */
+@Component
+public class ProgressRateTracker {
+
+    @Value("${download.directory:downloads/}")
+    private String downloadDirectory;
+
+    @Value("${download.checkpoint.directory:downloads/.checkpoints/}")
+    private String checkpointDirectory;
+
+    // 새 측정값의 가중치 (클수록 최근 속도를 빨리 반영)
+    @Value("${download.progress.rate.smoothing:0.3}")
+    private double smoothing;
+
+    // 이보다 짧은 간격의 진행률은 속도 계산에 쓰지 않음 (병렬 파티션이 연달아 보낸 값 등)
+    @Value("${download.progress.rate.min-sample-millis:200}")
+    private long minSampleMillis;
+
+    // requestId -> 속도 측정 상태
+    private final ConcurrentHashMap<String, Rate> rates = new ConcurrentHashMap<>();
+
+    /**
+     * 처리 중 / 완료 진행률에 속도 / 바이트 / 남은 예상 시간을 채워 반환
+     */
+    public DownloadProgress measure(DownloadRequest request, DownloadProgress progress) {
+        String requestId = request.getRequestId();
+        switch (progress.getStatus()) {
+            case "PROCESSING" -> {
+                long rowsPerSecond = rates.computeIfAbsent(requestId, id -> new Rate())
+                        .update(progress.getProcessedCount(), System.nanoTime());
+                return progress.toBuilder()
+                        .rowsPerSecond(rowsPerSecond)
+                        .bytesWritten(bytesWritten(request))
+                        .etaSeconds(eta(progress, rowsPerSecond))
+                        .build();
+            }
+            case "COMPLETED" -> {
+                Rate rate = rates.remove(requestId);
+                return progress.toBuilder()
+                        .rowsPerSecond(rate != null ? rate.current() : 0)
+                        .bytesWritten(sizeOf(outputFile(request)))
+                        .etaSeconds(0L)
+                        .build();
+            }
+            case "FAILED", "CANCELLED" -> {
+                rates.remove(requestId);
+                return progress;
+            }
+            default -> {
+                return progress;
+            }
+        }
+    }
+
+    private Long eta(DownloadProgress progress, long rowsPerSecond) {
+        long remaining = progress.getTotalCount() - progress.getProcessedCount();
+        if (progress.getTotalCount() <= 0 || rowsPerSecond <= 0) {
+            return null;
+        }
+        return (Math.max(remaining, 0) + rowsPerSecond - 1) / rowsPerSecond;
+    }
+
+    private long bytesWritten(DownloadRequest request) {
+        return sizeOf(outputFile(request))
+                + sizeOf(Paths.get(downloadDirectory, "parts", request.getRequestId()))
+                + sizeOf(Paths.get(checkpointDirectory, request.getRequestId()));
+    }
+
+    private Path outputFile(DownloadRequest request) {
+        return request.getFileName() != null ? Paths.get(downloadDirectory, request.getFileName()) : null;
+    }
+
+    /**
+     * 파일 크기, 디렉터리면 바로 아래 파일 크기의 합 (없으면 0)
+     */
+    private long sizeOf(Path path) {
+        if (path == null) {
+            return 0;
+        }
+        try {
+            if (Files.isRegularFile(path)) {
+                return Files.size(path);
+            }
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.list(path)) {
+                    return files.filter(Files::isRegularFile).mapToLong(this::sizeOf).sum();
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // 측정 중 이동 / 삭제된 파트 파일 (다음 진행률에서 다시 측정)
+        }
+        return 0;
+    }
+
+    private class Rate {
+        private long lastAt;
+        private long lastProcessed = -1;
+        private double rowsPerSecond = -1;
+
+        /**
+         * @return 갱신된 이동 평균 속도 (아직 계산할 수 없으면 0)
+         */
+        synchronized long update(long processed, long now) {
+            if (lastProcessed < 0) {
+                // 첫 진행률 (체크포인트에서 이어받은 건수일 수 있으므로 기준점만 기록)
+                lastAt = now;
+                lastProcessed = processed;
+                return 0;
+            }
+            long elapsed = now - lastAt;
+            if (elapsed < TimeUnit.MILLISECONDS.toNanos(Math.max(minSampleMillis, 1))) {
+                return current();
+            }
+            double sample = (processed - lastProcessed) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+            rowsPerSecond = rowsPerSecond < 0 ? sample : smoothing * sample + (1 - smoothing) * rowsPerSecond;
+            lastAt = now;
+            lastProcessed = processed;
+            return current();
+        }
+
+        synchronized long current() {
+            return Math.max(0, Math.round(rowsPerSecond));
+        }
+    }
+}
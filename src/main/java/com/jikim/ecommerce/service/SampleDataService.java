@@ -17,6 +17,7 @@ import java.util.Random;
 public class SampleDataService {
     
     private final SampleDataRepository sampleDataRepository;
+    private final ExportDataVersionCache dataVersionCache;
     private final Random random = new Random();
     
     private final String[] categories = {
@@ -60,6 +61,7 @@ public class SampleDataService {
             }
         }
         
+        dataVersionCache.invalidate(ExportDefinitionRegistry.SAMPLE_DATA);
         log.info("Sample data generation completed: {} records", count);
     }
     
@@ -70,6 +72,7 @@ public class SampleDataService {
     public void clearAllData() {
         long count = sampleDataRepository.count();
         sampleDataRepository.deleteAll();
+        dataVersionCache.invalidate(ExportDefinitionRegistry.SAMPLE_DATA);
         log.info("Cleared all sample data: {} records deleted", count);
     }
     
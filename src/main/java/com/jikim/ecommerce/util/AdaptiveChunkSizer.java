@@ -0,0 +1,53 @@
+package com.jikim.ecommerce.util;
+
+/**
+ * 청크 처리 시간을 측정하여 다음 청크 크기를 조정
+ * 목표 시간보다 빠르면 키우고 느리면 줄임 (min ~ max 범위 내)
+ */
+public class AdaptiveChunkSizer {
+
+    private final int minSize;
+    private final int maxSize;
+    private final long targetNanos;
+
+    private int currentSize;
+
+    public AdaptiveChunkSizer(int initialSize, int minSize, int maxSize, long targetMillis) {
+        if (minSize <= 0 || maxSize < minSize || targetMillis <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid chunk size range: min=%d, max=%d, target=%dms", minSize, maxSize, targetMillis));
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetNanos = targetMillis * 1_000_000L;
+        this.currentSize = clamp(initialSize);
+    }
+
+    /**
+     * 다음 청크 크기
+     */
+    public int nextSize() {
+        return currentSize;
+    }
+
+    /**
+     * 청크 처리 결과 반영
+     * 한 번에 2배 이상 커지거나 절반 이하로 줄지 않도록 완만하게 조정
+     */
+    public void record(int rows, long elapsedNanos) {
+        // 마지막 청크(요청보다 적게 읽힘)나 측정값이 없는 경우는 반영하지 않음
+        if (rows <= 0 || rows < currentSize || elapsedNanos <= 0) {
+            return;
+        }
+
+        double nanosPerRow = (double) elapsedNanos / rows;
+        long idealSize = (long) (targetNanos / nanosPerRow);
+
+        long bounded = Math.max(currentSize / 2L, Math.min(currentSize * 2L, idealSize));
+        currentSize = clamp(bounded);
+    }
+
+    private int clamp(long size) {
+        return (int) Math.max(minSize, Math.min(maxSize, size));
+    }
+}
@@ -0,0 +1,59 @@
+package com.jikim.ecommerce.util;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 작업마다 가상 스레드를 만들어 실행하는 Executor
+ * 동시 실행 수는 스레드 풀 크기 대신 Semaphore로 제한하고, 한도를 넘으면 대기하지 않고 즉시 거절
+ * (ThreadPoolTaskExecutor의 큐가 가득 찼을 때와 같은 TaskRejectedException)
+ *
+ * JDBC / 파일 I/O에서 대부분의 시간을 보내는 작업은 블로킹 동안 캐리어 스레드를 반납하므로
+ * 플랫폼 스레드 몇 개로 많은 작업을 동시에 진행할 수 있음
+ */
+public class BoundedVirtualThreadExecutor implements TaskExecutor {
+
+    private final String name;
+    private final int maxConcurrentTasks;
+    private final Semaphore permits;
+    private final ThreadFactory threadFactory;
+
+    public BoundedVirtualThreadExecutor(String threadNamePrefix, int maxConcurrentTasks) {
+        if (maxConcurrentTasks <= 0) {
+            throw new IllegalArgumentException("maxConcurrentTasks must be positive: " + maxConcurrentTasks);
+        }
+        this.name = threadNamePrefix;
+        this.maxConcurrentTasks = maxConcurrentTasks;
+        this.permits = new Semaphore(maxConcurrentTasks);
+        this.threadFactory = Thread.ofVirtual().name(threadNamePrefix, 1).factory();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!permits.tryAcquire()) {
+            throw new TaskRejectedException(name + " task rejected. Concurrency limit reached.");
+        }
+        try {
+            threadFactory.newThread(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            }).start();
+        } catch (RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 실행 중인 작업 수
+     */
+    public int getActiveCount() {
+        return maxConcurrentTasks - permits.availablePermits();
+    }
+}
@@ -0,0 +1,216 @@
+package com.jikim.ecommerce.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * CSV / TSV 행 인코더
+ * 재사용하는 direct ByteBuffer에 UTF-8 바이트를 직접 기록하고, 가득 차면 채널로 내보냄
+ * 행 문자열 조립(String.format, StringBuilder, getBytes) 없이 값을 바로 인코딩하므로 행당 할당이 거의 없음
+ *
+ * CSV: 구분자/따옴표/줄바꿈이 포함된 값은 따옴표로 감싸고 따옴표는 두 번 씀 (RFC 4180, 줄 끝 CRLF)
+ * TSV: 값 안의 탭/줄바꿈은 공백으로 치환 (줄 끝 LF)
+ */
+public class DelimitedRowEncoder {
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] LONG_MIN_VALUE = "-9223372036854775808".getBytes(StandardCharsets.US_ASCII);
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte delimiter;
+    private final boolean csv;
+    private final byte[] digits = new byte[20];
+
+    private boolean firstColumn = true;
+    private long bytesWritten;
+
+    public DelimitedRowEncoder(WritableByteChannel channel, char delimiter, int bufferSize) {
+        if (delimiter != ',' && delimiter != '\t') {
+            throw new IllegalArgumentException("Unsupported delimiter: " + (int) delimiter);
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.delimiter = (byte) delimiter;
+        this.csv = delimiter == ',';
+    }
+
+    /**
+     * UTF-8 BOM (엑셀에서 CSV를 열 때 한글이 깨지지 않도록)
+     */
+    public void bom() throws IOException {
+        ensure(UTF8_BOM.length);
+        buffer.put(UTF8_BOM);
+    }
+
+    /**
+     * 문자열 값 (null이면 빈 값)
+     */
+    public void text(CharSequence value) throws IOException {
+        separator();
+        if (value == null) {
+            return;
+        }
+
+        int length = value.length();
+        boolean quote = csv && needsQuoting(value);
+        if (quote) {
+            put((byte) '"');
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (quote && c == '"') {
+                    put((byte) '"');
+                } else if (!csv && (c == '\t' || c == '\n' || c == '\r')) {
+                    c = ' ';
+                }
+                put((byte) c);
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensure(4);
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // 짝이 없는 서로게이트는 표준 인코더와 같이 '?'로 대체
+                put((byte) '?');
+            } else {
+                ensure(3);
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        if (quote) {
+            put((byte) '"');
+        }
+    }
+
+    /**
+     * 정수 값 (문자열 변환 없이 자릿수를 바로 기록)
+     */
+    public void number(long value) throws IOException {
+        separator();
+        if (value == Long.MIN_VALUE) {
+            ensure(LONG_MIN_VALUE.length);
+            buffer.put(LONG_MIN_VALUE);
+            return;
+        }
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+        ensure(digits.length - pos);
+        buffer.put(digits, pos, digits.length - pos);
+    }
+
+    /**
+     * 날짜시간 값 (yyyy-MM-dd HH:mm:ss, null이면 빈 값)
+     */
+    public void dateTime(LocalDateTime value) throws IOException {
+        separator();
+        if (value == null) {
+            return;
+        }
+        ensure(19);
+        putDigits(value.getYear(), 4);
+        buffer.put((byte) '-');
+        putDigits(value.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        putDigits(value.getDayOfMonth(), 2);
+        buffer.put((byte) ' ');
+        putDigits(value.getHour(), 2);
+        buffer.put((byte) ':');
+        putDigits(value.getMinute(), 2);
+        buffer.put((byte) ':');
+        putDigits(value.getSecond(), 2);
+    }
+
+    /**
+     * 빈 값
+     */
+    public void empty() throws IOException {
+        separator();
+    }
+
+    /**
+     * 행 종료
+     */
+    public void endRow() throws IOException {
+        if (csv) {
+            put((byte) '\r');
+        }
+        put((byte) '\n');
+        firstColumn = true;
+    }
+
+    /**
+     * 버퍼에 남은 바이트를 채널로 내보냄
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * 채널로 내보낸 누적 바이트 수
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private boolean needsQuoting(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void separator() throws IOException {
+        if (firstColumn) {
+            firstColumn = false;
+        } else {
+            put(delimiter);
+        }
+    }
+
+    /**
+     * 고정 자릿수 0 채움 (ensure 이후 호출)
+     */
+    private void putDigits(int value, int width) {
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        ensure(1);
+        buffer.put(b);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
@@ -1,64 +1,107 @@
 package com.jikim.ecommerce.util;
 
+import com.jikim.ecommerce.dto.SampleDataRow;
 import com.jikim.ecommerce.entity.SampleData;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+/**
+ * SXSSF 엑셀 작성 (sample_data)
+ * 헤더 / 컬럼 순서 / 셀 형식은 sample_data ExportDefinition을 따름 (FastExcel 방식과 같은 레이아웃)
+ */
 @Slf4j
 public class ExcelWriter {
     
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // 시트당 기본 최대 데이터 행 수 (넘으면 다음 시트로 자동 분할)
+    public static final int DEFAULT_MAX_ROWS_PER_SHEET = 1_000_000;
     
     /**
      * 스트리밍 방식으로 엑셀 파일 생성
      * SXSSFWorkbook을 사용하여 메모리 사용량 최소화
      */
     public static void writeExcelStreaming(String filePath, 
+                                         ExportDefinition definition,
                                          List<SampleData> dataList,
                                          Consumer<Integer> progressCallback) throws IOException {
+        writeExcelStreaming(filePath, definition, dataList.iterator(), DEFAULT_MAX_ROWS_PER_SHEET, progressCallback);
+    }
+    
+    /**
+     * Stream 기반 엑셀 파일 생성
+     * 호출자가 Stream의 close(커서 반환)를 책임짐
+     */
+    public static int writeExcelStreaming(String filePath,
+                                        ExportDefinition definition,
+                                        Stream<SampleData> dataStream,
+                                        Consumer<Integer> progressCallback) throws IOException {
+        return writeExcelStreaming(filePath, definition, dataStream.iterator(), DEFAULT_MAX_ROWS_PER_SHEET, progressCallback);
+    }
+    
+    /**
+     * Stream 기반 엑셀 파일 생성 (시트당 최대 행 수 지정)
+     */
+    public static int writeExcelStreaming(String filePath,
+                                        ExportDefinition definition,
+                                        Stream<SampleData> dataStream,
+                                        int maxRowsPerSheet,
+                                        Consumer<Integer> progressCallback) throws IOException {
+        return writeExcelStreaming(filePath, definition, dataStream.iterator(), maxRowsPerSheet, progressCallback);
+    }
+    
+    public static int writeExcelStreaming(String filePath,
+                                        ExportDefinition definition,
+                                        Iterator<SampleData> rows,
+                                        Consumer<Integer> progressCallback) throws IOException {
+        return writeExcelStreaming(filePath, definition, rows, DEFAULT_MAX_ROWS_PER_SHEET, progressCallback);
+    }
+    
+    /**
+     * Iterator 기반 엑셀 파일 생성
+     * 행을 받는 즉시 시트에 기록하므로 전체 건수와 무관하게 힙 사용량이 일정함
+     * 시트당 maxRowsPerSheet 행을 넘으면 같은 헤더로 다음 시트를 만들어 이어서 기록
+     *
+     * @return 기록된 데이터 행 수
+     */
+    public static int writeExcelStreaming(String filePath,
+                                        ExportDefinition definition,
+                                        Iterator<SampleData> rows,
+                                        int maxRowsPerSheet,
+                                        Consumer<Integer> progressCallback) throws IOException {
+        List<Function<SampleData, Object>> values = definition.getColumns().stream()
+                .map(column -> entityValue(column.name()))
+                .toList();
         
         // 메모리에 100개 행만 유지하고 나머지는 임시 파일로 처리
         try (SXSSFWorkbook workbook = new SXSSFWorkbook(100)) {
-            Sheet sheet = workbook.createSheet("Sample Data");
-            
-            // 컬럼 너비를 미리 설정 (autoSizeColumn 대신)
-            sheet.setColumnWidth(0, 3000);   // ID
-            sheet.setColumnWidth(1, 6000);   // 이름
-            sheet.setColumnWidth(2, 8000);   // 설명
-            sheet.setColumnWidth(3, 4000);   // 가격
-            sheet.setColumnWidth(4, 4000);   // 카테고리
-            sheet.setColumnWidth(5, 5000);   // 생성일시
-            
-            // 헤더 스타일
-            CellStyle headerStyle = createHeaderStyle(workbook);
-            CellStyle dataStyle = createDataStyle(workbook);
-            
-            // 헤더 생성
-            createHeader(sheet, headerStyle);
+            SheetRoller sheets = new SheetRoller(workbook, definition, maxRowsPerSheet);
+            CellStyle[] styles = createColumnStyles(workbook, definition);
             
             // 데이터 행 생성
-            int rowIndex = 1;
-            for (int i = 0; i < dataList.size(); i++) {
-                SampleData data = dataList.get(i);
-                Row row = sheet.createRow(rowIndex++);
+            int written = 0;
+            while (rows.hasNext()) {
+                SampleData data = rows.next();
+                Row row = sheets.nextRow();
                 
-                createCell(row, 0, data.getId(), dataStyle);
-                createCell(row, 1, data.getName(), dataStyle);
-                createCell(row, 2, data.getDescription(), dataStyle);
-                createCell(row, 3, data.getPrice(), dataStyle);
-                createCell(row, 4, data.getCategory(), dataStyle);
-                createCell(row, 5, data.getCreatedAt().format(DATE_FORMATTER), dataStyle);
+                for (int c = 0; c < styles.length; c++) {
+                    createCell(row, c, values.get(c).apply(data), styles[c]);
+                }
+                
+                written++;
                 
                 // 진행률 콜백 (100건마다 호출)
-                if (i > 0 && i % 100 == 0) {
-                    progressCallback.accept(i);
+                if (written % 100 == 0) {
+                    progressCallback.accept(written);
                 }
             }
             
@@ -70,17 +113,172 @@ public class ExcelWriter {
             // 임시 파일 정리
             workbook.dispose();
             
-            log.info("Excel file created successfully: {}", filePath);
+            log.info("Excel file created successfully: {} ({} rows, {} sheets)", filePath, written, sheets.getSheetCount());
+            return written;
+        }
+    }
+    
+    public static int writeExcelPipelined(String filePath,
+                                        ExportDefinition definition,
+                                        RowRingBuffer<SampleDataRow> buffer,
+                                        Consumer<Integer> progressCallback) throws IOException, InterruptedException {
+        return writeExcelPipelined(filePath, definition, buffer, DEFAULT_MAX_ROWS_PER_SHEET, progressCallback);
+    }
+    
+    /**
+     * 파이프라인 방식 엑셀 파일 생성
+     * 읽기 스레드가 채우는 링 버퍼를 비우면서 기록 (DB 읽기와 셀 인코딩/압축이 동시에 진행됨)
+     * 시트당 maxRowsPerSheet 행을 넘으면 다음 시트로 자동 분할
+     *
+     * @return 기록된 데이터 행 수
+     */
+    public static int writeExcelPipelined(String filePath,
+                                        ExportDefinition definition,
+                                        RowRingBuffer<SampleDataRow> buffer,
+                                        int maxRowsPerSheet,
+                                        Consumer<Integer> progressCallback) throws IOException, InterruptedException {
+        List<Function<SampleDataRow, Object>> values = definition.getColumns().stream()
+                .map(column -> rowValue(column.name()))
+                .toList();
+        
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100)) {
+            SheetRoller sheets = new SheetRoller(workbook, definition, maxRowsPerSheet);
+            CellStyle[] styles = createColumnStyles(workbook, definition);
+            
+            int written = 0;
+            SampleDataRow data;
+            while ((data = buffer.take()) != null) {
+                Row row = sheets.nextRow();
+                
+                for (int c = 0; c < styles.length; c++) {
+                    createCell(row, c, values.get(c).apply(data), styles[c]);
+                }
+                
+                // 셀에 값을 복사한 뒤 즉시 슬롯 반납
+                buffer.release();
+                written++;
+                
+                if (written % 100 == 0) {
+                    progressCallback.accept(written);
+                }
+            }
+            
+            try (FileOutputStream fileOut = new FileOutputStream(filePath)) {
+                workbook.write(fileOut);
+            }
+            
+            workbook.dispose();
+            
+            log.info("Excel file created successfully (pipelined): {} ({} rows, {} sheets, waited for reader {}ms)",
+                    filePath, written, sheets.getSheetCount(), buffer.getConsumerWaitMillis());
+            return written;
+        }
+    }
+    
+    /**
+     * sample_data 정의의 컬럼 이름 → 엔티티 값
+     */
+    private static Function<SampleData, Object> entityValue(String column) {
+        return switch (column) {
+            case "id" -> SampleData::getId;
+            case "name" -> SampleData::getName;
+            case "description" -> SampleData::getDescription;
+            case "price" -> SampleData::getPrice;
+            case "category" -> SampleData::getCategory;
+            case "created_at" -> SampleData::getCreatedAt;
+            default -> throw new IllegalArgumentException("Unsupported sample_data column: " + column);
+        };
+    }
+    
+    /**
+     * sample_data 정의의 컬럼 이름 → 링 버퍼 행 값
+     */
+    private static Function<SampleDataRow, Object> rowValue(String column) {
+        return switch (column) {
+            case "id" -> SampleDataRow::getId;
+            case "name" -> SampleDataRow::getName;
+            case "description" -> SampleDataRow::getDescription;
+            case "price" -> row -> row.isPriceNull() ? null : row.getPrice();
+            case "category" -> SampleDataRow::getCategory;
+            case "created_at" -> SampleDataRow::getCreatedAt;
+            default -> throw new IllegalArgumentException("Unsupported sample_data column: " + column);
+        };
+    }
+    
+    /**
+     * 시트 생성 (컬럼 너비 + 헤더)
+     */
+    private static Sheet createSheet(SXSSFWorkbook workbook, String sheetName, ExportDefinition definition,
+                                     CellStyle headerStyle) {
+        Sheet sheet = workbook.createSheet(sheetName);
+        
+        // 컬럼 너비를 미리 설정 (autoSizeColumn 대신, 셀 형식별 고정 너비)
+        List<ExportDefinition.Column> columns = definition.getColumns();
+        for (int c = 0; c < columns.size(); c++) {
+            sheet.setColumnWidth(c, switch (columns.get(c).type()) {
+                case LONG -> 3000;
+                case DOUBLE -> 4000;
+                case DATE_TIME -> 5000;
+                case TEXT -> 6000;
+            });
         }
+        
+        // 헤더 생성
+        createHeader(sheet, definition, headerStyle);
+        
+        return sheet;
     }
     
-    private static void createHeader(Sheet sheet, CellStyle headerStyle) {
+    /**
+     * 시트 자동 분할 (엑셀 시트 한 장의 최대 행 수는 헤더 포함 1,048,576)
+     * 가득 찬 시트는 남은 행을 임시 파일로 내보낸 뒤 다음 시트를 시작
+     */
+    private static class SheetRoller {
+        private final SXSSFWorkbook workbook;
+        private final ExportDefinition definition;
+        private final CellStyle headerStyle;
+        private final int maxRowsPerSheet;
+        
+        private Sheet sheet;
+        private int sheetCount;
+        private int rowInSheet;
+        
+        SheetRoller(SXSSFWorkbook workbook, ExportDefinition definition, int maxRowsPerSheet) {
+            this.workbook = workbook;
+            this.definition = definition;
+            this.headerStyle = createHeaderStyle(workbook);
+            this.maxRowsPerSheet = RollingWorksheet.clampRowsPerSheet(maxRowsPerSheet);
+            startSheet();
+        }
+        
+        Row nextRow() throws IOException {
+            if (rowInSheet >= maxRowsPerSheet) {
+                ((SXSSFSheet) sheet).flushRows();
+                startSheet();
+            }
+            return sheet.createRow(++rowInSheet);
+        }
+        
+        int getSheetCount() {
+            return sheetCount;
+        }
+        
+        private void startSheet() {
+            sheetCount++;
+            String baseName = definition.getSheetName();
+            sheet = createSheet(workbook, sheetCount == 1 ? baseName : baseName + " (" + sheetCount + ")",
+                    definition, headerStyle);
+            rowInSheet = 0;
+        }
+    }
+    
+    private static void createHeader(Sheet sheet, ExportDefinition definition, CellStyle headerStyle) {
         Row headerRow = sheet.createRow(0);
         
-        String[] headers = {"ID", "이름", "설명", "가격", "카테고리", "생성일시"};
-        for (int i = 0; i < headers.length; i++) {
+        List<ExportDefinition.Column> columns = definition.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
             Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
+            cell.setCellValue(columns.get(i).header());
             cell.setCellStyle(headerStyle);
         }
     }
@@ -94,6 +292,8 @@ public class ExcelWriter {
             cell.setCellValue((String) value);
         } else if (value instanceof Number) {
             cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof LocalDateTime) {
+            cell.setCellValue((LocalDateTime) value);
         } else {
             cell.setCellValue(value.toString());
         }
@@ -122,6 +322,22 @@ public class ExcelWriter {
         return style;
     }
     
+    /**
+     * 컬럼별 데이터 셀 스타일 (날짜 컬럼은 FastExcel 방식과 같은 표시 형식의 날짜 셀)
+     */
+    private static CellStyle[] createColumnStyles(Workbook workbook, ExportDefinition definition) {
+        CellStyle dataStyle = createDataStyle(workbook);
+        CellStyle dateStyle = createDataStyle(workbook);
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat(FastExcelRowEncoder.DATE_TIME_FORMAT));
+        
+        List<ExportDefinition.Column> columns = definition.getColumns();
+        CellStyle[] styles = new CellStyle[columns.size()];
+        for (int c = 0; c < styles.length; c++) {
+            styles[c] = columns.get(c).type() == FastExcelRowEncoder.ColumnType.DATE_TIME ? dateStyle : dataStyle;
+        }
+        return styles;
+    }
+    
     private static CellStyle createDataStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         
@@ -0,0 +1,143 @@
+package com.jikim.ecommerce.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 선언형 내보내기 정의
+ * JDBC 프로젝션 쿼리 + 컬럼 매핑만으로 내보내기를 구성 (JPA 엔티티를 로딩하지 않으므로 N+1 / EAGER 로딩 비용 없음)
+ *
+ * - query: 내보낼 행을 순서대로 반환하는 SELECT (컬럼 alias가 매핑 이름)
+ * - countQuery: 진행률/우선순위 계산용 전체 행 수
+ * - versionQuery: 데이터 버전 (결과 행의 모든 컬럼을 '-'로 이어 붙임) - 동일 요청 병합 / 캐시 키
+ *   첫 컬럼은 기준 테이블의 max(id) (요청 시점 조회 상한으로도 사용)
+ * - cacheable: 버전 쿼리가 수정까지 반영하는 경우에만 결과 파일 캐시 사용
+ */
+public class ExportDefinition {
+
+    public record Column(String name, String header, FastExcelRowEncoder.ColumnType type) {
+    }
+
+    private final String name;
+    private final String sheetName;
+    private final String query;
+    private final String countQuery;
+    private final String versionQuery;
+    private final boolean cacheable;
+    private final List<Column> columns;
+
+    private ExportDefinition(Builder builder) {
+        this.name = builder.name;
+        this.sheetName = builder.sheetName != null ? builder.sheetName : builder.name;
+        this.query = builder.query;
+        this.countQuery = builder.countQuery;
+        this.versionQuery = builder.versionQuery;
+        this.cacheable = builder.cacheable;
+        this.columns = List.copyOf(builder.columns);
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    /**
+     * 컬럼 매핑으로 행 인코더 생성 (시트 기록 상태를 가지므로 내보내기마다 새로 생성)
+     */
+    public FastExcelRowEncoder newEncoder() {
+        FastExcelRowEncoder.Builder builder = FastExcelRowEncoder.builder();
+        for (Column column : columns) {
+            builder.column(column.name(), column.header(), column.type());
+        }
+        return builder.build();
+    }
+
+    /**
+     * 컬럼 구성 식별자 (캐시 키용)
+     */
+    public String columnSignature() {
+        return columns.stream().map(Column::name).collect(Collectors.joining(","));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public String getCountQuery() {
+        return countQuery;
+    }
+
+    public String getVersionQuery() {
+        return versionQuery;
+    }
+
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public static class Builder {
+        private final String name;
+        private String sheetName;
+        private String query;
+        private String countQuery;
+        private String versionQuery;
+        private boolean cacheable;
+        private final List<Column> columns = new ArrayList<>();
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder sheetName(String sheetName) {
+            this.sheetName = sheetName;
+            return this;
+        }
+
+        public Builder query(String query) {
+            this.query = query;
+            return this;
+        }
+
+        public Builder countQuery(String countQuery) {
+            this.countQuery = countQuery;
+            return this;
+        }
+
+        public Builder versionQuery(String versionQuery) {
+            this.versionQuery = versionQuery;
+            return this;
+        }
+
+        public Builder cacheable(boolean cacheable) {
+            this.cacheable = cacheable;
+            return this;
+        }
+
+        public Builder column(String name, String header, FastExcelRowEncoder.ColumnType type) {
+            columns.add(new Column(name, header, type));
+            return this;
+        }
+
+        public ExportDefinition build() {
+            if (query == null || countQuery == null || versionQuery == null) {
+                throw new IllegalStateException("query, countQuery and versionQuery are required: " + name);
+            }
+            if (columns.isEmpty()) {
+                throw new IllegalStateException("At least one column is required: " + name);
+            }
+            return new ExportDefinition(this);
+        }
+    }
+}
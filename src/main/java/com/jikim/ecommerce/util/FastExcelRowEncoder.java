@@ -0,0 +1,180 @@
+package com.jikim.ecommerce.util;
+
+import org.dhatim.fastexcel.Worksheet;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ResultSet (또는 이미 읽어 둔 행) → FastExcel 행 인코더
+ *
+ * - 컬럼 위치는 ResultSet마다 한 번만 조회하고 이후에는 인덱스로 읽음 (행마다 이름 조회 없음)
+ * - 숫자는 BigDecimal 없이 getLong/getDouble로 읽음
+ * - 날짜는 문자열로 포맷하지 않고 엑셀 날짜 셀(숫자 + 표시 형식)로 기록
+ *   표시 형식은 셀마다 지정하지 않고 flush 직전에 기록된 행 범위에 한 번에 적용
+ *
+ * 시트 하나에 대해 순서대로 기록하는 용도 (스레드 안전하지 않음)
+ */
+public class FastExcelRowEncoder {
+
+    public static final String DATE_TIME_FORMAT = "yyyy-mm-dd hh:mm:ss";
+
+    public enum ColumnType {
+        LONG,
+        DOUBLE,
+        TEXT,
+        DATE_TIME
+    }
+
+    /**
+     * ResultSet 밖에서 읽은 행 (파이프라인 링 버퍼 행 등) - column은 인코더에 등록한 컬럼 순서
+     */
+    public interface RowValues {
+        boolean isNull(int column);
+
+        long getLong(int column);
+
+        double getDouble(int column);
+
+        String getString(int column);
+
+        LocalDateTime getDateTime(int column);
+    }
+
+    private final String[] names;
+    private final String[] headers;
+    private final ColumnType[] types;
+    private final int[] indexes;
+
+    private ResultSet boundResultSet;
+
+    // 표시 형식을 아직 적용하지 않은 행 범위
+    private Worksheet pendingSheet;
+    private int firstPendingRow;
+    private int lastPendingRow = -1;
+
+    private FastExcelRowEncoder(List<String> names, List<String> headers, List<ColumnType> types) {
+        this.names = names.toArray(new String[0]);
+        this.headers = headers.toArray(new String[0]);
+        this.types = types.toArray(new ColumnType[0]);
+        this.indexes = new int[this.names.length];
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public void writeHeader(Worksheet worksheet) {
+        for (int c = 0; c < headers.length; c++) {
+            worksheet.value(0, c, headers[c]);
+        }
+    }
+
+    /**
+     * 현재 행을 기록 (처음 보는 ResultSet이면 컬럼 위치를 먼저 확인)
+     */
+    public void writeRow(Worksheet worksheet, int rowIndex, ResultSet rs) throws SQLException {
+        if (rs != boundResultSet) {
+            for (int c = 0; c < names.length; c++) {
+                indexes[c] = rs.findColumn(names[c]);
+            }
+            boundResultSet = rs;
+        }
+
+        for (int c = 0; c < types.length; c++) {
+            int index = indexes[c];
+            switch (types[c]) {
+                case LONG -> {
+                    long value = rs.getLong(index);
+                    if (!rs.wasNull()) {
+                        worksheet.value(rowIndex, c, value);
+                    }
+                }
+                case DOUBLE -> {
+                    double value = rs.getDouble(index);
+                    if (!rs.wasNull()) {
+                        worksheet.value(rowIndex, c, value);
+                    }
+                }
+                case TEXT -> worksheet.value(rowIndex, c, rs.getString(index));
+                case DATE_TIME -> {
+                    LocalDateTime value = rs.getObject(index, LocalDateTime.class);
+                    if (value != null) {
+                        worksheet.value(rowIndex, c, value);
+                    }
+                }
+            }
+        }
+
+        markWritten(worksheet, rowIndex);
+    }
+
+    /**
+     * 이미 읽어 둔 행을 ResultSet 행과 같은 셀 형식으로 기록
+     */
+    public void writeRow(Worksheet worksheet, int rowIndex, RowValues row) {
+        for (int c = 0; c < types.length; c++) {
+            if (row.isNull(c)) {
+                continue;
+            }
+            switch (types[c]) {
+                case LONG -> worksheet.value(rowIndex, c, row.getLong(c));
+                case DOUBLE -> worksheet.value(rowIndex, c, row.getDouble(c));
+                case TEXT -> worksheet.value(rowIndex, c, row.getString(c));
+                case DATE_TIME -> worksheet.value(rowIndex, c, row.getDateTime(c));
+            }
+        }
+        markWritten(worksheet, rowIndex);
+    }
+
+    private void markWritten(Worksheet worksheet, int rowIndex) {
+        if (worksheet != pendingSheet) {
+            pendingSheet = worksheet;
+            firstPendingRow = rowIndex;
+        }
+        lastPendingRow = rowIndex;
+    }
+
+    /**
+     * 마지막 적용 이후 기록된 행의 날짜 컬럼에 표시 형식 적용
+     * worksheet.flush() / finish() 직전에 호출해야 함 (내보낸 행에는 적용할 수 없음)
+     */
+    public void applyPendingStyles() {
+        if (pendingSheet == null || lastPendingRow < firstPendingRow) {
+            return;
+        }
+        for (int c = 0; c < types.length; c++) {
+            if (types[c] == ColumnType.DATE_TIME) {
+                pendingSheet.range(firstPendingRow, c, lastPendingRow, c).style().format(DATE_TIME_FORMAT).set();
+            }
+        }
+        firstPendingRow = lastPendingRow + 1;
+    }
+
+    public static class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final List<String> headers = new ArrayList<>();
+        private final List<ColumnType> types = new ArrayList<>();
+
+        /**
+         * @param name   ResultSet 컬럼명 (alias)
+         * @param header 엑셀 헤더
+         */
+        public Builder column(String name, String header, ColumnType type) {
+            names.add(name);
+            headers.add(header);
+            types.add(type);
+            return this;
+        }
+
+        public FastExcelRowEncoder build() {
+            if (names.isEmpty()) {
+                throw new IllegalStateException("At least one column is required");
+            }
+            return new FastExcelRowEncoder(names, headers, types);
+        }
+    }
+}
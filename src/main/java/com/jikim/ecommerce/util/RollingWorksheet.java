@@ -0,0 +1,101 @@
+package com.jikim.ecommerce.util;
+
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.Worksheet;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * FastExcel 시트 자동 분할
+ * 현재 시트의 데이터 행 수가 기준에 도달하면 시트를 마무리하고 같은 헤더로 다음 시트를 시작
+ * (엑셀 시트 한 장의 최대 행 수는 헤더 포함 1,048,576)
+ *
+ * 사용: int rowIndex = sheets.nextRow(); sheets.current().value(rowIndex, ...)
+ * 모든 행을 기록한 뒤 finish() 호출 후 workbook.finish()
+ */
+public class RollingWorksheet {
+
+    public static final int EXCEL_MAX_DATA_ROWS = 1_048_575;
+
+    private final Workbook workbook;
+    private final String baseName;
+    private final int maxRowsPerSheet;
+    private final Consumer<Worksheet> headerWriter;
+    private final Runnable beforeFlush;
+
+    private Worksheet current;
+    private int sheetCount;
+    private int rowInSheet;
+
+    public RollingWorksheet(Workbook workbook, String baseName, int maxRowsPerSheet, Consumer<Worksheet> headerWriter) {
+        this(workbook, baseName, maxRowsPerSheet, headerWriter, () -> { });
+    }
+
+    /**
+     * @param beforeFlush 행을 스트림으로 내보내기 직전 호출 (기록된 행 범위에 스타일 적용 등)
+     */
+    public RollingWorksheet(Workbook workbook, String baseName, int maxRowsPerSheet,
+                            Consumer<Worksheet> headerWriter, Runnable beforeFlush) {
+        this.workbook = workbook;
+        this.baseName = baseName;
+        this.maxRowsPerSheet = clampRowsPerSheet(maxRowsPerSheet);
+        this.headerWriter = headerWriter;
+        this.beforeFlush = beforeFlush;
+        startSheet();
+    }
+
+    /**
+     * 시트당 데이터 행 수 검증 (엑셀 한도를 넘으면 한도로 맞춤)
+     */
+    public static int clampRowsPerSheet(int maxRowsPerSheet) {
+        if (maxRowsPerSheet <= 0) {
+            throw new IllegalArgumentException("maxRowsPerSheet must be positive: " + maxRowsPerSheet);
+        }
+        return Math.min(maxRowsPerSheet, EXCEL_MAX_DATA_ROWS);
+    }
+
+    /**
+     * 다음 데이터 행 인덱스 (현재 시트가 가득 찼으면 마무리하고 새 시트로 넘어감)
+     */
+    public int nextRow() throws IOException {
+        if (rowInSheet >= maxRowsPerSheet) {
+            // 스트리밍 모드에서는 한 번에 한 시트만 열려 있어야 하므로 이전 시트를 먼저 닫음
+            beforeFlush.run();
+            current.finish();
+            startSheet();
+        }
+        return ++rowInSheet;
+    }
+
+    public Worksheet current() {
+        return current;
+    }
+
+    /**
+     * 현재 시트에 쌓인 행을 출력 스트림으로 내보냄
+     */
+    public void flush() throws IOException {
+        beforeFlush.run();
+        current.flush();
+    }
+
+    /**
+     * 마지막 시트 마무리 (이후 workbook.finish() 호출)
+     */
+    public void finish() throws IOException {
+        beforeFlush.run();
+        current.finish();
+    }
+
+    public int getSheetCount() {
+        return sheetCount;
+    }
+
+    private void startSheet() {
+        sheetCount++;
+        current = workbook.newWorksheet(sheetCount == 1 ? baseName : baseName + " (" + sheetCount + ")");
+        headerWriter.accept(current);
+        rowInSheet = 0;
+    }
+}
@@ -0,0 +1,254 @@
+package com.jikim.ecommerce.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 단일 생산자(DB 읽기) / 단일 소비자(엑셀 쓰기)용 고정 크기 링 버퍼
+ * 슬롯 객체를 미리 만들어 재사용하므로 행마다 객체를 할당하지 않음
+ *
+ * 생산자: claim() → 슬롯 채우기 → publish()  (버퍼가 가득 차면 claim()에서 대기 = backpressure)
+ * 소비자: take() → 슬롯 읽기 → release()     (버퍼가 비어 있으면 take()에서 대기)
+ *
+ * 행마다 락을 잡지 않도록 publish / release는 각 스레드의 로컬 시퀀스만 올리고
+ * batchSize개마다(또는 상대를 기다리기 직전, close 시) 한 번에 공유 시퀀스로 넘기며 신호를 보냄
+ * claim / take도 마지막으로 확인한 여유 구간 안에서는 락 없이 슬롯을 돌려줌
+ */
+public class RowRingBuffer<T> {
+
+    private final Object[] slots;
+    private final int capacity;
+    private final int batchSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition notEmpty = lock.newCondition();
+
+    // 단조 증가 시퀀스 (slot index = sequence % capacity), lock 안에서 변경
+    // writeSequence는 생산자만, readSequence는 소비자만 바꾸므로 각자는 락 없이 자기 값을 읽을 수 있음
+    private long writeSequence;   // 소비자에게 넘긴 슬롯 수
+    private long readSequence;    // 생산자에게 돌려준 슬롯 수
+
+    // 생산자 스레드 전용
+    private long localWriteSequence;  // publish한 슬롯 수 (아직 넘기지 않은 것 포함)
+    private long claimLimit;          // 락 없이 claim할 수 있는 시퀀스 상한
+
+    // 소비자 스레드 전용
+    private long localReadSequence;   // release한 슬롯 수 (아직 돌려주지 않은 것 포함)
+    private long takeLimit;           // 락 없이 take할 수 있는 시퀀스 상한
+
+    private boolean closed;                // 생산자 정상 종료
+    private volatile Throwable failure;    // 생산자 실패
+    private volatile Throwable abortCause; // 소비자 중단
+
+    private long producerWaitNanos;
+    private long consumerWaitNanos;
+
+    public RowRingBuffer(int capacity, Supplier<T> slotFactory) {
+        this(capacity, Math.max(1, Math.min(256, capacity / 4)), slotFactory);
+    }
+
+    /**
+     * @param batchSize 생산자 / 소비자가 한 번에 넘기는 슬롯 수 (1이면 행마다 넘김)
+     */
+    public RowRingBuffer(int capacity, int batchSize, Supplier<T> slotFactory) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        if (batchSize <= 0 || batchSize > capacity) {
+            throw new IllegalArgumentException("batchSize must be between 1 and capacity: " + batchSize);
+        }
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.claimLimit = capacity;
+        this.slots = new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = slotFactory.get();
+        }
+    }
+
+    /**
+     * 생산자: 다음에 채울 슬롯 확보 (소비자가 뒤처지면 빈 슬롯이 생길 때까지 대기)
+     */
+    @SuppressWarnings("unchecked")
+    public T claim() throws InterruptedException {
+        if (abortCause != null) {
+            throw new IllegalStateException("Pipeline aborted by consumer", abortCause);
+        }
+        if (localWriteSequence >= claimLimit) {
+            lock.lock();
+            try {
+                // 기다리기 전에 채운 슬롯을 모두 넘김 (소비자가 비워야 빈 슬롯이 생김)
+                handOverWrites();
+                if (localWriteSequence - readSequence >= capacity && abortCause == null) {
+                    long waitStart = System.nanoTime();
+                    while (localWriteSequence - readSequence >= capacity && abortCause == null) {
+                        notFull.await();
+                    }
+                    producerWaitNanos += System.nanoTime() - waitStart;
+                }
+                if (abortCause != null) {
+                    throw new IllegalStateException("Pipeline aborted by consumer", abortCause);
+                }
+                claimLimit = readSequence + capacity;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return (T) slots[(int) (localWriteSequence % capacity)];
+    }
+
+    /**
+     * 생산자: claim()으로 채운 슬롯을 공개 (batchSize개가 모이면 소비자에게 넘김)
+     */
+    public void publish() {
+        localWriteSequence++;
+        if (localWriteSequence - writeSequence >= batchSize) {
+            lock.lock();
+            try {
+                handOverWrites();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 생산자: 더 이상 행이 없음 (남은 슬롯을 넘기고 종료)
+     */
+    public void close() {
+        lock.lock();
+        try {
+            handOverWrites();
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // lock 안에서 호출
+    private void handOverWrites() {
+        if (writeSequence != localWriteSequence) {
+            writeSequence = localWriteSequence;
+            notEmpty.signal();
+        }
+    }
+
+    /**
+     * 생산자: 읽기 실패 (소비자의 다음 take()에서 예외 발생)
+     */
+    public void fail(Throwable cause) {
+        lock.lock();
+        try {
+            if (failure == null) {
+                failure = cause;
+            }
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 소비자: 다음 슬롯 조회 (모든 행을 소비했으면 null)
+     */
+    @SuppressWarnings("unchecked")
+    public T take() throws InterruptedException {
+        if (failure != null) {
+            throw new IllegalStateException("Pipeline reader failed: " + failure.getMessage(), failure);
+        }
+        if (localReadSequence >= takeLimit) {
+            lock.lock();
+            try {
+                // 기다리기 전에 비운 슬롯을 모두 돌려줌 (생산자가 채워야 새 행이 생김)
+                handOverReads();
+                if (localReadSequence == writeSequence && !closed && failure == null) {
+                    long waitStart = System.nanoTime();
+                    while (localReadSequence == writeSequence && !closed && failure == null) {
+                        notEmpty.await();
+                    }
+                    consumerWaitNanos += System.nanoTime() - waitStart;
+                }
+                if (failure != null) {
+                    throw new IllegalStateException("Pipeline reader failed: " + failure.getMessage(), failure);
+                }
+                takeLimit = writeSequence;
+                if (localReadSequence == takeLimit) {
+                    return null;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return (T) slots[(int) (localReadSequence % capacity)];
+    }
+
+    /**
+     * 소비자: take()로 받은 슬롯 사용 완료 (batchSize개가 모이면 생산자에게 돌려줌)
+     */
+    public void release() {
+        localReadSequence++;
+        if (localReadSequence - readSequence >= batchSize) {
+            lock.lock();
+            try {
+                handOverReads();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // lock 안에서 호출
+    private void handOverReads() {
+        if (readSequence != localReadSequence) {
+            readSequence = localReadSequence;
+            notFull.signal();
+        }
+    }
+
+    /**
+     * 소비자: 쓰기 실패 시 생산자 중단 요청 (대기 중인 claim()에서 예외 발생)
+     */
+    public void abort(Throwable cause) {
+        lock.lock();
+        try {
+            if (abortCause == null) {
+                abortCause = cause;
+            }
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 생산자가 버퍼가 가득 차서 기다린 시간 (쓰기가 병목)
+     */
+    public long getProducerWaitMillis() {
+        lock.lock();
+        try {
+            return TimeUnit.NANOSECONDS.toMillis(producerWaitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 소비자가 버퍼가 비어서 기다린 시간 (읽기가 병목)
+     */
+    public long getConsumerWaitMillis() {
+        lock.lock();
+        try {
+            return TimeUnit.NANOSECONDS.toMillis(consumerWaitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
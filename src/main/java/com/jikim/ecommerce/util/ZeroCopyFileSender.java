@@ -0,0 +1,167 @@
+package com.jikim.ecommerce.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 생성된 파일 전송 (Range / If-Range / ETag 지원)
+ *
+ * Tomcat이 sendfile을 지원하면 요청 속성으로 파일 구간만 넘기고 서블릿 스레드는 즉시 반환하며,
+ * 실제 전송은 커넥터 poller가 커널 sendfile로 처리함 (zero-copy)
+ * 지원하지 않는 커넥터(HTTP/2, 압축 응답 등)에서는 서블릿 출력 스트림으로 버퍼를 거쳐 복사 (zero-copy 아님)
+ */
+@Slf4j
+public class ZeroCopyFileSender {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private ZeroCopyFileSender() {
+    }
+
+    /**
+     * 파일 전송 (Range 요청이면 206 + 해당 구간만 전송)
+     */
+    public static void send(File file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = file.length();
+        long lastModified = file.lastModified() / 1000 * 1000; // HTTP 날짜는 초 단위
+        String etag = strongETag(file);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename*=UTF-8''" + URLEncoder.encode(file.getName(), StandardCharsets.UTF_8)
+                        .replaceAll("\\+", "%20"));
+
+        // 생성 완료된 파일은 변경되지 않으므로 캐시 검증 가능
+        if (matchesIfNoneMatch(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isIfRangeSatisfied(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                // 문법이 잘못된 Range는 무시하고 전체 파일로 응답 (RFC 9110 14.2), 416은 만족할 수 없는 구간에만
+                log.debug("Invalid Range header ignored: {}", rangeHeader);
+                ranges = List.of();
+            }
+
+            // 이어받기에 필요한 단일 구간만 지원 (다중 구간은 전체 파일로 응답)
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                long rangeStart = range.getRangeStart(length);
+                if (length == 0 || rangeStart >= length) {
+                    sendRangeNotSatisfiable(response, length);
+                    return;
+                }
+                start = rangeStart;
+                end = range.getRangeEnd(length);
+
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLengthLong(Math.max(count, 0));
+
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            log.debug("File handed over to sendfile: {} ({}-{})", file.getName(), start, end);
+            return;
+        }
+
+        // 출력 스트림은 소켓 채널이 아니므로 transferTo가 내부 버퍼로 읽고 쓰는 일반 복사로 동작
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             WritableByteChannel out = Channels.newChannel(response.getOutputStream())) {
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    /**
+     * 강한 ETag: 생성 완료 후 변경되지 않는 파일이므로 이름 + 크기 + 수정 시각으로 바이트 동일성을 보장
+     */
+    public static String strongETag(File file) {
+        return "\"" + Integer.toHexString(file.getName().hashCode())
+                + "-" + Long.toHexString(file.length())
+                + "-" + Long.toHexString(file.lastModified()) + "\"";
+    }
+
+    private static boolean matchesIfNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-Range 조건 확인: 클라이언트가 가진 조각이 현재 파일과 같은 버전일 때만 Range 적용
+     * ETag는 강한 비교, 날짜는 Last-Modified와 정확히 일치해야 함
+     */
+    private static boolean isIfRangeSatisfied(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        String trimmed = ifRange.trim();
+        if (trimmed.startsWith("\"") || trimmed.startsWith("W/")) {
+            return trimmed.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void sendRangeNotSatisfiable(HttpServletResponse response, long length) {
+        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+    }
+}
@@ -0,0 +1,126 @@
+package com.jikim.ecommerce.websocket;
+
+import com.jikim.ecommerce.dto.DownloadProgress;
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.service.ProgressRateTracker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 진행률 전송 허브
+ * 내보내기 스레드는 requestId별 최신 진행률만 맵에 넣고 바로 돌아감 (JSON 직렬화 / WebSocket I/O 없음)
+ * 전용 스레드가 flush-interval마다 모인 최신 값만 ProgressReplayBuffer에 기록(eventId 부여)하고
+ * 같은 이벤트를 ProgressWebSocketHandler(HTTP 세션)와 ProgressSseEmitters(requestId 구독)로 전송
+ * 속도 / 바이트 / 남은 예상 시간은 flush 때 측정 대상 작업별로 한 번만 측정 (파일 크기 조회가 내보내기 스레드를 막지 않음)
+ *
+ * 완료 / 실패 / 취소는 아직 전송되지 않았으면 뒤늦게 도착한 진행 중 값으로 덮어쓰지 않음
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProgressHub {
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of("COMPLETED", "FAILED", "CANCELLED");
+
+    private final ProgressWebSocketHandler progressWebSocketHandler;
+    private final ProgressReplayBuffer progressReplayBuffer;
+    private final ProgressSseEmitters progressSseEmitters;
+    private final ProgressRateTracker progressRateTracker;
+
+    @Value("${download.progress.flush-interval-millis:250}")
+    private long flushIntervalMillis;
+
+    // requestId -> 아직 전송하지 않은 최신 진행률
+    private final ConcurrentHashMap<String, PendingProgress> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ProgressFlush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Progress hub started (flush every {}ms)", flushIntervalMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        // 종료 직전 완료 알림이 남지 않도록 마지막으로 한 번 전송
+        flush();
+    }
+
+    /**
+     * 진행률 등록 (다음 flush 때 전송, 그 사이 같은 요청의 값은 최신 값으로 대체)
+     */
+    public void publish(String httpSessionId, DownloadProgress progress) {
+        publish(httpSessionId, progress, null);
+    }
+
+    /**
+     * 진행률 등록, flush 때 source 작업 기준으로 속도 / 바이트 / 남은 예상 시간을 채움
+     * 요청 소유 세션은 첫 flush 전에도 조회되도록 바로 등록
+     */
+    public void publish(String httpSessionId, DownloadProgress progress, DownloadRequest source) {
+        progressReplayBuffer.register(progress.getRequestId(), httpSessionId);
+        pending.merge(progress.getRequestId(), new PendingProgress(httpSessionId, progress, source),
+                (queued, latest) -> queued.isTerminal() && !latest.isTerminal() ? queued : latest);
+    }
+
+    /**
+     * 모인 진행률 전송
+     */
+    public void flush() {
+        // 측정 대상 작업 -> 이번 flush의 측정값 (병합된 요청자들은 대표 작업 측정값을 함께 사용)
+        Map<String, DownloadProgress> measured = new HashMap<>();
+        for (String requestId : pending.keySet()) {
+            PendingProgress next = pending.remove(requestId);
+            if (next == null) {
+                continue;
+            }
+            try {
+                DownloadProgress event = progressReplayBuffer.record(next.httpSessionId(), measure(next, measured));
+                progressWebSocketHandler.sendProgress(next.httpSessionId(), event);
+                progressSseEmitters.send(event);
+            } catch (RuntimeException e) {
+                // 전송 실패가 스케줄을 멈추지 않도록 흡수
+                log.warn("Failed to deliver progress for {}: {}", requestId, e.getMessage());
+            }
+        }
+    }
+
+    private DownloadProgress measure(PendingProgress next, Map<String, DownloadProgress> measured) {
+        DownloadProgress progress = next.progress();
+        if (next.source() == null) {
+            return progress;
+        }
+        String key = next.source().getRequestId() + ":" + progress.getStatus() + ":" + progress.getProcessedCount();
+        DownloadProgress rate = measured.computeIfAbsent(key, k -> progressRateTracker.measure(next.source(), progress));
+        return progress.toBuilder()
+                .rowsPerSecond(rate.getRowsPerSecond())
+                .bytesWritten(rate.getBytesWritten())
+                .etaSeconds(rate.getEtaSeconds())
+                .build();
+    }
+
+    private record PendingProgress(String httpSessionId, DownloadProgress progress, DownloadRequest source) {
+        boolean isTerminal() {
+            return TERMINAL_STATUSES.contains(progress.getStatus());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.jikim.ecommerce.websocket;
+
+import com.jikim.ecommerce.dto.DownloadProgress;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 요청별 최근 진행률 이벤트 보관 (재전송용 링 버퍼)
+ *
+ * 모든 이벤트에 증가하는 eventId를 붙여 requestId별로 최근 replay.size개를 보관
+ * 늦게 연결했거나 재연결한 클라이언트는 마지막으로 받은 lastEventId 이후의 이벤트를 다시 받음
+ * 요청을 만든 HTTP 세션(소유자)도 함께 보관해 SSE 구독 / 취소 / 재개 권한 확인에 사용
+ * 마지막 이벤트 후 replay.ttl이 지난 요청의 버퍼는 삭제
+ */
+@Component
+public class ProgressReplayBuffer {
+
+    @Value("${download.progress.replay.size:16}")
+    private int capacity;
+
+    @Value("${download.progress.replay.ttl:PT10M}")
+    private Duration ttl;
+
+    // 재시작 후에도 이전 실행의 eventId보다 커지도록 시작 시각(ms) * 1000에서 시작
+    private final AtomicLong eventSequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    // requestId -> 최근 이벤트
+    private final ConcurrentHashMap<String, RequestEvents> buffers = new ConcurrentHashMap<>();
+
+    /**
+     * 이벤트 번호를 붙여 보관
+     *
+     * @return eventId가 붙은 진행률 (전송할 값)
+     */
+    public DownloadProgress record(String httpSessionId, DownloadProgress progress) {
+        DownloadProgress event = progress.toBuilder().eventId(eventSequence.incrementAndGet()).build();
+        buffers.compute(progress.getRequestId(), (requestId, events) -> {
+            RequestEvents target = events != null ? events : new RequestEvents(httpSessionId, capacity);
+            target.add(event);
+            return target;
+        });
+        return event;
+    }
+
+    /**
+     * 요청 소유 세션 등록 (이미 있으면 유지, 첫 이벤트 기록 전 구독 / 취소 요청도 확인 가능)
+     */
+    public void register(String requestId, String httpSessionId) {
+        buffers.computeIfAbsent(requestId, id -> new RequestEvents(httpSessionId, capacity));
+    }
+
+    /**
+     * 요청 소유 세션 (모르는 요청이거나 ttl이 지났으면 empty)
+     */
+    public Optional<String> ownerOf(String requestId) {
+        RequestEvents events = buffers.get(requestId);
+        if (events == null || events.lastUpdatedAt < System.currentTimeMillis() - ttl.toMillis()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(events.httpSessionId);
+    }
+
+    /**
+     * HTTP 세션의 모든 요청에서 lastEventId 이후 이벤트 (eventId 순)
+     */
+    public List<DownloadProgress> eventsAfter(String httpSessionId, long lastEventId) {
+        List<DownloadProgress> missed = new ArrayList<>();
+        for (RequestEvents events : buffers.values()) {
+            if (httpSessionId.equals(events.httpSessionId)) {
+                events.collectAfter(lastEventId, missed);
+            }
+        }
+        missed.sort(Comparator.comparingLong(DownloadProgress::getEventId));
+        return missed;
+    }
+
+    /**
+     * 한 요청의 lastEventId 이후 이벤트 (eventId 순, SSE 구독용)
+     */
+    public List<DownloadProgress> eventsForRequest(String requestId, long lastEventId) {
+        List<DownloadProgress> missed = new ArrayList<>();
+        RequestEvents events = buffers.get(requestId);
+        if (events != null) {
+            events.collectAfter(lastEventId, missed);
+        }
+        return missed;
+    }
+
+    /**
+     * 오래된 요청 버퍼 삭제
+     */
+    @Scheduled(fixedDelayString = "${download.progress.replay.sweep-interval-millis:60000}")
+    public void sweep() {
+        long expireBefore = System.currentTimeMillis() - ttl.toMillis();
+        buffers.entrySet().removeIf(entry -> entry.getValue().lastUpdatedAt < expireBefore);
+    }
+
+    private static class RequestEvents {
+        private final String httpSessionId;
+        private final DownloadProgress[] ring;
+        private int next;
+        private int size;
+        private volatile long lastUpdatedAt;
+
+        RequestEvents(String httpSessionId, int capacity) {
+            this.httpSessionId = httpSessionId;
+            this.ring = new DownloadProgress[capacity];
+            this.lastUpdatedAt = System.currentTimeMillis();
+        }
+
+        synchronized void add(DownloadProgress event) {
+            ring[next] = event;
+            next = (next + 1) % ring.length;
+            size = Math.min(size + 1, ring.length);
+            lastUpdatedAt = System.currentTimeMillis();
+        }
+
+        synchronized void collectAfter(long lastEventId, List<DownloadProgress> target) {
+            int oldest = (next - size + ring.length) % ring.length;
+            for (int i = 0; i < size; i++) {
+                DownloadProgress event = ring[(oldest + i) % ring.length];
+                if (event.getEventId() > lastEventId) {
+                    target.add(event);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.jikim.ecommerce.websocket;
+
+/**
+ * HTTP 세션에 연결된 마지막 진행률 WebSocket이 닫히고 reconnect-grace 안에 다시 연결되지 않음
+ */
+public record ProgressSessionClosedEvent(String httpSessionId) {
+}
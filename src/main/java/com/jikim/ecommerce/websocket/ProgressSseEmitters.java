@@ -0,0 +1,203 @@
+package com.jikim.ecommerce.websocket;
+
+import com.jikim.ecommerce.dto.DownloadProgress;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * requestId별 진행률 SSE 구독 (WebSocket이 막힌 프록시 뒤의 클라이언트용)
+ *
+ * ProgressWebSocketHandler와 같은 이벤트(같은 eventId)를 SSE id로 전송
+ * 구독 시 Last-Event-ID 이후 이벤트를 ProgressReplayBuffer에서 먼저 보내고 이어서 실시간 이벤트 전송
+ * 전송은 progressSendExecutor에서 구독자별로 한 번에 하나씩 eventId 순으로 수행 (느린 구독자가 flush 스레드를 막지 않음)
+ * 밀린 이벤트가 buffer-size를 넘으면 오래된 것부터 버림 (진행률은 최신 값만 의미가 있음)
+ * 프록시의 유휴 연결 종료를 막도록 heartbeat 주기마다 주석 이벤트 전송, 완료 / 실패 / 취소 이벤트 후 스트림 종료
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProgressSseEmitters {
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of("COMPLETED", "FAILED", "CANCELLED");
+
+    private final ProgressReplayBuffer progressReplayBuffer;
+    @Qualifier("progressSendExecutor")
+    private final Executor progressSendExecutor;
+
+    @Value("${download.progress.sse.timeout:PT30M}")
+    private Duration timeout;
+
+    // 구독자별 미전송 이벤트 한도
+    @Value("${download.progress.sse.buffer-size:32}")
+    private int bufferSize;
+
+    // requestId -> 구독자
+    private final ConcurrentHashMap<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * 요청 진행률 구독 (lastEventId 이후 이벤트부터, 없으면 보관 중인 이벤트 전체)
+     */
+    public SseEmitter subscribe(String requestId, long lastEventId) {
+        return subscribe(requestId, lastEventId, new SseEmitter(timeout.toMillis()));
+    }
+
+    /**
+     * 주어진 emitter로 구독
+     * 구독자를 먼저 등록해 실시간 이벤트를 모은 뒤 재전송 이벤트를 합쳐 eventId 순으로 전송 (사이에 기록된 이벤트 누락 없음)
+     */
+    public SseEmitter subscribe(String requestId, long lastEventId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(requestId, emitter, lastEventId);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        subscribers.computeIfAbsent(requestId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        progressReplayBuffer.eventsForRequest(requestId, lastEventId).forEach(subscriber::offer);
+        subscriber.start();
+        log.info("SSE progress subscribed: {} (after event {})", requestId, lastEventId);
+        return emitter;
+    }
+
+    /**
+     * 요청 구독자들에게 이벤트 전송 예약 (호출 스레드는 막히지 않음)
+     */
+    public void send(DownloadProgress event) {
+        Set<Subscriber> targets = subscribers.get(event.getRequestId());
+        if (targets != null) {
+            targets.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    /**
+     * 모든 구독자에게 heartbeat 전송 예약
+     */
+    @Scheduled(fixedDelayString = "${download.progress.sse.heartbeat-interval-millis:15000}")
+    public void heartbeat() {
+        subscribers.values().forEach(targets -> targets.forEach(Subscriber::heartbeat));
+    }
+
+    /**
+     * 활성 구독 수 조회
+     */
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.close();
+        subscribers.computeIfPresent(subscriber.requestId, (id, targets) -> {
+            targets.remove(subscriber);
+            return targets.isEmpty() ? null : targets;
+        });
+    }
+
+    private class Subscriber {
+        private final String requestId;
+        private final SseEmitter emitter;
+        // eventId -> 미전송 이벤트 (재전송과 실시간 이벤트를 eventId 순으로 합치고 중복 제거)
+        private final TreeMap<Long, DownloadProgress> pending = new TreeMap<>();
+        private long lastSentEventId;
+        private boolean heartbeatDue;
+        private boolean started;
+        private boolean draining;
+        private boolean closed;
+
+        Subscriber(String requestId, SseEmitter emitter, long lastEventId) {
+            this.requestId = requestId;
+            this.emitter = emitter;
+            this.lastSentEventId = lastEventId;
+        }
+
+        synchronized void offer(DownloadProgress event) {
+            if (closed || event.getEventId() <= lastSentEventId) {
+                return;
+            }
+            pending.put(event.getEventId(), event);
+            if (pending.size() > bufferSize) {
+                pending.pollFirstEntry();
+            }
+            schedule();
+        }
+
+        synchronized void heartbeat() {
+            heartbeatDue = true;
+            schedule();
+        }
+
+        synchronized void start() {
+            started = true;
+            schedule();
+        }
+
+        synchronized void close() {
+            closed = true;
+            pending.clear();
+        }
+
+        private void schedule() {
+            if (!started || draining || closed) {
+                return;
+            }
+            draining = true;
+            try {
+                progressSendExecutor.execute(this::drain);
+            } catch (TaskRejectedException e) {
+                // 다음 이벤트 / heartbeat 때 다시 시도
+                draining = false;
+                log.warn("SSE progress send skipped for {}: {}", requestId, e.getMessage());
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                DownloadProgress next;
+                synchronized (this) {
+                    Map.Entry<Long, DownloadProgress> entry = pending.pollFirstEntry();
+                    if (closed || (entry == null && !heartbeatDue)) {
+                        draining = false;
+                        return;
+                    }
+                    heartbeatDue = false;
+                    next = entry != null ? entry.getValue() : null;
+                    if (next != null) {
+                        lastSentEventId = next.getEventId();
+                    }
+                }
+                try {
+                    if (next == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(next.getEventId()))
+                                .data(next, MediaType.APPLICATION_JSON));
+                        if (TERMINAL_STATUSES.contains(next.getStatus())) {
+                            unsubscribe(this);
+                            emitter.complete();
+                            return;
+                        }
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("SSE progress subscriber gone: {} ({})", requestId, e.getMessage());
+                    // 끊긴 연결은 컨테이너가 비동기 요청을 정리 (onError / onCompletion)
+                    unsubscribe(this);
+                    return;
+                }
+            }
+        }
+    }
+}
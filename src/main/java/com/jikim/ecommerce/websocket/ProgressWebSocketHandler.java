@@ -4,136 +4,354 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jikim.ecommerce.dto.DownloadProgress;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * 다운로드 진행률 WebSocket 핸들러
+ *
+ * 연결마다 송신 대기열(Outbox)을 두고, 실제 전송은 progressSendExecutor에서 연결별로 한 번에 하나씩 eventId 순으로 수행
+ * - 호출 스레드는 대기열에 넣고 바로 반환 (느린 탭이 다른 세션을 막지 않음)
+ * - 한 번의 전송이 send-time-limit을 넘은 채 새 메시지가 오면 세션 종료
+ * - 대기열이 buffer-size-limit을 넘으면 slow-consumer 정책에 따라 오래된 메시지를 버리거나(DROP) 세션 종료(TERMINATE)
+ *   (진행률은 최신 값만 의미가 있으므로 기본은 DROP)
+ *
+ * HTTP 세션 하나에 여러 연결(탭)을 허용하고 양방향 인덱스로 연결 종료를 O(1)에 정리
+ * 마지막 연결이 끊긴 뒤 reconnect-grace 안에 같은 HTTP 세션이 다시 연결하지 않을 때만 다운로드 취소 이벤트 발행
+ * (새로고침 / 네트워크 순단으로 인한 재연결은 작업을 취소하지 않음)
+ * 같은 진행률은 한 번만 직렬화해 모든 대상 세션이 같은 TextMessage를 공유
+ *
+ * 진행률은 해당 HTTP 세션에만 전송 (다른 사용자에게 브로드캐스트하지 않음)
+ * ProgressHub가 ProgressReplayBuffer에 기록한 이벤트를 받으며, 연결 시 쿼리 파라미터 lastEventId 이후의 이벤트를 재전송
+ * (없으면 보관 중인 이벤트 전체) - 연결을 먼저 등록해 실시간 이벤트를 모은 뒤 재전송 이벤트와 eventId 순으로 합쳐 전송
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class ProgressWebSocketHandler extends TextWebSocketHandler {
     
     private final ObjectMapper objectMapper;
-    private final ConcurrentHashMap<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final ApplicationEventPublisher eventPublisher;
+    @Qualifier("progressSendExecutor")
+    private final Executor progressSendExecutor;
+    private final ProgressReplayBuffer progressReplayBuffer;
+    // 웹소켓 세션 ID -> 송신 대기열
+    private final ConcurrentHashMap<String, Outbox> sessions = new ConcurrentHashMap<>();
     
-    // HTTP 세션 ID -> 웹소켓 세션 ID 매핑
-    private final ConcurrentHashMap<String, String> httpToWebSocketSessionMapping = new ConcurrentHashMap<>();
+    // 세션 하나의 전송 한 번에 허용하는 시간
+    @Value("${download.progress.send-time-limit-millis:5000}")
+    private int sendTimeLimitMillis;
+    
+    // 연결별 미전송 메시지 한도
+    @Value("${download.progress.buffer-size-limit:64KB}")
+    private DataSize bufferSizeLimit;
+    
+    @Value("${download.progress.slow-consumer-policy:DROP}")
+    private OverflowStrategy slowConsumerPolicy;
+    
+    // 마지막 연결이 끊긴 뒤 다운로드를 취소하기까지 재연결을 기다리는 시간
+    @Value("${download.progress.reconnect-grace:PT30S}")
+    private Duration reconnectGrace;
+    
+    // HTTP 세션 ID -> 웹소켓 세션 ID 목록 (탭 여러 개 / 재연결 중에는 둘 이상)
+    private final ConcurrentHashMap<String, Set<String>> webSocketIdsByHttpSession = new ConcurrentHashMap<>();
+    // 웹소켓 세션 ID -> HTTP 세션 ID (연결 종료 시 O(1) 정리용 역방향 인덱스)
+    private final ConcurrentHashMap<String, String> httpSessionIdByWebSocket = new ConcurrentHashMap<>();
+    // HTTP 세션 ID -> 예약된 취소 (재연결하면 제거, 다시 끊기면 새 예약으로 교체)
+    private final ConcurrentHashMap<String, Object> pendingCloses = new ConcurrentHashMap<>();
     
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         String webSocketSessionId = session.getId();
-        sessions.put(webSocketSessionId, session);
+        Outbox outbox = new Outbox(session);
+        sessions.put(webSocketSessionId, outbox);
         
         // URL 쿼리 파라미터에서 HTTP 세션 ID 추출
-        String httpSessionId = extractHttpSessionId(session);
+        String httpSessionId = extractQueryParameter(session, "sessionId");
         log.info("WebSocket connection established - WS ID: {}, URI: {}, Query: {}", 
             webSocketSessionId, session.getUri(), session.getUri().getQuery());
         
         if (httpSessionId != null) {
-            httpToWebSocketSessionMapping.put(httpSessionId, webSocketSessionId);
+            if (pendingCloses.remove(httpSessionId) != null) {
+                log.info("HTTP session {} reconnected within grace period, downloads kept", httpSessionId);
+            }
+            httpSessionIdByWebSocket.put(webSocketSessionId, httpSessionId);
+            webSocketIdsByHttpSession.compute(httpSessionId, (id, webSocketIds) -> {
+                Set<String> ids = webSocketIds != null ? webSocketIds : ConcurrentHashMap.newKeySet();
+                ids.add(webSocketSessionId);
+                return ids;
+            });
             log.info("✅ Session mapping created: HTTP={} -> WS={}", httpSessionId, webSocketSessionId);
+            // 매핑 이후의 실시간 이벤트는 이미 대기열에 모이므로 재전송 이벤트와 합쳐도 누락 / 중복 없음
+            replayMissedEvents(httpSessionId, outbox, session);
         } else {
             log.warn("❌ Could not extract HTTP session ID from URI: {}", session.getUri());
         }
+        outbox.start();
         
-        // 매핑 상태 출력
-        debugSessionMappings();
+        // 매핑 상태 출력 (전체 매핑을 순회하므로 디버그 로그에서만)
+        if (log.isDebugEnabled()) {
+            debugSessionMappings();
+        }
     }
     
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         String webSocketSessionId = session.getId();
-        sessions.remove(webSocketSessionId);
+        Outbox outbox = sessions.remove(webSocketSessionId);
+        if (outbox != null) {
+            outbox.close();
+        }
+        
+        // 역방향 인덱스로 매핑 제거
+        String httpSessionId = httpSessionIdByWebSocket.remove(webSocketSessionId);
+        boolean lastConnection = false;
+        if (httpSessionId != null) {
+            boolean[] emptied = new boolean[1];
+            webSocketIdsByHttpSession.computeIfPresent(httpSessionId, (id, webSocketIds) -> {
+                webSocketIds.remove(webSocketSessionId);
+                emptied[0] = webSocketIds.isEmpty();
+                return emptied[0] ? null : webSocketIds;
+            });
+            lastConnection = emptied[0];
+        }
         
-        // 역방향 매핑도 제거
-        httpToWebSocketSessionMapping.entrySet().removeIf(entry -> 
-            entry.getValue().equals(webSocketSessionId));
+        log.info("WebSocket connection closed: {} ({})", webSocketSessionId, status);
         
-        log.info("WebSocket connection closed: {}", webSocketSessionId);
+        // 같은 HTTP 세션의 다른 연결(다른 탭, 새로고침 후 새 연결)이 남아 있으면 취소하지 않음
+        // 송신 한도 초과로 서버가 끊은 느린 클라이언트도 살아 있으므로 취소하지 않음
+        if (lastConnection && !CloseStatus.SESSION_NOT_RELIABLE.equals(status)) {
+            scheduleSessionClosed(httpSessionId);
+        }
     }
     
     /**
-     * 특정 세션에 진행률 전송 - HTTP 세션 ID 기반
+     * reconnect-grace 뒤에도 재연결이 없으면 다운로드 취소 이벤트 발행
      */
-    public void sendProgress(String httpSessionId, DownloadProgress progress) {
-        String webSocketSessionId = httpToWebSocketSessionMapping.get(httpSessionId);
-        if (webSocketSessionId != null) {
-            WebSocketSession session = sessions.get(webSocketSessionId);
-            if (session != null && session.isOpen()) {
-                try {
-                    String message = objectMapper.writeValueAsString(progress);
-                    session.sendMessage(new TextMessage(message));
-                    log.debug("✅ Progress sent to session {}: {}%", httpSessionId, progress.getProgressPercentage());
-                } catch (IOException e) {
-                    log.error("Failed to send progress to session: {}", httpSessionId, e);
-                    sessions.remove(webSocketSessionId);
-                    httpToWebSocketSessionMapping.remove(httpSessionId);
+    private void scheduleSessionClosed(String httpSessionId) {
+        Object token = new Object();
+        pendingCloses.put(httpSessionId, token);
+        CompletableFuture.delayedExecutor(reconnectGrace.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            // 재연결했거나 다시 끊겨 새로 예약된 경우는 건너뜀
+            if (pendingCloses.remove(httpSessionId, token)
+                    && !webSocketIdsByHttpSession.containsKey(httpSessionId)) {
+                eventPublisher.publishEvent(new ProgressSessionClosedEvent(httpSessionId));
+            }
+        });
+    }
+    
+    /**
+     * 특정 세션에 진행률 이벤트 전송 예약 - HTTP 세션 ID 기반 (해당 HTTP 세션의 모든 연결에 같은 메시지 전송)
+     * 연결이 없으면 재전송 버퍼에 남은 이벤트를 연결 시 받음
+     */
+    public void sendProgress(String httpSessionId, DownloadProgress event) {
+        if (httpSessionId == null) {
+            // 세션 없이 요청한 클라이언트 (SSE로만 구독)
+            log.debug("Progress without HTTP session not sent over WebSocket: {}", event.getRequestId());
+            return;
+        }
+        Set<String> webSocketIds = webSocketIdsByHttpSession.get(httpSessionId);
+        if (webSocketIds != null && !webSocketIds.isEmpty()) {
+            TextMessage message = toMessage(event);
+            if (message == null) {
+                return;
+            }
+            for (String webSocketSessionId : webSocketIds) {
+                Outbox outbox = sessions.get(webSocketSessionId);
+                if (outbox != null && outbox.session.isOpen()) {
+                    outbox.offer(event.getEventId(), message);
                 }
             }
+            log.debug("✅ Progress queued for session {}: {}%", httpSessionId, event.getProgressPercentage());
         } else {
-            log.warn("❌ No WebSocket session found for HTTP session: {} (connected sessions: {})", 
-                httpSessionId, sessions.size());
-            
-            // 임시 대안: 브로드캐스트하되 requestId로 클라이언트에서 필터링하도록 함
-            log.info("🔄 Falling back to broadcast for requestId: {}", progress.getRequestId());
-            broadcastProgress(progress);
-            
-            // 디버깅을 위해 현재 매핑 상태 출력
-            if (log.isDebugEnabled()) {
-                debugSessionMappings();
+            log.debug("No WebSocket session for HTTP session {}, event {} kept for replay ({})",
+                httpSessionId, event.getEventId(), event.getRequestId());
+        }
+    }
+    
+    /**
+     * 새 연결에 lastEventId 이후 놓친 이벤트 재전송
+     */
+    private void replayMissedEvents(String httpSessionId, Outbox target, WebSocketSession rawSession) {
+        long lastEventId = 0;
+        String lastEventIdParam = extractQueryParameter(rawSession, "lastEventId");
+        if (lastEventIdParam != null) {
+            try {
+                lastEventId = Long.parseLong(lastEventIdParam);
+            } catch (NumberFormatException e) {
+                log.warn("Invalid lastEventId ignored: {}", lastEventIdParam);
             }
         }
+        List<DownloadProgress> missed = progressReplayBuffer.eventsAfter(httpSessionId, lastEventId);
+        for (DownloadProgress event : missed) {
+            TextMessage message = toMessage(event);
+            if (message != null) {
+                target.offer(event.getEventId(), message);
+            }
+        }
+        if (!missed.isEmpty()) {
+            log.info("Replayed {} progress events to {} (after event {})", missed.size(), httpSessionId, lastEventId);
+        }
+    }
+    
+    /**
+     * 진행률 직렬화 (실패하면 null)
+     */
+    private TextMessage toMessage(DownloadProgress progress) {
+        try {
+            return new TextMessage(objectMapper.writeValueAsString(progress));
+        } catch (IOException e) {
+            log.error("Failed to serialize progress: {}", progress.getRequestId(), e);
+            return null;
+        }
     }
     
     /**
-     * 모든 활성 세션에 메시지 브로드캐스트
+     * 연결 하나의 송신 대기열 (eventId -> 메시지)
+     * 전송 작업은 연결마다 하나만 실행되며 대기열을 eventId 순으로 비움 (WebSocketSession.sendMessage는 동시 호출 불가)
+     * 한도를 넘은 연결은 SESSION_NOT_RELIABLE로 닫고 afterConnectionClosed에서 정리됨
      */
-    public void broadcastProgress(DownloadProgress progress) {
-        sessions.values().parallelStream()
-                .filter(WebSocketSession::isOpen)
-                .forEach(session -> {
-                    try {
-                        String message = objectMapper.writeValueAsString(progress);
-                        session.sendMessage(new TextMessage(message));
-                    } catch (IOException e) {
-                        log.error("Failed to broadcast to session: {}", session.getId(), e);
-                        sessions.remove(session.getId());
+    private class Outbox {
+        private final WebSocketSession session;
+        private final TreeMap<Long, TextMessage> pending = new TreeMap<>();
+        private long pendingBytes;
+        private long lastSentEventId;
+        // 진행 중인 전송의 시작 시각 (전송 중이 아니면 0)
+        private long sendStartedAt;
+        private boolean started;
+        private boolean draining;
+        private boolean closed;
+
+        Outbox(WebSocketSession session) {
+            this.session = session;
+        }
+
+        void offer(long eventId, TextMessage message) {
+            String violation;
+            synchronized (this) {
+                if (closed || eventId <= lastSentEventId || pending.containsKey(eventId)) {
+                    return;
+                }
+                violation = sendStartedAt > 0 && System.currentTimeMillis() - sendStartedAt > sendTimeLimitMillis
+                        ? "send time limit exceeded" : null;
+                if (violation == null) {
+                    pending.put(eventId, message);
+                    pendingBytes += message.getPayloadLength();
+                    while (pendingBytes > bufferSizeLimit.toBytes() && pending.size() > 1) {
+                        if (slowConsumerPolicy == OverflowStrategy.TERMINATE) {
+                            violation = "buffer size limit exceeded";
+                            break;
+                        }
+                        pendingBytes -= pending.pollFirstEntry().getValue().getPayloadLength();
                     }
-                });
+                }
+                if (violation == null) {
+                    schedule();
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            }
+            log.warn("Slow WebSocket consumer disconnected: {} ({})", session.getId(), violation);
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.debug("Failed to close slow WebSocket session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+
+        synchronized void start() {
+            started = true;
+            schedule();
+        }
+
+        synchronized void close() {
+            closed = true;
+            pending.clear();
+        }
+
+        private void schedule() {
+            if (!started || draining || closed || pending.isEmpty()) {
+                return;
+            }
+            draining = true;
+            try {
+                progressSendExecutor.execute(this::drain);
+            } catch (TaskRejectedException e) {
+                // 다음 메시지 때 다시 시도
+                draining = false;
+                log.warn("Progress send skipped for session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                TextMessage next;
+                synchronized (this) {
+                    Map.Entry<Long, TextMessage> entry = pending.pollFirstEntry();
+                    if (closed || entry == null) {
+                        draining = false;
+                        sendStartedAt = 0;
+                        return;
+                    }
+                    lastSentEventId = entry.getKey();
+                    pendingBytes -= entry.getValue().getPayloadLength();
+                    sendStartedAt = System.currentTimeMillis();
+                    next = entry.getValue();
+                }
+                try {
+                    session.sendMessage(next);
+                } catch (IOException | IllegalStateException e) {
+                    log.warn("Failed to send progress to session {}: {}", session.getId(), e.getMessage());
+                }
+            }
+        }
     }
     
     /**
-     * URL 쿼리 파라미터에서 HTTP 세션 ID 추출
+     * URL 쿼리 파라미터 값 추출 (없으면 null)
      */
-    private String extractHttpSessionId(WebSocketSession session) {
+    private String extractQueryParameter(WebSocketSession session, String name) {
         try {
             String query = session.getUri().getQuery();
-            log.debug("Extracting sessionId from query: {}", query);
+            log.debug("Extracting {} from query: {}", name, query);
             
-            if (query != null && query.contains("sessionId=")) {
-                // sessionId=value&other=value 또는 sessionId=value 형태 처리
-                String[] queryParts = query.split("&");
-                for (String part : queryParts) {
-                    if (part.startsWith("sessionId=")) {
-                        String sessionId = part.substring("sessionId=".length());
-                        String decoded = URLDecoder.decode(sessionId, StandardCharsets.UTF_8);
-                        log.debug("Extracted sessionId: {} -> {}", sessionId, decoded);
-                        return decoded;
+            if (query != null) {
+                // name=value&other=value 또는 name=value 형태 처리
+                String prefix = name + "=";
+                for (String part : query.split("&")) {
+                    if (part.startsWith(prefix)) {
+                        return URLDecoder.decode(part.substring(prefix.length()), StandardCharsets.UTF_8);
                     }
                 }
             }
             
-            log.debug("No sessionId found in query: {}", query);
+            log.debug("No {} found in query: {}", name, query);
             return null;
         } catch (Exception e) {
-            log.error("Error extracting HTTP session ID from WebSocket session", e);
+            log.error("Error extracting {} from WebSocket session", name, e);
             return null;
         }
     }
@@ -151,12 +369,12 @@ public class ProgressWebSocketHandler extends TextWebSocketHandler {
     public void debugSessionMappings() {
         log.info("=== WebSocket Session Mappings ===");
         log.info("Active WebSocket sessions: {}", sessions.size());
-        log.info("HTTP->WebSocket mappings: {}", httpToWebSocketSessionMapping.size());
-        httpToWebSocketSessionMapping.forEach((httpId, wsId) -> {
-            WebSocketSession wsSession = sessions.get(wsId);
-            boolean isOpen = wsSession != null && wsSession.isOpen();
+        log.info("HTTP->WebSocket mappings: {}", webSocketIdsByHttpSession.size());
+        webSocketIdsByHttpSession.forEach((httpId, webSocketIds) -> webSocketIds.forEach(wsId -> {
+            Outbox outbox = sessions.get(wsId);
+            boolean isOpen = outbox != null && outbox.session.isOpen();
             log.info("  {} -> {} (open: {})", httpId, wsId, isOpen);
-        });
+        }));
         log.info("================================");
     }
 }
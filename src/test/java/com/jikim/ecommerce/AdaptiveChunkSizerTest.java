@@ -0,0 +1,43 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.util.AdaptiveChunkSizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveChunkSizerTest {
+    
+    private static final long MILLIS = 1_000_000L;
+    
+    @Test
+    @DisplayName("목표 시간보다 빠르게 처리되면 청크 크기가 커지되 2배를 넘지 않는다")
+    void growsWhenFasterThanTarget() {
+        AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(10_000, 1_000, 100_000, 500);
+        
+        // 10,000건을 50ms에 처리 → 이상적인 크기는 100,000건이지만 2배로 제한
+        sizer.record(10_000, 50 * MILLIS);
+        
+        assertEquals(20_000, sizer.nextSize());
+    }
+    
+    @Test
+    @DisplayName("목표 시간보다 느리면 청크 크기가 줄어들고 최소값 아래로 내려가지 않는다")
+    void shrinksWhenSlowerThanTarget() {
+        AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(2_000, 1_000, 100_000, 500);
+        
+        sizer.record(2_000, 5_000 * MILLIS);
+        
+        assertEquals(1_000, sizer.nextSize());
+    }
+    
+    @Test
+    @DisplayName("마지막 청크처럼 요청보다 적게 읽힌 경우는 크기를 조정하지 않는다")
+    void ignoresPartialChunk() {
+        AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(10_000, 1_000, 100_000, 500);
+        
+        sizer.record(300, 1 * MILLIS);
+        
+        assertEquals(10_000, sizer.nextSize());
+    }
+}
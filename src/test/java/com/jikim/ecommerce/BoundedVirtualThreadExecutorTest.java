@@ -0,0 +1,60 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.util.BoundedVirtualThreadExecutor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedVirtualThreadExecutorTest {
+
+    @Test
+    @DisplayName("동시 실행 한도를 넘으면 즉시 거절하고 작업이 끝나면 다시 받는다")
+    void rejectsBeyondLimitAndReleasesPermits() throws InterruptedException {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test-", 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                finished.countDown();
+            }
+        };
+
+        executor.execute(blocking);
+        executor.execute(blocking);
+        assertEquals(2, executor.getActiveCount());
+        assertThrows(TaskRejectedException.class, () -> executor.execute(() -> { }));
+
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch ran = new CountDownLatch(1);
+        AtomicBoolean virtual = new AtomicBoolean();
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            // 종료된 작업의 permit 반납은 finally 이후이므로 받아질 때까지 재시도
+            while (true) {
+                try {
+                    executor.execute(() -> {
+                        virtual.set(Thread.currentThread().isVirtual());
+                        ran.countDown();
+                    });
+                    break;
+                } catch (TaskRejectedException e) {
+                    Thread.onSpinWait();
+                }
+            }
+            ran.await();
+        });
+        assertTrue(virtual.get());
+    }
+}
@@ -0,0 +1,62 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.util.DelimitedRowEncoder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DelimitedRowEncoderTest {
+
+    @Test
+    @DisplayName("CSV는 구분자/따옴표가 포함된 값을 따옴표로 감싸고 한글을 UTF-8로 인코딩한다")
+    void encodesCsvRow() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DelimitedRowEncoder encoder = new DelimitedRowEncoder(Channels.newChannel(out), ',', 64);
+
+        encoder.number(-42);
+        encoder.text("상품, \"특가\"");
+        encoder.empty();
+        encoder.dateTime(LocalDateTime.of(2025, 3, 7, 9, 5, 1));
+        encoder.text("😀");
+        encoder.endRow();
+        encoder.flush();
+
+        assertEquals("-42,\"상품, \"\"특가\"\"\",,2025-03-07 09:05:01,😀\r\n", out.toString(StandardCharsets.UTF_8));
+        assertEquals(out.size(), encoder.getBytesWritten());
+    }
+
+    @Test
+    @DisplayName("TSV는 값 안의 탭과 줄바꿈을 공백으로 치환한다")
+    void sanitizesTsvValues() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DelimitedRowEncoder encoder = new DelimitedRowEncoder(Channels.newChannel(out), '\t', 64);
+
+        encoder.text("a\tb\nc");
+        encoder.number(Long.MIN_VALUE);
+        encoder.endRow();
+        encoder.flush();
+
+        assertEquals("a b c\t-9223372036854775808\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("버퍼보다 긴 값도 나누어 내보내며 손실 없이 기록한다")
+    void flushesWhenBufferIsFull() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DelimitedRowEncoder encoder = new DelimitedRowEncoder(Channels.newChannel(out), ',', 8);
+        String longValue = "가나다라마바사아자차카타파하";
+
+        encoder.text(longValue);
+        encoder.endRow();
+        encoder.flush();
+
+        assertEquals(longValue + "\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,116 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.service.DownloadJobStore;
+import com.jikim.ecommerce.service.DownloadJobStore.JobStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DownloadJobStoreTest {
+
+    private static final Duration LEASE = Duration.ofSeconds(30);
+    // 이미 만료된 lease (노드가 죽은 상황)
+    private static final Duration EXPIRED = Duration.ofSeconds(-1);
+
+    private DownloadJobStore store;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:jobs-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        store = new DownloadJobStore(new JdbcTemplate(dataSource), new DataSourceTransactionManager(dataSource));
+        store.initialize();
+    }
+
+    @Test
+    @DisplayName("두 노드가 가져간 작업은 겹치지 않고 우선순위가 높은 작업부터 가져간다")
+    void claimsDistinctJobsByPriority() {
+        store.enqueue(request("large"), 1);
+        store.enqueue(request("small-1"), 0);
+        store.enqueue(request("small-2"), 0);
+
+        List<DownloadRequest> nodeA = store.claim("node-a", 2, LEASE, 3);
+        List<DownloadRequest> nodeB = store.claim("node-b", 2, LEASE, 3);
+
+        assertEquals(List.of("small-1", "small-2"), ids(nodeA));
+        assertEquals(List.of("large"), ids(nodeB));
+        assertTrue(store.claim("node-b", 2, LEASE, 3).isEmpty());
+        assertEquals(0, store.countQueued());
+    }
+
+    @Test
+    @DisplayName("lease가 만료된 작업은 다른 노드가 가져가고, 원래 노드의 결과 기록은 무시된다")
+    void recoversJobsOfDeadNode() {
+        store.enqueue(request("job"), 0);
+        DownloadRequest claimed = store.claim("dead", 1, EXPIRED, 3).get(0);
+        assertEquals(DownloadRequest.DownloadType.CSV, claimed.getDownloadType());
+        assertEquals("session", claimed.getSessionId());
+        assertEquals(100L, claimed.getMaxId());
+
+        assertEquals(List.of("job"), ids(store.claim("alive", 1, LEASE, 3)));
+        // 원래 노드는 lease 갱신 결과에서 작업이 빠진 것으로 lease를 잃었음을 앎
+        assertTrue(store.renewLeases("dead", LEASE).isEmpty());
+        assertTrue(store.requestCancel("job"));
+        assertEquals(Map.of("job", true), store.renewLeases("alive", LEASE));
+        assertFalse(store.complete("job", "dead", JobStatus.FAILED));
+        assertTrue(store.complete("job", "alive", JobStatus.COMPLETED));
+        assertEquals(JobStatus.COMPLETED, store.findStatuses(Set.of("job")).get("job"));
+    }
+
+    @Test
+    @DisplayName("시도 횟수를 다 쓴 작업은 다시 가져가지 않고 실패 처리한다")
+    void failsJobsAfterMaxAttempts() {
+        store.enqueue(request("poison"), 0);
+        store.claim("node-a", 1, EXPIRED, 2);
+        store.claim("node-b", 1, EXPIRED, 2);
+
+        assertTrue(store.claim("node-c", 1, LEASE, 2).isEmpty());
+        assertEquals(1, store.failExhausted(2));
+        assertEquals(JobStatus.FAILED, store.findStatuses(Set.of("poison")).get("poison"));
+    }
+
+    @Test
+    @DisplayName("정상 종료하는 노드의 작업은 바로 대기 상태로 돌아가고, 대기 중인 작업은 취소할 수 있다")
+    void releasesAndCancels() {
+        store.enqueue(request("running"), 0);
+        store.enqueue(request("waiting"), 1);
+        store.claim("node-a", 1, LEASE, 3);
+
+        assertEquals(1, store.releaseAll("node-a"));
+        assertEquals(2, store.countQueued());
+
+        assertTrue(store.cancelQueued("waiting").isPresent());
+        assertTrue(store.cancelQueued("waiting").isEmpty());
+        assertFalse(store.enqueue(request("running"), 0));
+        // 끝난 작업은 같은 requestId로 다시 등록 가능
+        assertTrue(store.enqueue(request("waiting"), 1));
+    }
+
+    private List<String> ids(List<DownloadRequest> requests) {
+        return requests.stream().map(DownloadRequest::getRequestId).toList();
+    }
+
+    private DownloadRequest request(String requestId) {
+        return DownloadRequest.builder()
+                .requestId(requestId)
+                .fileName(requestId + ".csv")
+                .downloadType(DownloadRequest.DownloadType.CSV)
+                .sessionId("session")
+                .estimatedRows(100)
+                .dataVersion("1-1")
+                .maxId(100L)
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.service.DownloadJobStore;
+import com.jikim.ecommerce.service.DownloadJobStore.JobStatus;
+import com.jikim.ecommerce.service.DurableDownloadQueue;
+import com.jikim.ecommerce.service.ExcelDownloadQueue;
+import com.jikim.ecommerce.service.ExportCancellation;
+import com.jikim.ecommerce.service.ExportJobCoalescer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class DurableDownloadQueueTest {
+
+    private DownloadJobStore jobStore;
+    private ExportCancellation exportCancellation;
+    private DurableDownloadQueue durableQueue;
+
+    @BeforeEach
+    void setUp() {
+        jobStore = mock(DownloadJobStore.class);
+        exportCancellation = new ExportCancellation();
+        ExcelDownloadQueue downloadQueue = new ExcelDownloadQueue(3);
+        ReflectionTestUtils.setField(downloadQueue, "smallExportRows", 100_000L);
+        durableQueue = new DurableDownloadQueue(jobStore, downloadQueue, mock(ExportJobCoalescer.class), exportCancellation);
+        ReflectionTestUtils.setField(durableQueue, "enabled", true);
+        ReflectionTestUtils.setField(durableQueue, "nodeId", "node-a");
+        ReflectionTestUtils.setField(durableQueue, "lease", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(durableQueue, "maxAttempts", 3);
+        ReflectionTestUtils.setField(durableQueue, "retention", Duration.ofHours(24));
+    }
+
+    @Test
+    @DisplayName("lease 갱신 결과에서 빠진 작업은 이 노드에서 멈추고 결과를 기록하지 않는다")
+    void stopsJobWhenLeaseIsLost() {
+        DownloadRequest request = request("lost");
+        when(jobStore.claim(eq("node-a"), anyInt(), any(), anyInt())).thenReturn(List.of(request));
+        durableQueue.poll();
+
+        when(jobStore.renewLeases(eq("node-a"), any())).thenReturn(Map.of());
+        durableQueue.renewLeases();
+
+        assertTrue(durableQueue.isHandedOff("lost"));
+        assertTrue(exportCancellation.isCancelled("lost"));
+        durableQueue.complete(request, JobStatus.CANCELLED);
+        verify(jobStore, never()).complete(anyString(), anyString(), any());
+        assertFalse(durableQueue.isHandedOff("lost"));
+    }
+
+    @Test
+    @DisplayName("종료 시 넘긴 작업은 실패로 기록하지 않고 lease를 유지한 작업의 원격 취소는 반영한다")
+    void handsOffOnShutdownAndAppliesRemoteCancel() {
+        DownloadRequest running = request("running");
+        DownloadRequest cancelled = request("cancelled");
+        when(jobStore.claim(eq("node-a"), anyInt(), any(), anyInt())).thenReturn(List.of(running, cancelled));
+        durableQueue.poll();
+
+        when(jobStore.renewLeases(eq("node-a"), any())).thenReturn(Map.of("running", false, "cancelled", true));
+        durableQueue.renewLeases();
+        assertFalse(exportCancellation.isCancelled("running"));
+        assertTrue(exportCancellation.isCancelled("cancelled"));
+        assertFalse(durableQueue.isHandedOff("cancelled"));
+
+        durableQueue.handOffAll();
+        durableQueue.complete(running, JobStatus.FAILED);
+        verify(jobStore, never()).complete(eq("running"), anyString(), any());
+    }
+
+    private DownloadRequest request(String requestId) {
+        return DownloadRequest.builder()
+                .requestId(requestId)
+                .fileName(requestId + ".csv")
+                .downloadType(DownloadRequest.DownloadType.CSV)
+                .sessionId("session")
+                .estimatedRows(100)
+                .build();
+    }
+}
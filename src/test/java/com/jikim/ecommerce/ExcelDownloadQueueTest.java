@@ -0,0 +1,160 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.service.ExcelDownloadQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExcelDownloadQueueTest {
+
+    private static final long SMALL = 1_000;
+    private static final long LARGE = 1_000_000;
+
+    private ExcelDownloadQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new ExcelDownloadQueue(3);
+        ReflectionTestUtils.setField(queue, "smallExportRows", 100_000L);
+    }
+
+    @Test
+    @DisplayName("같은 우선순위에서는 세션별로 번갈아 처리된다")
+    void roundRobinAcrossSessions() throws InterruptedException {
+        queue.enqueue(request("a1", "A", SMALL));
+        queue.enqueue(request("a2", "A", SMALL));
+        queue.enqueue(request("a3", "A", SMALL));
+        queue.enqueue(request("b1", "B", SMALL));
+
+        assertEquals(List.of("a1", "b1", "a2", "a3"), takeAll(4));
+    }
+
+    @Test
+    @DisplayName("소규모 요청이 대규모 요청보다 먼저 처리되지만 대규모 요청이 무한정 밀리지는 않는다")
+    void smallFirstWithoutStarvingLarge() throws InterruptedException {
+        queue.enqueue(request("large", "A", LARGE));
+        for (int i = 1; i <= 5; i++) {
+            queue.enqueue(request("small" + i, "B", SMALL));
+        }
+
+        assertEquals(List.of("small1", "small2", "small3", "large", "small4", "small5"), takeAll(6));
+    }
+
+    @Test
+    @DisplayName("큐 상태에 요청별 처리 순번과 예상 시작 시각이 포함된다")
+    void queueStatusReportsPositionAndStartTime() {
+        queue.enqueue(request("a1", "A", SMALL));
+        queue.enqueue(request("a2", "A", SMALL));
+        queue.enqueue(request("b1", "B", SMALL));
+
+        ExcelDownloadQueue.QueueStatus status = queue.getQueueStatus("A");
+
+        assertEquals(3, status.getQueueSize());
+        assertEquals(2, status.getQueuedRequests().size());
+        assertEquals("a1", status.getQueuedRequests().get(0).getRequestId());
+        assertEquals(1, status.getQueuedRequests().get(0).getPosition());
+        assertEquals("a2", status.getQueuedRequests().get(1).getRequestId());
+        assertEquals(3, status.getQueuedRequests().get(1).getPosition());
+        assertNotNull(status.getQueuedRequests().get(1).getEstimatedStartTime());
+    }
+
+    @Test
+    @DisplayName("세션 없이 조회하면 다른 요청 정보 없이 건수만 돌려준다")
+    void queueStatusWithoutSessionReportsCountsOnly() {
+        queue.enqueue(request("a1", "A", SMALL));
+        queue.enqueue(request("b1", "B", SMALL));
+
+        ExcelDownloadQueue.QueueStatus status = queue.getQueueStatus();
+
+        assertEquals(2, status.getQueueSize());
+        assertTrue(status.getQueuedRequests().isEmpty());
+    }
+
+    @Test
+    @DisplayName("같은 행 수라도 처리 비용이 큰 방식은 대규모 요청으로 분류된다")
+    void classifiesByDownloadTypeCost() {
+        long rows = 40_000;
+        DownloadRequest csv = DownloadRequest.builder()
+                .requestId("csv").sessionId("A").downloadType(DownloadRequest.DownloadType.CSV).estimatedRows(rows).build();
+        DownloadRequest paging = DownloadRequest.builder()
+                .requestId("paging").sessionId("A").downloadType(DownloadRequest.DownloadType.PAGING).estimatedRows(rows).build();
+
+        queue.enqueue(csv);
+        queue.enqueue(paging);
+
+        List<ExcelDownloadQueue.QueuedRequestStatus> queued = queue.getQueueStatus("A").getQueuedRequests();
+        assertEquals(ExcelDownloadQueue.PriorityClass.SMALL, queued.get(0).getPriority());
+        assertEquals(ExcelDownloadQueue.PriorityClass.LARGE, queued.get(1).getPriority());
+    }
+
+    private List<String> takeAll(int count) throws InterruptedException {
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            order.add(queue.take().getRequestId());
+        }
+        return order;
+    }
+
+    @Test
+    @DisplayName("취소된 대기 요청은 큐에서 빠지고 세션의 나머지 요청 순서는 유지된다")
+    void removesQueuedRequest() throws InterruptedException {
+        queue.enqueue(request("a1", "A", SMALL));
+        queue.enqueue(request("a2", "A", SMALL));
+        queue.enqueue(request("b1", "B", SMALL));
+
+        assertEquals("a1", queue.remove("a1").getRequestId());
+        assertNull(queue.remove("a1"));
+        assertEquals(List.of("a2"), queue.findRequestIds("A"));
+
+        assertEquals(List.of("a2", "b1"), takeAll(2));
+        assertTrue(queue.contains("a2"));
+        assertNull(queue.remove("a2"));
+    }
+
+    @Test
+    @DisplayName("처리가 끝난 요청에는 취소 표시를 남기지 않는다")
+    void runsActionOnlyWhileActive() throws InterruptedException {
+        List<String> marked = new ArrayList<>();
+        queue.enqueue(request("a1", "A", SMALL));
+        DownloadRequest taken = queue.take();
+        queue.acquireSlot(taken);
+
+        assertTrue(queue.runIfActive("a1", () -> marked.add("a1")));
+        queue.markCompleted("a1", true);
+        assertFalse(queue.runIfActive("a1", () -> marked.add("late")));
+        assertEquals(List.of("a1"), marked);
+    }
+
+    @Test
+    @DisplayName("취소 / 실패한 작업의 처리 시간은 예상 처리 속도에 반영하지 않는다")
+    void recordsDurationOnlyForSucceededJobs() throws InterruptedException {
+        queue.enqueue(request("a1", "A", LARGE));
+        queue.acquireSlot(queue.take());
+        long before = queue.estimateSecondsFor(LARGE);
+
+        queue.markCompleted("a1", false);
+        assertEquals(before, queue.estimateSecondsFor(LARGE));
+
+        queue.enqueue(request("a2", "A", LARGE));
+        queue.acquireSlot(queue.take());
+        queue.markCompleted("a2", true);
+        assertTrue(queue.estimateSecondsFor(LARGE) < before);
+    }
+
+    private DownloadRequest request(String requestId, String sessionId, long estimatedRows) {
+        return DownloadRequest.builder()
+                .requestId(requestId)
+                .fileName(requestId + ".xlsx")
+                .downloadType(DownloadRequest.DownloadType.STREAMING)
+                .sessionId(sessionId)
+                .estimatedRows(estimatedRows)
+                .build();
+    }
+}
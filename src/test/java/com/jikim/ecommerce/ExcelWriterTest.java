@@ -0,0 +1,58 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.entity.SampleData;
+import com.jikim.ecommerce.service.ExportDefinitionRegistry;
+import com.jikim.ecommerce.util.ExcelWriter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileInputStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExcelWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("시트당 최대 행 수를 넘으면 헤더를 포함한 다음 시트로 이어서 기록한다")
+    void rollsOverToNextSheet() throws Exception {
+        List<SampleData> rows = new ArrayList<>();
+        for (long i = 1; i <= 7; i++) {
+            rows.add(SampleData.builder()
+                    .id(i)
+                    .name("name" + i)
+                    .price(1000)
+                    .category("A")
+                    .createdAt(LocalDateTime.of(2025, 1, 1, 0, 0))
+                    .build());
+        }
+        String filePath = tempDir.resolve("rollover.xlsx").toString();
+
+        int written = ExcelWriter.writeExcelStreaming(filePath,
+                new ExportDefinitionRegistry().get(ExportDefinitionRegistry.SAMPLE_DATA), rows.iterator(), 3, processed -> { });
+
+        assertEquals(7, written);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new FileInputStream(filePath))) {
+            assertEquals(3, workbook.getNumberOfSheets());
+            assertEquals("Sample Data (2)", workbook.getSheetName(1));
+
+            Sheet last = workbook.getSheetAt(2);
+            assertEquals("ID", last.getRow(0).getCell(0).getStringCellValue());
+            assertEquals(7.0, last.getRow(1).getCell(0).getNumericCellValue());
+            // 날짜는 FastExcel 방식과 같은 엑셀 날짜 셀
+            assertTrue(DateUtil.isCellDateFormatted(last.getRow(1).getCell(5)));
+            assertEquals(LocalDateTime.of(2025, 1, 1, 0, 0), last.getRow(1).getCell(5).getLocalDateTimeCellValue());
+            assertEquals(1, last.getLastRowNum());
+        }
+    }
+}
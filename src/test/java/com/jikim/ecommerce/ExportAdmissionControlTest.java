@@ -0,0 +1,91 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.exception.ExportRejectedException;
+import com.jikim.ecommerce.service.DurableDownloadQueue;
+import com.jikim.ecommerce.service.ExcelDownloadQueue;
+import com.jikim.ecommerce.service.ExportAdmissionControl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class ExportAdmissionControlTest {
+
+    private ExcelDownloadQueue queue;
+    private double heapUsedRatio;
+    private ExportAdmissionControl admission;
+
+    @BeforeEach
+    void setUp() {
+        queue = new ExcelDownloadQueue(3);
+        ReflectionTestUtils.setField(queue, "smallExportRows", 100_000L);
+        admission = new ExportAdmissionControl(queue, mock(DurableDownloadQueue.class)) {
+            @Override
+            protected double heapUsedRatio() {
+                return heapUsedRatio;
+            }
+        };
+        ReflectionTestUtils.setField(admission, "maxQueueDepth", 2);
+        ReflectionTestUtils.setField(admission, "maxRowsInFlight", 1_000_000L);
+        ReflectionTestUtils.setField(admission, "maxHeapUsedRatio", 0.85);
+    }
+
+    @Test
+    @DisplayName("대기 요청 수가 한도에 도달하면 Retry-After와 함께 거절한다")
+    void rejectsWhenQueueIsFull() {
+        queue.enqueue(request("r1", 10));
+        queue.enqueue(request("r2", 10));
+
+        ExportRejectedException e = assertThrows(ExportRejectedException.class,
+                () -> admission.admit(request("r3", 10)));
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+    }
+
+    @Test
+    @DisplayName("처리 대기 행 수가 한도를 넘으면 거절하지만 비어 있으면 큰 요청도 받는다")
+    void limitsRowsInFlight() {
+        assertDoesNotThrow(() -> admission.admit(request("huge", 5_000_000)).release(false));
+
+        queue.enqueue(request("r1", 900_000));
+        assertThrows(ExportRejectedException.class, () -> admission.admit(request("r2", 200_000)));
+        assertDoesNotThrow(() -> admission.admit(request("r3", 50_000)));
+    }
+
+    @Test
+    @DisplayName("수용한 요청은 큐에 등록되기 전에도 자리를 차지하고, 반납하면 다음 요청이 자리를 얻는다")
+    void reservesQueueSlotUntilReleased() {
+        ExportAdmissionControl.Permit first = admission.admit(request("r1", 10));
+        admission.admit(request("r2", 10));
+        // 두 요청 모두 아직 큐에 없지만 한도(2)를 넘는 세 번째 요청은 거절
+        assertThrows(ExportRejectedException.class, () -> admission.admit(request("r3", 10)));
+
+        first.release(false);
+        first.release(false);
+        assertDoesNotThrow(() -> admission.admit(request("r3", 10)));
+        assertThrows(ExportRejectedException.class, () -> admission.admit(request("r4", 10)));
+    }
+
+    @Test
+    @DisplayName("GC 직후 힙 사용률이 한도를 넘으면 거절한다")
+    void rejectsWhenHeapIsLow() {
+        heapUsedRatio = 0.9;
+        assertThrows(ExportRejectedException.class, () -> admission.admit(request("r1", 10)));
+
+        heapUsedRatio = 0.5;
+        assertDoesNotThrow(() -> admission.admit(request("r1", 10)));
+    }
+
+    private DownloadRequest request(String requestId, long estimatedRows) {
+        return DownloadRequest.builder()
+                .requestId(requestId)
+                .fileName(requestId + ".xlsx")
+                .downloadType(DownloadRequest.DownloadType.STREAMING)
+                .sessionId("session")
+                .estimatedRows(estimatedRows)
+                .build();
+    }
+}
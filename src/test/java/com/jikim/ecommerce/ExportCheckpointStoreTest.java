@@ -0,0 +1,97 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.service.ExportCheckpointStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportCheckpointStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ExportCheckpointStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ExportCheckpointStore();
+        ReflectionTestUtils.setField(store, "checkpointDirectory", tempDir.resolve("checkpoints").toString());
+        ReflectionTestUtils.setField(store, "ttl", Duration.ofHours(1));
+    }
+
+    @Test
+    @DisplayName("다시 열면 확정된 파트의 마지막 id와 행 수부터 이어가고 확정되지 않은 임시 파트는 버린다")
+    void reopenRestoresLastCommittedPart() throws IOException {
+        DownloadRequest request = request("req-1");
+        ExportCheckpointStore.Checkpoint checkpoint = store.open(request);
+        assertFalse(checkpoint.isStarted());
+
+        commit(checkpoint, "header\n", 0, 0);
+        commit(checkpoint, "1\n2\n", 2, 2);
+        // 기록 도중 중단된 파트
+        Files.writeString(store.newPartFile(checkpoint), "3\n");
+
+        ExportCheckpointStore.Checkpoint resumed = store.open(request);
+        assertTrue(resumed.isStarted());
+        assertEquals(2, resumed.getLastId());
+        assertEquals(2, resumed.getProcessedRows());
+        assertEquals(2, resumed.getNextSequence());
+
+        commit(resumed, "3\n4\n", 4, 2);
+        Path target = tempDir.resolve("result.csv");
+        store.assemble(resumed, target);
+
+        assertEquals("header\n1\n2\n3\n4\n", Files.readString(target));
+        assertTrue(store.load("req-1").isEmpty());
+    }
+
+    @Test
+    @DisplayName("재시작 시 남아 있는 체크포인트의 요청 정보를 복원한다")
+    void findsPendingRequests() throws IOException {
+        store.open(request("req-2"));
+
+        List<DownloadRequest> pending = store.findPending();
+
+        assertEquals(1, pending.size());
+        DownloadRequest restored = pending.get(0);
+        assertEquals("req-2", restored.getRequestId());
+        assertEquals("sample_data_csv_req-2.csv.gz", restored.getFileName());
+        assertEquals(DownloadRequest.DownloadType.CSV, restored.getDownloadType());
+        assertEquals("session-1", restored.getSessionId());
+        // 재개해도 요청 시점 max(id)까지만 조회
+        assertEquals(4L, restored.getMaxId());
+        assertTrue(restored.isGzip());
+    }
+
+    private void commit(ExportCheckpointStore.Checkpoint checkpoint, String content, long lastId, long rows)
+            throws IOException {
+        Path part = store.newPartFile(checkpoint);
+        Files.write(part, content.getBytes(StandardCharsets.UTF_8));
+        store.commitPart(checkpoint, part, lastId, rows);
+    }
+
+    private DownloadRequest request(String requestId) {
+        return DownloadRequest.builder()
+                .requestId(requestId)
+                .fileName("sample_data_csv_" + requestId + ".csv.gz")
+                .downloadType(DownloadRequest.DownloadType.CSV)
+                .sessionId("session-1")
+                .estimatedRows(4)
+                .dataVersion("4-4")
+                .maxId(4L)
+                .gzip(true)
+                .build();
+    }
+}
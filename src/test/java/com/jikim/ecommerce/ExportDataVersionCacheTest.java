@@ -0,0 +1,50 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.service.ExportDataVersionCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportDataVersionCacheTest {
+
+    private ExportDataVersionCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new ExportDataVersionCache();
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("TTL 안에서는 집계를 다시 실행하지 않고 무효화하면 다시 집계한다")
+    void reusesSnapshotUntilInvalidated() {
+        assertEquals("10-10-1", cache.get("sample_data", this::load).dataVersion());
+        assertEquals("10-10-1", cache.get("sample_data", this::load).dataVersion());
+        assertEquals(1, loads.get());
+
+        cache.invalidate("sample_data");
+        assertEquals("10-10-2", cache.get("sample_data", this::load).dataVersion());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("TTL이 지나면 다시 집계한다")
+    void reloadsAfterTtl() {
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ZERO);
+
+        cache.get("products", this::load);
+        cache.get("products", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    private ExportDataVersionCache.Snapshot load() {
+        return new ExportDataVersionCache.Snapshot(10, 10, "10-10-" + loads.incrementAndGet());
+    }
+}
@@ -0,0 +1,52 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.service.ExportDefinitionRegistry;
+import com.jikim.ecommerce.util.ExportDefinition;
+import com.jikim.ecommerce.util.FastExcelRowEncoder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportDefinitionRegistryTest {
+
+    private final ExportDefinitionRegistry registry = new ExportDefinitionRegistry();
+
+    @Test
+    @DisplayName("샘플/주문/상품/장바구니 정의를 대소문자 구분 없이 조회하고 모르는 이름은 거부한다")
+    void looksUpDefinitions() {
+        assertEquals(Set.of("sample_data", "orders", "products", "carts"), registry.getNames());
+        assertEquals("orders", registry.get("ORDERS").getName());
+        assertThrows(IllegalArgumentException.class, () -> registry.get("reviews"));
+    }
+
+    @Test
+    @DisplayName("각 정의의 컬럼 이름은 중복되지 않고 모두 프로젝션 쿼리에 나타난다")
+    void columnsMatchProjection() {
+        for (String name : registry.getNames()) {
+            ExportDefinition definition = registry.get(name);
+            List<ExportDefinition.Column> columns = definition.getColumns();
+            Set<String> unique = new HashSet<>();
+            for (ExportDefinition.Column column : columns) {
+                assertTrue(unique.add(column.name()), name + " duplicate column " + column.name());
+                assertTrue(definition.getQuery().contains(column.name()), name + " missing column " + column.name());
+            }
+            assertNotNull(definition.newEncoder());
+        }
+    }
+
+    @Test
+    @DisplayName("쿼리나 컬럼이 빠진 정의는 만들 수 없다")
+    void rejectsIncompleteDefinition() {
+        assertThrows(IllegalStateException.class, () -> ExportDefinition.builder("empty")
+                .column("id", "ID", FastExcelRowEncoder.ColumnType.LONG)
+                .build());
+        assertThrows(IllegalStateException.class, () -> ExportDefinition.builder("empty")
+                .query("SELECT 1").countQuery("SELECT 1").versionQuery("SELECT 1")
+                .build());
+    }
+}
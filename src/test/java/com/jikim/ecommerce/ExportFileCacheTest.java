@@ -0,0 +1,109 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.service.ExportFileCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportFileCacheTest {
+
+    @TempDir
+    Path downloadDir;
+
+    private ExportFileCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ExportFileCache();
+        ReflectionTestUtils.setField(cache, "downloadDirectory", downloadDir.toString());
+        ReflectionTestUtils.setField(cache, "maxTotalSize", DataSize.ofBytes(250));
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofHours(1));
+    }
+
+    @Test
+    @DisplayName("데이터 버전이 같으면 캐시된 파일을 반환하고 다르면 반환하지 않는다")
+    void hitOnlyForSameDataVersion() throws IOException {
+        writeFile("a.xlsx", 100);
+        cache.put(key("1-1"), "a.xlsx");
+
+        assertEquals("a.xlsx", cache.lookup(key("1-1")));
+        assertNull(cache.lookup(key("2-2")));
+    }
+
+    @Test
+    @DisplayName("전체 크기 상한을 넘으면 가장 오래 사용하지 않은 파일이 삭제된다")
+    void evictsLeastRecentlyUsedOverCapacity() throws IOException {
+        writeFile("a.xlsx", 100);
+        writeFile("b.xlsx", 100);
+        writeFile("c.xlsx", 100);
+        cache.put(key("a"), "a.xlsx");
+        cache.put(key("b"), "b.xlsx");
+        cache.lookup(key("a"));           // a를 최근 사용으로 갱신
+        cache.put(key("c"), "c.xlsx");    // 300 bytes > 250 → b 제거
+
+        assertNull(cache.lookup(key("b")));
+        assertFalse(Files.exists(downloadDir.resolve("b.xlsx")));
+        assertEquals("a.xlsx", cache.lookup(key("a")));
+        assertEquals("c.xlsx", cache.lookup(key("c")));
+        assertEquals(200, cache.getTotalSize());
+    }
+
+    @Test
+    @DisplayName("완료 알림을 보낸 지 reuse-window가 지나지 않은 파일은 크기 상한을 넘어도 삭제하지 않는다")
+    void keepsRecentlyServedFilesOverCapacity() throws IOException {
+        ReflectionTestUtils.setField(cache, "reuseWindowSeconds", 60L);
+        writeFile("a.xlsx", 200);
+        writeFile("b.xlsx", 100);
+        cache.put(key("a"), "a.xlsx");
+        cache.put(key("b"), "b.xlsx");    // 300 bytes > 250 이지만 a는 방금 알린 파일
+
+        assertTrue(Files.exists(downloadDir.resolve("a.xlsx")));
+        assertEquals(300, cache.getTotalSize());
+
+        // 기간이 지나면 다음 정리 때 LRU 순으로 삭제
+        ReflectionTestUtils.setField(cache, "reuseWindowSeconds", 0L);
+        cache.sweep();
+        assertFalse(Files.exists(downloadDir.resolve("a.xlsx")));
+        assertEquals("b.xlsx", cache.lookup(key("b")));
+        assertEquals(100, cache.getTotalSize());
+    }
+
+    @Test
+    @DisplayName("TTL이 지난 캐시 파일은 조회되지 않고 삭제된다")
+    void expiresAfterTtl() throws IOException {
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ZERO);
+        writeFile("a.xlsx", 10);
+        cache.put(key("1-1"), "a.xlsx");
+
+        sleepQuietly();
+        assertNull(cache.lookup(key("1-1")));
+        assertFalse(Files.exists(downloadDir.resolve("a.xlsx")));
+    }
+
+    private String key(String dataVersion) {
+        return ExportFileCache.cacheKey(DownloadRequest.DownloadType.STREAMING, "id,name", dataVersion);
+    }
+
+    private void writeFile(String name, int size) throws IOException {
+        Files.write(downloadDir.resolve(name), new byte[size]);
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.dto.DownloadProgress;
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.service.ExportJobCoalescer;
+import com.jikim.ecommerce.websocket.ProgressHub;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ExportJobCoalescerTest {
+
+    private ProgressHub hub;
+    private ExportJobCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        hub = mock(ProgressHub.class);
+        coalescer = new ExportJobCoalescer(hub);
+        ReflectionTestUtils.setField(coalescer, "reuseWindowSeconds", 60L);
+    }
+
+    @Test
+    @DisplayName("같은 타입과 데이터 버전의 요청은 진행 중인 작업에 합류하여 같은 완료 URL을 받는다")
+    void attachesIdenticalRequest() {
+        DownloadRequest leader = request("leader", "s1", DownloadRequest.DownloadType.STREAMING, "100-100");
+        DownloadRequest follower = request("follower", "s2", DownloadRequest.DownloadType.STREAMING, "100-100");
+
+        assertFalse(coalescer.attachOrRegister(leader));
+        assertTrue(coalescer.attachOrRegister(follower));
+
+        coalescer.sendProgress(leader, DownloadProgress.completed("leader", "/api/download/file/a.xlsx"));
+
+        ArgumentCaptor<DownloadProgress> captor = ArgumentCaptor.forClass(DownloadProgress.class);
+        verify(hub).publish(eq("s2"), captor.capture(), eq(leader));
+        DownloadProgress last = captor.getValue();
+        assertEquals("follower", last.getRequestId());
+        assertEquals("COMPLETED", last.getStatus());
+        assertEquals("/api/download/file/a.xlsx", last.getDownloadUrl());
+    }
+
+    @Test
+    @DisplayName("데이터 버전이 다르거나 이전 작업이 실패하면 새 작업으로 등록된다")
+    void registersNewJobWhenVersionDiffersOrFailed() {
+        DownloadRequest first = request("r1", "s1", DownloadRequest.DownloadType.STREAMING, "100-100");
+        DownloadRequest newerData = request("r2", "s1", DownloadRequest.DownloadType.STREAMING, "101-101");
+
+        assertFalse(coalescer.attachOrRegister(first));
+        assertFalse(coalescer.attachOrRegister(newerData));
+
+        coalescer.sendProgress(first, DownloadProgress.failed("r1", "boom"));
+        assertFalse(coalescer.attachOrRegister(request("r3", "s1", DownloadRequest.DownloadType.STREAMING, "100-100")));
+    }
+
+    @Test
+    @DisplayName("병합된 요청자가 남아 있으면 대표 요청을 취소해도 작업은 계속되고, 마지막 요청자가 취소하면 작업을 멈춘다")
+    void stopsJobOnlyWhenNoRequesterRemains() {
+        DownloadRequest leader = request("leader", "s1", DownloadRequest.DownloadType.STREAMING, "100-100");
+        DownloadRequest follower = request("follower", "s2", DownloadRequest.DownloadType.STREAMING, "100-100");
+        coalescer.attachOrRegister(leader);
+        coalescer.attachOrRegister(follower);
+
+        ExportJobCoalescer.Detachment leaderCancel = coalescer.detach("leader");
+        assertTrue(leaderCancel.found());
+        assertNull(leaderCancel.jobToStop());
+
+        // 취소한 대표 요청자에게는 더 이상 진행률을 보내지 않음
+        clearInvocations(hub);
+        coalescer.sendProgress(leader, DownloadProgress.processing("leader", 100, 10));
+        verify(hub, never()).publish(eq("s1"), any(), any());
+        verify(hub).publish(eq("s2"), any(), eq(leader));
+
+        ExportJobCoalescer.Detachment followerCancel = coalescer.detach("follower");
+        assertTrue(followerCancel.found());
+        assertEquals("leader", followerCancel.jobToStop());
+        assertFalse(coalescer.detach("unknown").found());
+    }
+
+    private DownloadRequest request(String requestId, String sessionId,
+                                    DownloadRequest.DownloadType type, String dataVersion) {
+        return DownloadRequest.builder()
+                .requestId(requestId)
+                .fileName(requestId + ".xlsx")
+                .downloadType(type)
+                .sessionId(sessionId)
+                .dataVersion(dataVersion)
+                .build();
+    }
+}
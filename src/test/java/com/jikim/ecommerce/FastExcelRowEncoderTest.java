@@ -0,0 +1,126 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.util.FastExcelRowEncoder;
+import com.jikim.ecommerce.util.RollingWorksheet;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.dhatim.fastexcel.Workbook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class FastExcelRowEncoderTest {
+
+    @Test
+    @DisplayName("숫자는 숫자 셀로, 날짜는 날짜 형식이 적용된 엑셀 날짜 셀로 기록하고 컬럼 위치는 한 번만 조회한다")
+    void writesTypedCells() throws Exception {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 7, 9, 5, 1);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.findColumn("id")).thenReturn(1);
+        when(rs.findColumn("name")).thenReturn(2);
+        when(rs.findColumn("price")).thenReturn(3);
+        when(rs.findColumn("created_at")).thenReturn(4);
+        when(rs.getLong(1)).thenReturn(7L);
+        when(rs.getString(2)).thenReturn("상품");
+        when(rs.getDouble(3)).thenReturn(1500.0);
+        when(rs.getObject(4, LocalDateTime.class)).thenReturn(createdAt);
+
+        FastExcelRowEncoder encoder = FastExcelRowEncoder.builder()
+                .column("id", "ID", FastExcelRowEncoder.ColumnType.LONG)
+                .column("name", "이름", FastExcelRowEncoder.ColumnType.TEXT)
+                .column("price", "가격", FastExcelRowEncoder.ColumnType.DOUBLE)
+                .column("created_at", "생성일시", FastExcelRowEncoder.ColumnType.DATE_TIME)
+                .build();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Workbook workbook = new Workbook(out, "Test", "1.0");
+        RollingWorksheet sheets = new RollingWorksheet(
+                workbook, "Data", 100, encoder::writeHeader, encoder::applyPendingStyles);
+        for (int i = 0; i < 3; i++) {
+            int rowIndex = sheets.nextRow();
+            encoder.writeRow(sheets.current(), rowIndex, rs);
+        }
+        sheets.finish();
+        workbook.finish();
+
+        verify(rs, times(1)).findColumn("id");
+        verify(rs, never()).getBigDecimal(anyInt());
+
+        try (XSSFWorkbook result = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Row row = result.getSheetAt(0).getRow(3);
+            assertEquals(7.0, row.getCell(0).getNumericCellValue());
+            assertEquals("상품", row.getCell(1).getStringCellValue());
+            assertEquals(1500.0, row.getCell(2).getNumericCellValue());
+
+            Cell dateCell = row.getCell(3);
+            assertEquals(CellType.NUMERIC, dateCell.getCellType());
+            assertTrue(DateUtil.isCellDateFormatted(dateCell));
+            assertEquals(createdAt, dateCell.getLocalDateTimeCellValue());
+        }
+    }
+
+    @Test
+    @DisplayName("미리 읽어 둔 행도 ResultSet 행과 같은 셀 형식으로 기록하고 null 컬럼은 비워 둔다")
+    void writesRowValuesWithSameCellTypes() throws Exception {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 7, 9, 5, 1);
+        FastExcelRowEncoder encoder = FastExcelRowEncoder.builder()
+                .column("id", "ID", FastExcelRowEncoder.ColumnType.LONG)
+                .column("price", "가격", FastExcelRowEncoder.ColumnType.DOUBLE)
+                .column("created_at", "생성일시", FastExcelRowEncoder.ColumnType.DATE_TIME)
+                .build();
+        FastExcelRowEncoder.RowValues values = new FastExcelRowEncoder.RowValues() {
+            @Override
+            public boolean isNull(int column) {
+                return column == 1;
+            }
+
+            @Override
+            public long getLong(int column) {
+                return 7L;
+            }
+
+            @Override
+            public double getDouble(int column) {
+                throw new AssertionError("null column must not be read");
+            }
+
+            @Override
+            public String getString(int column) {
+                throw new AssertionError("no text column");
+            }
+
+            @Override
+            public LocalDateTime getDateTime(int column) {
+                return createdAt;
+            }
+        };
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Workbook workbook = new Workbook(out, "Test", "1.0");
+        RollingWorksheet sheets = new RollingWorksheet(
+                workbook, "Data", 100, encoder::writeHeader, encoder::applyPendingStyles);
+        int rowIndex = sheets.nextRow();
+        encoder.writeRow(sheets.current(), rowIndex, values);
+        sheets.finish();
+        workbook.finish();
+
+        try (XSSFWorkbook result = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Row row = result.getSheetAt(0).getRow(1);
+            assertEquals(7.0, row.getCell(0).getNumericCellValue());
+            assertNull(row.getCell(1));
+            assertTrue(DateUtil.isCellDateFormatted(row.getCell(2)));
+            assertEquals(createdAt, row.getCell(2).getLocalDateTimeCellValue());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.dto.DownloadProgress;
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.service.ProgressRateTracker;
+import com.jikim.ecommerce.websocket.ProgressHub;
+import com.jikim.ecommerce.websocket.ProgressReplayBuffer;
+import com.jikim.ecommerce.websocket.ProgressSseEmitters;
+import com.jikim.ecommerce.websocket.ProgressWebSocketHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ProgressHubTest {
+
+    private ProgressWebSocketHandler handler;
+    private ProgressSseEmitters sseEmitters;
+    private ProgressReplayBuffer replayBuffer;
+    private ProgressRateTracker rateTracker;
+    private ProgressHub hub;
+
+    @BeforeEach
+    void setUp() {
+        handler = mock(ProgressWebSocketHandler.class);
+        sseEmitters = mock(ProgressSseEmitters.class);
+        rateTracker = mock(ProgressRateTracker.class);
+        replayBuffer = new ProgressReplayBuffer();
+        ReflectionTestUtils.setField(replayBuffer, "capacity", 16);
+        ReflectionTestUtils.setField(replayBuffer, "ttl", Duration.ofMinutes(10));
+        hub = new ProgressHub(handler, replayBuffer, sseEmitters, rateTracker);
+    }
+
+    @Test
+    @DisplayName("flush 사이에 들어온 진행률은 요청별 최신 값 하나만 전송한다")
+    void sendsOnlyLatestProgressPerRequest() {
+        for (int processed = 100; processed <= 1000; processed += 100) {
+            hub.publish("s1", DownloadProgress.processing("r1", 1000, processed));
+        }
+        hub.publish("s2", DownloadProgress.processing("r2", 10, 5));
+
+        hub.flush();
+
+        ArgumentCaptor<DownloadProgress> captor = ArgumentCaptor.forClass(DownloadProgress.class);
+        verify(handler).sendProgress(eq("s1"), captor.capture());
+        assertEquals(1000, captor.getValue().getProcessedCount());
+        verify(handler).sendProgress(eq("s2"), any());
+
+        hub.flush();
+        verifyNoMoreInteractions(handler);
+    }
+
+    @Test
+    @DisplayName("WebSocket과 SSE 구독자는 eventId가 붙은 같은 이벤트를 받는다")
+    void sendsSameEventToWebSocketAndSse() {
+        hub.publish(null, DownloadProgress.processing("r1", 1000, 100));
+        hub.publish("s1", DownloadProgress.processing("r2", 1000, 200));
+
+        hub.flush();
+
+        ArgumentCaptor<DownloadProgress> webSocket = ArgumentCaptor.forClass(DownloadProgress.class);
+        ArgumentCaptor<DownloadProgress> sse = ArgumentCaptor.forClass(DownloadProgress.class);
+        verify(handler).sendProgress(eq("s1"), webSocket.capture());
+        verify(sseEmitters, times(2)).send(sse.capture());
+        assertTrue(webSocket.getValue().getEventId() > 0);
+        assertTrue(sse.getAllValues().contains(webSocket.getValue()));
+    }
+
+    @Test
+    @DisplayName("전송 전의 완료 알림은 뒤늦게 도착한 진행 중 값으로 덮어쓰지 않는다")
+    void keepsTerminalProgress() {
+        hub.publish("s1", DownloadProgress.completed("r1", "/api/download/file/a.xlsx"));
+        hub.publish("s1", DownloadProgress.processing("r1", 1000, 900));
+
+        hub.flush();
+
+        ArgumentCaptor<DownloadProgress> captor = ArgumentCaptor.forClass(DownloadProgress.class);
+        verify(handler).sendProgress(eq("s1"), captor.capture());
+        assertEquals("COMPLETED", captor.getValue().getStatus());
+    }
+
+    @Test
+    @DisplayName("병합된 요청자들의 진행률은 flush 때 대표 작업 기준으로 한 번만 측정해 같은 속도를 받는다")
+    void measuresOncePerSourceOnFlush() {
+        DownloadRequest leader = DownloadRequest.builder().requestId("leader").sessionId("s1").build();
+        when(rateTracker.measure(eq(leader), any())).thenAnswer(invocation ->
+                invocation.<DownloadProgress>getArgument(1).toBuilder().rowsPerSecond(500).bytesWritten(1234).build());
+
+        hub.publish("s1", DownloadProgress.processing("leader", 1000, 100), leader);
+        hub.publish("s2", DownloadProgress.processing("follower", 1000, 100), leader);
+        // 내보내기 스레드의 publish에서는 측정하지 않음
+        verifyNoInteractions(rateTracker);
+
+        hub.flush();
+
+        verify(rateTracker, times(1)).measure(eq(leader), any());
+        ArgumentCaptor<DownloadProgress> follower = ArgumentCaptor.forClass(DownloadProgress.class);
+        verify(handler).sendProgress(eq("s2"), follower.capture());
+        assertEquals("follower", follower.getValue().getRequestId());
+        assertEquals(500, follower.getValue().getRowsPerSecond());
+        assertEquals(1234, follower.getValue().getBytesWritten());
+    }
+
+    @Test
+    @DisplayName("요청 소유 세션은 첫 flush 전에도 조회된다")
+    void registersOwnerOnPublish() {
+        hub.publish("s1", DownloadProgress.queued("r1"));
+
+        assertEquals("s1", replayBuffer.ownerOf("r1").orElseThrow());
+        assertTrue(replayBuffer.ownerOf("unknown").isEmpty());
+        assertTrue(replayBuffer.eventsForRequest("r1", 0).isEmpty());
+    }
+}
@@ -0,0 +1,60 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.dto.DownloadProgress;
+import com.jikim.ecommerce.dto.DownloadRequest;
+import com.jikim.ecommerce.service.ProgressRateTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProgressRateTrackerTest {
+
+    @TempDir
+    Path downloads;
+
+    private ProgressRateTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new ProgressRateTracker();
+        ReflectionTestUtils.setField(tracker, "downloadDirectory", downloads.toString());
+        ReflectionTestUtils.setField(tracker, "checkpointDirectory", downloads.resolve(".checkpoints").toString());
+        ReflectionTestUtils.setField(tracker, "smoothing", 0.5);
+        ReflectionTestUtils.setField(tracker, "minSampleMillis", 1L);
+    }
+
+    @Test
+    @DisplayName("처리 중 진행률에 이동 평균 속도, 기록한 바이트, 남은 예상 시간을 채운다")
+    void measuresRateBytesAndEta() throws Exception {
+        DownloadRequest request = DownloadRequest.builder()
+                .requestId("r1")
+                .fileName("a.csv")
+                .build();
+        Files.write(downloads.resolve("a.csv"), new byte[1234]);
+
+        DownloadProgress first = tracker.measure(request, DownloadProgress.processing("r1", 100_000, 0));
+        assertEquals(0, first.getRowsPerSecond());
+        assertNull(first.getEtaSeconds());
+        assertEquals(1234, first.getBytesWritten());
+
+        Thread.sleep(50);
+        DownloadProgress second = tracker.measure(request, DownloadProgress.processing("r1", 100_000, 1_000));
+        assertTrue(second.getRowsPerSecond() > 0);
+        assertNotNull(second.getEtaSeconds());
+        assertTrue(second.getEtaSeconds() >= 99_000 / second.getRowsPerSecond());
+
+        DownloadProgress completed = tracker.measure(request, DownloadProgress.completed("r1", "/api/download/file/a.csv"));
+        assertEquals(0L, completed.getEtaSeconds());
+        assertEquals(1234, completed.getBytesWritten());
+
+        // 완료 후 측정 상태가 지워져 같은 requestId의 다음 작업은 기준점부터 다시 측정
+        assertEquals(0, tracker.measure(request, DownloadProgress.processing("r1", 100_000, 5_000)).getRowsPerSecond());
+    }
+}
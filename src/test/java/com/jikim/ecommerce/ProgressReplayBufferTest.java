@@ -0,0 +1,57 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.dto.DownloadProgress;
+import com.jikim.ecommerce.websocket.ProgressReplayBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProgressReplayBufferTest {
+
+    private ProgressReplayBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new ProgressReplayBuffer();
+        ReflectionTestUtils.setField(buffer, "capacity", 3);
+        ReflectionTestUtils.setField(buffer, "ttl", Duration.ofMinutes(10));
+    }
+
+    @Test
+    @DisplayName("요청별로 최근 이벤트만 보관하고 세션과 lastEventId로 걸러 순서대로 돌려준다")
+    void keepsRecentEventsPerRequest() {
+        long first = buffer.record("s1", DownloadProgress.queued("r1")).getEventId();
+        for (int processed = 1; processed <= 4; processed++) {
+            buffer.record("s1", DownloadProgress.processing("r1", 4, processed));
+        }
+        DownloadProgress otherSession = buffer.record("s2", DownloadProgress.queued("r2"));
+
+        List<DownloadProgress> events = buffer.eventsAfter("s1", 0);
+        assertEquals(List.of(2L, 3L, 4L), events.stream().map(DownloadProgress::getProcessedCount).toList());
+        assertTrue(events.stream().allMatch(event -> event.getEventId() > first));
+
+        long secondToLast = events.get(1).getEventId();
+        assertEquals(1, buffer.eventsAfter("s1", secondToLast).size());
+        assertEquals(List.of(otherSession.getEventId()),
+                buffer.eventsAfter("s2", 0).stream().map(DownloadProgress::getEventId).toList());
+    }
+
+    @Test
+    @DisplayName("요청 소유 세션은 처음 등록한 세션으로 유지되고 ttl이 지나면 모르는 요청이 된다")
+    void tracksOwnerUntilExpired() {
+        buffer.register("r1", "s1");
+        buffer.record("s2", DownloadProgress.processing("r1", 10, 1));
+        assertEquals("s1", buffer.ownerOf("r1").orElseThrow());
+
+        ReflectionTestUtils.setField(buffer, "ttl", Duration.ofMillis(-1));
+        assertTrue(buffer.ownerOf("r1").isEmpty());
+        buffer.sweep();
+        assertTrue(buffer.eventsForRequest("r1", 0).isEmpty());
+    }
+}
@@ -0,0 +1,73 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.dto.DownloadProgress;
+import com.jikim.ecommerce.websocket.ProgressReplayBuffer;
+import com.jikim.ecommerce.websocket.ProgressSseEmitters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProgressSseEmittersTest {
+
+    private ProgressReplayBuffer replayBuffer;
+    private ProgressSseEmitters sseEmitters;
+
+    @BeforeEach
+    void setUp() {
+        replayBuffer = new ProgressReplayBuffer();
+        ReflectionTestUtils.setField(replayBuffer, "capacity", 16);
+        ReflectionTestUtils.setField(replayBuffer, "ttl", Duration.ofMinutes(10));
+        // 전송을 호출 스레드에서 바로 수행
+        sseEmitters = new ProgressSseEmitters(replayBuffer, Runnable::run);
+        ReflectionTestUtils.setField(sseEmitters, "bufferSize", 32);
+    }
+
+    @Test
+    @DisplayName("Last-Event-ID 이후 이벤트를 재전송한 뒤 실시간 이벤트를 이어 보내고 완료되면 스트림을 닫는다")
+    void replaysThenStreamsUntilTerminal() {
+        long queuedEventId = replayBuffer.record("s1", DownloadProgress.queued("r1")).getEventId();
+        replayBuffer.record("s1", DownloadProgress.processing("r1", 100, 50));
+        replayBuffer.record("s2", DownloadProgress.processing("r2", 100, 10));
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        sseEmitters.subscribe("r1", queuedEventId, emitter);
+        assertEquals(1, sseEmitters.getSubscriberCount());
+
+        // 다른 요청의 이벤트는 받지 않음
+        sseEmitters.send(replayBuffer.record("s2", DownloadProgress.processing("r2", 100, 20)));
+        sseEmitters.send(replayBuffer.record("s1", DownloadProgress.completed("r1", "/api/download/file/a.xlsx")));
+
+        assertEquals(List.of("PROCESSING", "COMPLETED"),
+                emitter.events.stream().map(DownloadProgress::getStatus).toList());
+        assertTrue(emitter.events.stream().allMatch(event -> "r1".equals(event.getRequestId())));
+        assertTrue(emitter.completed);
+        assertEquals(0, sseEmitters.getSubscriberCount());
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<DownloadProgress> events = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(DownloadProgress.class::isInstance)
+                    .map(DownloadProgress.class::cast)
+                    .forEach(events::add);
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
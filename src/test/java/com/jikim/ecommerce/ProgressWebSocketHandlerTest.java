@@ -0,0 +1,236 @@
+package com.jikim.ecommerce;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jikim.ecommerce.dto.DownloadProgress;
+import com.jikim.ecommerce.websocket.ProgressReplayBuffer;
+import com.jikim.ecommerce.websocket.ProgressSessionClosedEvent;
+import com.jikim.ecommerce.websocket.ProgressWebSocketHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ProgressWebSocketHandlerTest {
+
+    private ExecutorService sendExecutor;
+    private ApplicationEventPublisher eventPublisher;
+    private ProgressReplayBuffer replayBuffer;
+    private ProgressWebSocketHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        sendExecutor = Executors.newCachedThreadPool();
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        replayBuffer = new ProgressReplayBuffer();
+        ReflectionTestUtils.setField(replayBuffer, "capacity", 16);
+        ReflectionTestUtils.setField(replayBuffer, "ttl", Duration.ofMinutes(10));
+        handler = new ProgressWebSocketHandler(new ObjectMapper(), eventPublisher, sendExecutor, replayBuffer);
+        ReflectionTestUtils.setField(handler, "sendTimeLimitMillis", 5000);
+        ReflectionTestUtils.setField(handler, "bufferSizeLimit", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.setField(handler, "slowConsumerPolicy", OverflowStrategy.DROP);
+        ReflectionTestUtils.setField(handler, "reconnectGrace", Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sendExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("전송이 막힌 세션이 있어도 호출 스레드와 다른 세션의 전송은 막히지 않는다")
+    void slowSessionDoesNotBlockOthers() throws Exception {
+        CountDownLatch unblock = new CountDownLatch(1);
+        WebSocketSession slow = session("ws-slow", "slow");
+        doAnswer(invocation -> {
+            unblock.await();
+            return null;
+        }).when(slow).sendMessage(any());
+
+        CountDownLatch received = new CountDownLatch(1);
+        WebSocketSession fast = session("ws-fast", "fast");
+        doAnswer(invocation -> {
+            received.countDown();
+            return null;
+        }).when(fast).sendMessage(any());
+
+        handler.afterConnectionEstablished(slow);
+        handler.afterConnectionEstablished(fast);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+            for (int i = 0; i < 100; i++) {
+                handler.sendProgress("slow", DownloadProgress.processing("r1", 100, i));
+            }
+            handler.sendProgress("fast", DownloadProgress.processing("r2", 100, 50));
+        });
+        assertTrue(received.await(1, TimeUnit.SECONDS));
+
+        unblock.countDown();
+    }
+
+    @Test
+    @DisplayName("송신 한도 초과로 서버가 끊은 연결은 다운로드 취소 이벤트를 발행하지 않는다")
+    void slowConsumerCloseDoesNotCancelDownloads() throws Exception {
+        WebSocketSession slow = session("ws-1", "s1");
+        handler.afterConnectionEstablished(slow);
+        handler.afterConnectionClosed(slow, CloseStatus.SESSION_NOT_RELIABLE);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+
+        WebSocketSession closedByUser = session("ws-2", "s2");
+        handler.afterConnectionEstablished(closedByUser);
+        handler.afterConnectionClosed(closedByUser, CloseStatus.NORMAL);
+        verify(eventPublisher, timeout(1000)).publishEvent(new ProgressSessionClosedEvent("s2"));
+        verify(eventPublisher, never()).publishEvent(new ProgressSessionClosedEvent("s1"));
+    }
+
+    @Test
+    @DisplayName("연결이 끊긴 뒤 유예 시간 안에 같은 HTTP 세션이 다시 연결하면 취소 이벤트를 발행하지 않는다")
+    void reconnectWithinGraceKeepsDownloads() throws Exception {
+        WebSocketSession before = session("ws-1", "s1");
+        handler.afterConnectionEstablished(before);
+        handler.afterConnectionClosed(before, CloseStatus.GOING_AWAY);
+
+        // 새로고침 후 새 연결
+        WebSocketSession after = session("ws-2", "s1");
+        handler.afterConnectionEstablished(after);
+
+        Thread.sleep(300);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+
+        // 새 연결도 끊기고 재연결이 없으면 유예 시간 뒤 한 번만 발행
+        handler.afterConnectionClosed(after, CloseStatus.GOING_AWAY);
+        verify(eventPublisher, timeout(1000)).publishEvent(new ProgressSessionClosedEvent("s1"));
+        Thread.sleep(200);
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    @DisplayName("한 HTTP 세션의 모든 연결이 한 번 직렬화된 같은 메시지를 받고, 마지막 연결이 끊길 때만 취소 이벤트를 발행한다")
+    void fansOutToAllConnectionsOfHttpSession() throws Exception {
+        WebSocketSession tab1 = session("ws-1", "s1");
+        WebSocketSession tab2 = session("ws-2", "s1");
+        handler.afterConnectionEstablished(tab1);
+        handler.afterConnectionEstablished(tab2);
+
+        handler.sendProgress("s1", DownloadProgress.processing("r1", 100, 10));
+
+        ArgumentCaptor<TextMessage> first = ArgumentCaptor.forClass(TextMessage.class);
+        ArgumentCaptor<TextMessage> second = ArgumentCaptor.forClass(TextMessage.class);
+        verify(tab1, timeout(1000)).sendMessage(first.capture());
+        verify(tab2, timeout(1000)).sendMessage(second.capture());
+        assertSame(first.getValue(), second.getValue());
+
+        handler.afterConnectionClosed(tab1, CloseStatus.NORMAL);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+        handler.afterConnectionClosed(tab2, CloseStatus.NORMAL);
+        verify(eventPublisher, timeout(1000)).publishEvent(new ProgressSessionClosedEvent("s1"));
+    }
+
+    @Test
+    @DisplayName("연결이 없는 세션의 진행률은 다른 세션에 브로드캐스트하지 않고, 연결하면 lastEventId 이후 이벤트를 재전송한다")
+    void replaysMissedEventsInsteadOfBroadcasting() throws Exception {
+        WebSocketSession other = session("ws-other", "other");
+        handler.afterConnectionEstablished(other);
+
+        // ProgressHub와 같이 버퍼에 기록한 이벤트를 전송
+        handler.sendProgress("s1", replayBuffer.record("s1", DownloadProgress.queued("r1")));
+        handler.sendProgress("s1", replayBuffer.record("s1", DownloadProgress.processing("r1", 100, 50)));
+        handler.sendProgress("s1", replayBuffer.record("s1", DownloadProgress.completed("r1", "/api/download/file/a.xlsx")));
+
+        Thread.sleep(100);
+        verify(other, never()).sendMessage(any());
+
+        // QUEUED 이벤트까지 받은 클라이언트의 재연결 → PROCESSING, COMPLETED 재전송
+        ObjectMapper objectMapper = new ObjectMapper();
+        WebSocketSession first = session("ws-1", "s1");
+        ArgumentCaptor<TextMessage> all = ArgumentCaptor.forClass(TextMessage.class);
+        handler.afterConnectionEstablished(first);
+        verify(first, timeout(1000).times(3)).sendMessage(all.capture());
+        long queuedEventId = all.getAllValues().stream()
+                .map(message -> read(objectMapper, message))
+                .filter(progress -> "QUEUED".equals(progress.getStatus()))
+                .findFirst().orElseThrow().getEventId();
+
+        WebSocketSession reconnected = session("ws-2", "s1", "&lastEventId=" + queuedEventId);
+        ArgumentCaptor<TextMessage> replayed = ArgumentCaptor.forClass(TextMessage.class);
+        handler.afterConnectionEstablished(reconnected);
+        verify(reconnected, timeout(1000).times(2)).sendMessage(replayed.capture());
+        assertTrue(replayed.getAllValues().stream()
+                .map(message -> read(objectMapper, message))
+                .allMatch(progress -> progress.getEventId() > queuedEventId));
+    }
+
+    @Test
+    @DisplayName("한 연결로 가는 재전송 / 실시간 이벤트는 전송 스레드가 여러 개여도 eventId 순서대로 전송된다")
+    void sendsInEventIdOrderPerConnection() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Long> received = new CopyOnWriteArrayList<>();
+        WebSocketSession tab = session("ws-1", "s1");
+        doAnswer(invocation -> {
+            received.add(read(objectMapper, invocation.getArgument(0)).getEventId());
+            return null;
+        }).when(tab).sendMessage(any());
+
+        // 연결 전 이벤트는 재전송으로, 이후 이벤트는 실시간으로 전달
+        handler.sendProgress("s1", replayBuffer.record("s1", DownloadProgress.queued("r1")));
+        handler.afterConnectionEstablished(tab);
+        long lastEventId = 0;
+        for (int i = 1; i <= 100; i++) {
+            DownloadProgress event = replayBuffer.record("s1", DownloadProgress.processing("r1", 100, i));
+            lastEventId = event.getEventId();
+            handler.sendProgress("s1", event);
+        }
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!received.contains(lastEventId) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(lastEventId, received.get(received.size() - 1));
+        for (int i = 1; i < received.size(); i++) {
+            assertTrue(received.get(i - 1) < received.get(i), "out of order: " + received);
+        }
+    }
+
+    private DownloadProgress read(ObjectMapper objectMapper, TextMessage message) {
+        try {
+            return objectMapper.readValue(message.getPayload(), DownloadProgress.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private WebSocketSession session(String id, String httpSessionId) throws Exception {
+        return session(id, httpSessionId, "");
+    }
+
+    private WebSocketSession session(String id, String httpSessionId, String extraQuery) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getUri()).thenReturn(
+                new URI("ws://localhost:8080/ws/download-progress?sessionId=" + httpSessionId + extraQuery));
+        doNothing().when(session).sendMessage(any(WebSocketMessage.class));
+        return session;
+    }
+}
@@ -0,0 +1,102 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.util.RowRingBuffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowRingBufferTest {
+    
+    @Test
+    @DisplayName("버퍼보다 많은 행을 생산해도 순서대로 모두 소비되어야 한다")
+    void deliversAllRowsInOrder() throws Exception {
+        RowRingBuffer<AtomicLong> buffer = new RowRingBuffer<>(8, AtomicLong::new);
+        int total = 10_000;
+        
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < total; i++) {
+                    buffer.claim().set(i);
+                    buffer.publish();
+                }
+                buffer.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        
+        List<Long> consumed = new ArrayList<>();
+        AtomicLong slot;
+        while ((slot = buffer.take()) != null) {
+            consumed.add(slot.get());
+            buffer.release();
+        }
+        producer.join(5_000);
+        
+        assertEquals(total, consumed.size());
+        for (int i = 0; i < total; i++) {
+            assertEquals(i, consumed.get(i));
+        }
+    }
+    
+    @Test
+    @DisplayName("배치 크기를 채우지 못한 나머지 행도 close 시 소비자에게 전달되어야 한다")
+    void handsOverPartialBatchOnClose() throws Exception {
+        RowRingBuffer<AtomicLong> buffer = new RowRingBuffer<>(64, 16, AtomicLong::new);
+        for (int i = 0; i < 20; i++) {
+            buffer.claim().set(i);
+            buffer.publish();
+        }
+        buffer.close();
+        
+        long consumed = 0;
+        AtomicLong slot;
+        while ((slot = buffer.take()) != null) {
+            assertEquals(consumed, slot.get());
+            buffer.release();
+            consumed++;
+        }
+        assertEquals(20, consumed);
+    }
+    
+    @Test
+    @DisplayName("생산자가 실패하면 소비자는 예외를 받아야 한다")
+    void propagatesProducerFailure() {
+        RowRingBuffer<AtomicLong> buffer = new RowRingBuffer<>(4, AtomicLong::new);
+        buffer.fail(new RuntimeException("DB 연결 끊김"));
+        
+        assertThrows(IllegalStateException.class, buffer::take);
+    }
+    
+    @Test
+    @DisplayName("소비자가 중단하면 가득 찬 버퍼에서 대기 중인 생산자도 중단되어야 한다")
+    void abortReleasesBlockedProducer() throws Exception {
+        RowRingBuffer<AtomicLong> buffer = new RowRingBuffer<>(1, AtomicLong::new);
+        buffer.claim();
+        buffer.publish();
+        
+        AtomicLong failures = new AtomicLong();
+        Thread producer = new Thread(() -> {
+            try {
+                buffer.claim();
+            } catch (IllegalStateException e) {
+                failures.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        
+        buffer.abort(new RuntimeException("엑셀 쓰기 실패"));
+        producer.join(5_000);
+        
+        assertFalse(producer.isAlive());
+        assertEquals(1, failures.get());
+    }
+}
@@ -0,0 +1,98 @@
+package com.jikim.ecommerce;
+
+import com.jikim.ecommerce.util.ZeroCopyFileSender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZeroCopyFileSenderTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private File file;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        file = Files.writeString(tempDir.resolve("export.xlsx"), "0123456789", StandardCharsets.UTF_8).toFile();
+    }
+    
+    @Test
+    @DisplayName("Range 요청이면 206과 함께 요청한 구간만 전송해야 한다")
+    void sendsRequestedRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/download/file/export.xlsx");
+        request.addHeader("Range", "bytes=3-6");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        ZeroCopyFileSender.send(file, request, response);
+        
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 3-6/10", response.getHeader("Content-Range"));
+        assertEquals("3456", response.getContentAsString());
+    }
+    
+    @Test
+    @DisplayName("If-Range의 ETag가 다르면 Range를 무시하고 전체 파일을 전송해야 한다")
+    void ignoresRangeWhenIfRangeDoesNotMatch() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/download/file/export.xlsx");
+        request.addHeader("Range", "bytes=3-6");
+        request.addHeader("If-Range", "\"stale-etag\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        ZeroCopyFileSender.send(file, request, response);
+        
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+    
+    @Test
+    @DisplayName("ETag가 일치하면 304를 반환하고 본문을 보내지 않아야 한다")
+    void returnsNotModifiedForMatchingETag() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/download/file/export.xlsx");
+        request.addHeader("If-None-Match", ZeroCopyFileSender.strongETag(file));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        ZeroCopyFileSender.send(file, request, response);
+        
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+    
+    @Test
+    @DisplayName("파일 크기를 벗어난 Range는 416을 반환해야 한다")
+    void rejectsUnsatisfiableRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/download/file/export.xlsx");
+        request.addHeader("Range", "bytes=20-30");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        ZeroCopyFileSender.send(file, request, response);
+        
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader("Content-Range"));
+    }
+    
+    @Test
+    @DisplayName("문법이 잘못된 Range는 무시하고 200과 전체 파일을 전송해야 한다")
+    void ignoresMalformedRange() throws Exception {
+        for (String malformed : new String[]{"bytes=abc", "bytes=6-3", "items=0-5"}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/download/file/export.xlsx");
+            request.addHeader("Range", malformed);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            
+            ZeroCopyFileSender.send(file, request, response);
+            
+            assertEquals(200, response.getStatus(), malformed);
+            assertEquals("0123456789", response.getContentAsString(), malformed);
+        }
+    }
+}